@@ -0,0 +1,12 @@
+-- Indexes backing the admin inbox listings (status filter + newest first)
+-- The filter compares the raw column against a lower-case value; statuses are now stored lower-case,
+-- so normalise rows written before that first.
+UPDATE contact_message SET status = LOWER(TRIM(status));
+UPDATE cta_record SET status = LOWER(TRIM(status));
+UPDATE callback_request SET status = LOWER(TRIM(status));
+CREATE INDEX idx_contact_message_status_created ON contact_message (status, created_at);
+CREATE INDEX idx_contact_message_created ON contact_message (created_at);
+CREATE INDEX idx_cta_record_status_created ON cta_record (status, created_at);
+CREATE INDEX idx_cta_record_created ON cta_record (created_at);
+CREATE INDEX idx_callback_request_status_created ON callback_request (status, created_at);
+CREATE INDEX idx_callback_request_created ON callback_request (created_at);
@@ -0,0 +1,8 @@
+-- Indexes backing the paginated admin KYC listing (/api/admin/kyc/all)
+-- The status filter compares the raw column against a lower-case value; statuses are now stored lower-case,
+-- so normalise rows written before that first.
+-- If an earlier lower(verification_status) functional index exists, DROP INDEX idx_kyc_status_created first.
+UPDATE kyc_verification SET verification_status = LOWER(TRIM(verification_status));
+CREATE INDEX idx_kyc_status_created ON kyc_verification (verification_status, created_at);
+CREATE INDEX idx_kyc_created ON kyc_verification (created_at);
+CREATE INDEX idx_kyc_user ON kyc_verification (user_id);
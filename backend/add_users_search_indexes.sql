@@ -0,0 +1,3 @@
+-- Indexes backing prefix search on /api/admin/users?match=prefix
+CREATE INDEX idx_users_name ON users (name);
+CREATE INDEX idx_users_phone ON users (phone);
@@ -0,0 +1,2 @@
+-- Account status reported and set by /api/admin/users (active, inactive, suspended)
+ALTER TABLE users ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'active';
@@ -0,0 +1,2 @@
+-- Per-user access token version; role claims minted at an older version are ignored
+ALTER TABLE users ADD COLUMN token_version INT NOT NULL DEFAULT 0;
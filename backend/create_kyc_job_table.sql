@@ -0,0 +1,16 @@
+-- Outbox for post-submit KYC work (PDF generation, admin notification)
+CREATE TABLE kyc_job (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    kyc_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    job_type VARCHAR(30) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(500),
+    pdf_rendered_at DATETIME(6),
+    email_sent_at DATETIME(6),
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL
+);
+CREATE INDEX idx_kyc_job_status_next ON kyc_job (status, next_attempt_at);
@@ -0,0 +1,11 @@
+-- Emails the dispatcher could not deliver (retries exhausted or queue full)
+CREATE TABLE mail_dead_letter (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    recipients VARCHAR(500) NOT NULL,
+    subject VARCHAR(255),
+    body TEXT,
+    attempts INT NOT NULL,
+    last_error VARCHAR(500),
+    created_at DATETIME(6) NOT NULL
+);
+CREATE INDEX idx_mail_dead_letter_created ON mail_dead_letter (created_at);
@@ -0,0 +1,11 @@
+-- Shared admin notification log; every replica polls it so dashboard events reach sockets on all instances
+CREATE TABLE notification_log (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    topic VARCHAR(20) NOT NULL,
+    event VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    user_id BIGINT,
+    status VARCHAR(100),
+    created_at DATETIME(6) NOT NULL
+);
+CREATE INDEX idx_notification_log_created ON notification_log (created_at);
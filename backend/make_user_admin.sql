@@ -1,6 +1,6 @@
 -- Update user 15 to admin role
 UPDATE users 
-SET role = 'admin' 
+SET role = 'admin', token_version = token_version + 1 
 WHERE user_id = 15;
 
 -- Verify the update
@@ -49,6 +49,7 @@ public class KwickBackendApplication {
 				User admin = existingAdmin.get();
 				if (!"admin".equalsIgnoreCase(admin.getRole())) {
 					admin.setRole("admin");
+					admin.bumpTokenVersion();
 					userRepository.save(admin);
 					logger.info("✓ Promoted existing user admin@kwick.in to admin role");
 				} else {
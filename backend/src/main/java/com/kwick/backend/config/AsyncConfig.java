@@ -0,0 +1,88 @@
+package com.kwick.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Background processing: scheduled pollers plus the bounded worker pools they feed.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Workers for post-submit KYC jobs (PDF rendering, storage, admin email).
+     */
+    @Bean(name = "kycJobExecutor")
+    public ThreadPoolTaskExecutor kycJobExecutor(
+            @Value("${kyc.jobs.workers:2}") int workers,
+            @Value("${kyc.jobs.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("kyc-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Writes the documents of a batch KYC upload in parallel. When saturated the request thread
+     * stores the file itself, which slows that caller down instead of failing it.
+     */
+    @Bean(name = "kycUploadExecutor")
+    public ThreadPoolTaskExecutor kycUploadExecutor(
+            @Value("${kyc.upload.workers:8}") int workers,
+            @Value("${kyc.upload.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("kyc-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Renders document thumbnails after upload. Image decoding is CPU-heavy, so the pool stays small;
+     * when the queue is full the thumbnail is skipped and admins are served the original instead.
+     */
+    @Bean(name = "thumbnailExecutor")
+    public ThreadPoolTaskExecutor thumbnailExecutor(
+            @Value("${kyc.thumbnails.workers:1}") int workers,
+            @Value("${kyc.thumbnails.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("kyc-thumb-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Drains per-session WebSocket outboxes. A session is drained by at most one thread at a time, so a
+     * stalled browser holds one worker until it is evicted (at most notifications.ws.send-time-limit-ms plus
+     * the stall check interval) rather than blocking every broadcast.
+     */
+    @Bean(name = "notificationSendExecutor")
+    public ThreadPoolTaskExecutor notificationSendExecutor(
+            @Value("${notifications.ws.send-workers:4}") int workers,
+            @Value("${notifications.ws.send-queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ws-send-");
+        executor.initialize();
+        return executor;
+    }
+}
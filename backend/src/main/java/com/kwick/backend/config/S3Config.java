@@ -0,0 +1,72 @@
+package com.kwick.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * One shared, non-blocking S3 client for the app. Connection pool size and timeouts are tuned here;
+ * aws.s3.endpoint + aws.s3.path-style point it at an S3-compatible stand-in (MinIO, LocalStack) locally.
+ */
+@Configuration
+@ConditionalOnProperty(name = "aws.s3.enabled", havingValue = "true")
+public class S3Config {
+
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient(
+            @Value("${aws.s3.max-connections:64}") int maxConnections,
+            @Value("${aws.s3.connection-timeout-ms:2000}") long connectionTimeoutMs,
+            @Value("${aws.s3.connection-acquire-timeout-ms:5000}") long acquireTimeoutMs,
+            @Value("${aws.s3.read-timeout-ms:30000}") long readTimeoutMs,
+            @Value("${aws.s3.region:}") String region,
+            @Value("${aws.s3.endpoint:}") String endpoint,
+            @Value("${aws.s3.path-style:false}") boolean pathStyle) {
+        // Passed as a builder so the SDK owns (and closes) the Netty event loop with the client
+        NettyNioAsyncHttpClient.Builder http = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .writeTimeout(Duration.ofMillis(readTimeoutMs))
+                .connectionMaxIdleTime(Duration.ofSeconds(60))
+                .tcpKeepAlive(true);
+
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .httpClientBuilder(http)
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build());
+        if (!region.isBlank()) {
+            builder.region(Region.of(region));
+        }
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+
+    // Signing is local (no network call); region and endpoint must match the client so the URLs resolve
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner(
+            @Value("${aws.s3.region:}") String region,
+            @Value("${aws.s3.endpoint:}") String endpoint,
+            @Value("${aws.s3.path-style:false}") boolean pathStyle) {
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build());
+        if (!region.isBlank()) {
+            builder.region(Region.of(region));
+        }
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        return builder.build();
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.lang.NonNull;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import com.kwick.backend.security.NotificationHandshakeInterceptor;
 import com.kwick.backend.service.NotificationWebSocketHandler;
 
 @Configuration
@@ -12,13 +13,18 @@ import com.kwick.backend.service.NotificationWebSocketHandler;
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final @NonNull NotificationWebSocketHandler handler;
+    private final @NonNull NotificationHandshakeInterceptor handshakeInterceptor;
 
-    public WebSocketConfig(@NonNull NotificationWebSocketHandler handler) {
+    public WebSocketConfig(@NonNull NotificationWebSocketHandler handler,
+            @NonNull NotificationHandshakeInterceptor handshakeInterceptor) {
         this.handler = handler;
+        this.handshakeInterceptor = handshakeInterceptor;
     }
 
     @Override
     public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
-        registry.addHandler(handler, "/ws/notifications").setAllowedOrigins("*");
+        registry.addHandler(handler, "/ws/notifications")
+                .addInterceptors(handshakeInterceptor)
+                .setAllowedOrigins("*");
     }
 }
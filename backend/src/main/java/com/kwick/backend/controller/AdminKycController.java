@@ -1,13 +1,26 @@
 package com.kwick.backend.controller;
 
 import com.kwick.backend.ApiResponse;
+import com.kwick.backend.dto.KycListItem;
 import com.kwick.backend.model.KycVerification;
 import com.kwick.backend.model.User;
 import com.kwick.backend.repository.KycRepository;
+import com.kwick.backend.repository.LikePatterns;
 import com.kwick.backend.repository.UserRepository;
 import com.kwick.backend.service.EmailService;
+import com.kwick.backend.service.KycPdfCache;
 import com.kwick.backend.service.NotificationsPublisher;
-
+import com.kwick.backend.service.PresignedUrlCache;
+import com.kwick.backend.service.StorageService;
+import com.kwick.backend.service.ThumbnailService;
+import org.springframework.beans.factory.ObjectProvider;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -16,15 +29,13 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.servlet.http.HttpServletRequest;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,12 +50,19 @@ public class AdminKycController {
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final NotificationsPublisher notificationsPublisher;
+    private final KycPdfCache kycPdfCache;
+    private final ObjectProvider<PresignedUrlCache> presignedUrls;
+    private final StorageService storageService;
 
-    public AdminKycController(KycRepository kycRepository, UserRepository userRepository, EmailService emailService, NotificationsPublisher notificationsPublisher) {
+    public AdminKycController(KycRepository kycRepository, UserRepository userRepository, EmailService emailService, NotificationsPublisher notificationsPublisher,
+            KycPdfCache kycPdfCache, ObjectProvider<PresignedUrlCache> presignedUrls, StorageService storageService) {
         this.kycRepository = kycRepository;
         this.userRepository = userRepository;
         this.emailService = emailService;
         this.notificationsPublisher = notificationsPublisher;
+        this.kycPdfCache = kycPdfCache;
+        this.presignedUrls = presignedUrls;
+        this.storageService = storageService;
     }
 
     /**
@@ -59,56 +77,22 @@ public class AdminKycController {
             HttpServletRequest request) {
         try {
             logger.info("Fetching KYC submissions: status={}, q={}, page={}, size={}", status, q, page, size);
-            // Fetch all, filter, then paginate (sorted by createdAt desc if available)
-            List<KycVerification> kycSubmissions = kycRepository.findAll();
-            List<KycVerification> filtered = kycSubmissions.stream()
-                    .filter(k -> "all".equalsIgnoreCase(status) || status.equalsIgnoreCase(k.getVerificationStatus()))
-                    .filter(k -> {
-                        if (q == null || q.isBlank()) return true;
-                        String qq = q.toLowerCase();
-                        Long userId = k.getUserId();
-                        Optional<User> u = userId != null ? userRepository.findById(userId) : Optional.empty();
-                        return (u.map(User::getName).orElse("").toLowerCase().contains(qq))
-                                || (u.map(User::getEmail).orElse("").toLowerCase().contains(qq))
-                                || (k.getCity() != null && k.getCity().toLowerCase().contains(qq))
-                                || (k.getState() != null && k.getState().toLowerCase().contains(qq));
-                    })
-                    .sorted((a,b) -> {
-                        java.time.LocalDateTime ac = a.getCreatedAt();
-                        java.time.LocalDateTime bc = b.getCreatedAt();
-                        if (ac == null && bc == null) return 0;
-                        if (ac == null) return 1;
-                        if (bc == null) return -1;
-                        return bc.compareTo(ac);
-                    })
-                    .toList();
-
-            // Map to DTO with user info (use mutable map to allow null values)
-            int total = filtered.size();
+            // Filter, sort and paginate in the database (newest first)
             int p = Math.max(page, 0);
             int s = Math.max(size, 1);
-            int from = Math.min(p * s, total);
-            int to = Math.min(from + s, total);
-            List<KycVerification> pageItems = filtered.subList(from, to);
-
-            List<Map<String, Object>> result = pageItems.stream().map(kyc -> {
-                Long userId = kyc.getUserId();
-                Optional<User> user = userId != null ? userRepository.findById(userId) : Optional.empty();
-                java.util.Map<String, Object> dto = new java.util.HashMap<>();
-                dto.put("kycId", kyc.getId());
-                dto.put("userId", userId);
-                dto.put("userName", user.map(User::getName).orElse("Unknown"));
-                dto.put("userEmail", user.map(User::getEmail).orElse("N/A"));
-                dto.put("aadhaarLast4", maskNumber(kyc.getAadhaarNumber()));
-                dto.put("city", kyc.getCity());
-                dto.put("state", kyc.getState());
-                dto.put("verificationStatus", kyc.getVerificationStatus());
-                dto.put("rejectionReason", kyc.getRejectionReason());
-                dto.put("createdAt", kyc.getCreatedAt());
-                dto.put("verifiedAt", kyc.getVerifiedAt());
-                dto.put("verifiedByAdmin", kyc.getVerifiedByAdmin());
-                return dto;
-            }).collect(Collectors.toList());
+            Pageable pageable = PageRequest.of(p, s, Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+            String statusFilter = "all".equalsIgnoreCase(status) ? null : status.toLowerCase();
+            Page<KycListItem> kycPage;
+            if (q != null && !q.isBlank()) {
+                kycPage = kycRepository.searchAdminPage(statusFilter, LikePatterns.contains(q.trim().toLowerCase()), pageable);
+            } else if (statusFilter != null) {
+                kycPage = kycRepository.findAdminPageByStatus(statusFilter, pageable);
+            } else {
+                kycPage = kycRepository.findAdminPage(pageable);
+            }
+            long total = kycPage.getTotalElements();
+            // Rows already carry user name/email from the join
+            List<KycListItem> result = kycPage.getContent();
 
             logger.info("Retrieved {} KYC submissions with status: {} (total: {})", result.size(), status, total);
             return ResponseEntity.ok(new ApiResponse<>(Map.of(
@@ -179,6 +163,13 @@ public class AdminKycController {
             try { details.put("licenseBackUrl", convertToHttpUrl(kyc.getLicenseBackUrl(), userId, "license")); } catch (Exception ex) { details.put("licenseBackUrl", ""); }
             try { details.put("selfieUrl", convertToHttpUrl(kyc.getSelfieUrl(), userId, "selfie")); } catch (Exception ex) { details.put("selfieUrl", ""); }
 
+            // Small JPEG previews for the review screen; the full-size URLs above are for zooming in
+            details.put("aadhaarFrontThumbUrl", thumbnailHttpUrl(kyc.getAadhaarFrontUrl(), kyc.getAadhaarFrontType(), userId, "aadhaar"));
+            details.put("aadhaarBackThumbUrl", thumbnailHttpUrl(kyc.getAadhaarBackUrl(), kyc.getAadhaarBackType(), userId, "aadhaar"));
+            details.put("licenseFrontThumbUrl", thumbnailHttpUrl(kyc.getLicenseFrontUrl(), kyc.getLicenseFrontType(), userId, "license"));
+            details.put("licenseBackThumbUrl", thumbnailHttpUrl(kyc.getLicenseBackUrl(), kyc.getLicenseBackType(), userId, "license"));
+            details.put("selfieThumbUrl", thumbnailHttpUrl(kyc.getSelfieUrl(), kyc.getSelfieType(), userId, "selfie"));
+
             logger.info("Retrieved KYC details for kycId: {}, userId: {}", kycId, userId);
             return ResponseEntity.ok(new ApiResponse<>(details));
         } catch (Exception e) {
@@ -319,7 +310,8 @@ public class AdminKycController {
     @GetMapping("/{kycId}/pdf")
     public ResponseEntity<?> getKycPdf(
             @PathVariable(required = true) Long kycId,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            WebRequest webRequest) {
         try {
             if (!isAdminUser(request)) {
                 return ResponseEntity.status(403).body(new ApiResponse<>("Forbidden: Admin access required"));
@@ -335,25 +327,24 @@ public class AdminKycController {
             }
 
             KycVerification kyc = kycOpt.get();
-            String pdfUrl = kyc.getKycPdfUrl();
-
-            if (pdfUrl == null || pdfUrl.isEmpty()) {
+            Optional<User> userOpt = userRepository.findById(kyc.getUserId());
+            if (userOpt.isEmpty()) {
                 return ResponseEntity.status(404).body(new ApiResponse<>("PDF not available for this KYC"));
             }
 
-            // Load PDF from file system
-            if (pdfUrl.startsWith("backend-uploads")) {
-                Path filePath = Paths.get(pdfUrl);
-                if (Files.exists(filePath) && Files.isRegularFile(filePath)) {
-                    byte[] pdfBytes = Files.readAllBytes(filePath);
-                    return ResponseEntity.ok()
-                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kyc_" + kycId + ".pdf")
-                            .contentType(java.util.Objects.requireNonNull(MediaType.APPLICATION_PDF))
-                            .body(pdfBytes);
-                }
+            // Same content-hash cache as the user download; re-rendered only when the KYC/user data changed
+            String hash = kycPdfCache.hash(kyc, userOpt.get());
+            if (webRequest.checkNotModified(KycPdfCache.etag(hash))) {
+                return null; // 304 already written
             }
-
-            return ResponseEntity.status(404).body(new ApiResponse<>("PDF file not found"));
+            KycPdfCache.PdfArtifact pdf = kycPdfCache.resolve(kyc, userOpt.get(), hash);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kyc_" + kycId + ".pdf")
+                    .contentType(java.util.Objects.requireNonNull(MediaType.APPLICATION_PDF))
+                    .contentLength(pdf.size())
+                    .eTag(pdf.etag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(new FileSystemResource(pdf.path()));
         } catch (Exception e) {
             logger.error("Error downloading KYC PDF for kycId: {}", kycId, e);
             return ResponseEntity.status(500).body(new ApiResponse<>("Error: " + e.getMessage()));
@@ -409,15 +400,48 @@ public class AdminKycController {
         return "**** **** " + number.substring(number.length() - 4);
     }
 
+    /**
+     * HTTP URL of a document's thumbnail, or null for PDFs and missing documents.
+     * /api/kyc/file falls back to the original when a local thumbnail is missing; S3 objects are fetched
+     * straight from the bucket, so they only get the thumbnail URL once it has actually been written.
+     */
+    private String thumbnailHttpUrl(String filePath, String contentType, Long userId, String docType) {
+        if (filePath == null || filePath.isEmpty() || !ThumbnailService.isImage(contentType)) {
+            return null;
+        }
+        String thumbnail = ThumbnailService.thumbnailUrl(filePath);
+        if (PresignedUrlCache.isS3Url(filePath) && !isStored(thumbnail)) {
+            return convertToHttpUrl(filePath, userId, docType);
+        }
+        return convertToHttpUrl(thumbnail, userId, docType);
+    }
+
+    private boolean isStored(String url) {
+        try {
+            return storageService.exists(url);
+        } catch (IOException e) {
+            logger.warn("Could not check for {}: {}", url, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Convert absolute file path to HTTP URL for serving via API
      * e.g., C:\...\backend-uploads\kyc\17\aadhaar\file.jpg -> /api/kyc/file/17/aadhaar/file.jpg
-     * Properly URL-encodes the filename to handle spaces and special characters
+     * Properly URL-encodes the filename to handle spaces and special characters.
+     * S3-backed documents (s3://bucket/key) get a short-lived presigned URL instead, so the browser
+     * loads them from S3 directly.
      */
     private String convertToHttpUrl(String filePath, Long userId, String docType) {
         if (filePath == null || filePath.isEmpty()) {
             return null;
         }
+        if (PresignedUrlCache.isS3Url(filePath)) {
+            PresignedUrlCache cache = presignedUrls.getIfAvailable();
+            if (cache != null) {
+                return cache.presign(filePath);
+            }
+        }
         try {
             // Normalize and extract filename robustly across OS path separators
             String filename = java.nio.file.Paths.get(filePath).getFileName().toString();
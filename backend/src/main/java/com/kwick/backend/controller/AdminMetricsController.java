@@ -0,0 +1,75 @@
+package com.kwick.backend.controller;
+
+import com.kwick.backend.ApiResponse;
+import com.kwick.backend.security.ChatRateLimitFilter;
+import com.kwick.backend.security.PrincipalCache;
+import com.kwick.backend.service.ChatbotService;
+import com.kwick.backend.service.ContentAddressedStorageService;
+import com.kwick.backend.service.KycJobService;
+import com.kwick.backend.service.MailDispatcher;
+import com.kwick.backend.service.NotificationsPublisher;
+import com.kwick.backend.service.PresignedUrlCache;
+import com.kwick.backend.service.S3StorageService;
+import com.kwick.backend.service.ThumbnailService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminMetricsController {
+
+    private final PrincipalCache principalCache;
+    private final KycJobService kycJobService;
+    private final MailDispatcher mailDispatcher;
+    private final ObjectProvider<ContentAddressedStorageService> blobStorage;
+    private final ObjectProvider<S3StorageService> s3Storage;
+    private final ObjectProvider<PresignedUrlCache> presignedUrls;
+    private final ThumbnailService thumbnailService;
+    private final NotificationsPublisher notificationsPublisher;
+    private final ChatbotService chatbotService;
+    private final ChatRateLimitFilter chatRateLimitFilter;
+
+    public AdminMetricsController(PrincipalCache principalCache, KycJobService kycJobService,
+            MailDispatcher mailDispatcher, ObjectProvider<ContentAddressedStorageService> blobStorage,
+            ObjectProvider<S3StorageService> s3Storage, ObjectProvider<PresignedUrlCache> presignedUrls,
+            ThumbnailService thumbnailService, NotificationsPublisher notificationsPublisher,
+            ChatbotService chatbotService, ChatRateLimitFilter chatRateLimitFilter) {
+        this.principalCache = principalCache;
+        this.kycJobService = kycJobService;
+        this.mailDispatcher = mailDispatcher;
+        this.blobStorage = blobStorage;
+        this.s3Storage = s3Storage;
+        this.presignedUrls = presignedUrls;
+        this.thumbnailService = thumbnailService;
+        this.notificationsPublisher = notificationsPublisher;
+        this.chatbotService = chatbotService;
+        this.chatRateLimitFilter = chatRateLimitFilter;
+    }
+
+    /**
+     * GET /api/admin/metrics - Runtime counters for in-process caches and queues
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<Map<String, Object>>> metrics() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("principalCache", principalCache.stats());
+        payload.put("kycJobs", kycJobService.stats());
+        payload.put("mail", mailDispatcher.stats());
+        blobStorage.ifAvailable(storage -> payload.put("kycBlobs", storage.stats()));
+        s3Storage.ifAvailable(storage -> payload.put("s3", Map.of("inFlightUploads", storage.getInFlightUploads())));
+        presignedUrls.ifAvailable(cache -> payload.put("presignedUrls", cache.stats()));
+        payload.put("thumbnails", thumbnailService.stats());
+        payload.put("notifications", notificationsPublisher.stats());
+        payload.put("chatbot", chatbotService.stats());
+        payload.put("chatRateLimit", chatRateLimitFilter.stats());
+        return ResponseEntity.ok(new ApiResponse<>(payload));
+    }
+}
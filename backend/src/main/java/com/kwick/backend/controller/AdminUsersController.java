@@ -1,9 +1,13 @@
 package com.kwick.backend.controller;
 
 import com.kwick.backend.ApiResponse;
+import com.kwick.backend.dto.AdminUserRow;
 import com.kwick.backend.model.User;
+import com.kwick.backend.repository.LikePatterns;
 import com.kwick.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,7 +17,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin/users")
@@ -25,7 +28,9 @@ public class AdminUsersController {
     private UserRepository userRepository;
 
     /**
-     * GET /api/admin/users - List all users with optional search and pagination
+     * GET /api/admin/users - List users with optional search and pagination.
+     * Pass {@code afterId} (the previous response's nextAfterId) for keyset paging instead of page;
+     * {@code match=prefix} switches to index-backed prefix search.
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
@@ -33,37 +38,40 @@ public class AdminUsersController {
             @RequestParam(defaultValue = "") String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "contains") String match,
             HttpServletRequest request
     ) {
-        logger.info("Admin fetching users: q='{}', page={}, size={}", q, page, size);
-        List<User> allUsers = userRepository.findAll();
-        
-        // Apply search filter if query provided
-        List<User> filtered = allUsers.stream()
-                .filter(u -> q.isEmpty() || 
-                        (u.getName() != null && u.getName().toLowerCase().contains(q.toLowerCase())) ||
-                        (u.getEmail() != null && u.getEmail().toLowerCase().contains(q.toLowerCase())) ||
-                        (u.getPhone() != null && u.getPhone().toLowerCase().contains(q.toLowerCase())))
-                .collect(Collectors.toList());
-        
+        logger.info("Admin fetching users: q='{}', page={}, size={}, afterId={}, match={}", q, page, size, afterId, match);
+
         // Apply pagination with default size if size is 0 or less
         int effectiveSize = (size <= 0) ? 50 : size;
-        int start = page * effectiveSize;
-        int end = Math.min(start + effectiveSize, filtered.size());
-        List<User> paged = (start < filtered.size()) ? filtered.subList(start, end) : Collections.emptyList();
-        
-        // Convert to DTO (exclude password hash)
-        List<Map<String, Object>> items = paged.stream()
-                .map(this::userToDto)
-                .collect(Collectors.toList());
-        
+        long cursor = afterId != null ? afterId : 0L;
+        Pageable limit = afterId != null
+                ? PageRequest.of(0, effectiveSize)
+                : PageRequest.of(Math.max(page, 0), effectiveSize);
+
+        String term = q.trim();
+        List<AdminUserRow> items;
+        long total;
+        if ("prefix".equalsIgnoreCase(match)) {
+            String prefix = term.isEmpty() ? null : LikePatterns.prefix(term);
+            items = userRepository.seekByPrefix(prefix, cursor, limit);
+            total = userRepository.countByPrefix(prefix);
+        } else {
+            String pattern = term.isEmpty() ? null : LikePatterns.contains(term.toLowerCase());
+            items = userRepository.seekContaining(pattern, cursor, limit);
+            total = userRepository.countContaining(pattern);
+        }
+
         Map<String, Object> response = new HashMap<>();
         response.put("items", items);
-        response.put("total", filtered.size());
+        response.put("total", total);
         response.put("page", page);
         response.put("size", effectiveSize);
-        
-        logger.info("Returning {} users (total filtered: {})", items.size(), filtered.size());
+        response.put("nextAfterId", items.size() == effectiveSize ? items.get(items.size() - 1).getUserId() : null);
+
+        logger.info("Returning {} users (total filtered: {})", items.size(), total);
         return ResponseEntity.ok(response);
     }
 
@@ -109,11 +117,12 @@ public class AdminUsersController {
         String newStatus = body.get("status");
         
         if (newStatus != null && (newStatus.equals("active") || newStatus.equals("inactive") || newStatus.equals("suspended"))) {
-            // Note: User entity doesn't have a status field yet, this would need to be added
-            // For now we'll just return success
-            Map<String, Object> dto = userToDto(user);
-            dto.put("status", newStatus);
-            return ResponseEntity.ok(new ApiResponse<>(dto));
+            if (!newStatus.equals(user.getStatus())) {
+                user.setStatus(newStatus);
+                user.bumpTokenVersion();
+            }
+            user = userRepository.save(user);
+            return ResponseEntity.ok(new ApiResponse<>(userToDto(user)));
         }
         
         return ResponseEntity.badRequest()
@@ -131,7 +140,7 @@ public class AdminUsersController {
         dto.put("phone", user.getPhone());
         dto.put("role", user.getRole());
         dto.put("kycStatus", user.getKycStatus());
-        dto.put("status", "active"); // Default status, should be fetched from DB if field exists
+        dto.put("status", user.getStatus());
         return dto;
     }
 }
@@ -6,8 +6,6 @@ import com.kwick.backend.repository.CallbackRequestRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.data.domain.Sort;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,6 +16,8 @@ public class CallbackRequestController {
     private CallbackRequestRepository callbackRequestRepository;
     @Autowired
     private com.kwick.backend.service.NotificationsPublisher notificationsPublisher;
+    @Autowired
+    private com.kwick.backend.service.InboxQueryService inboxQueryService;
 
     @PostMapping
     public CallbackRequest create(@RequestBody @NonNull CallbackRequest request) {
@@ -34,23 +34,12 @@ public class CallbackRequestController {
         @RequestParam(required = false, defaultValue = "0") int page,
         @RequestParam(required = false, defaultValue = "20") int size
     ) {
-        List<CallbackRequest> all = callbackRequestRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
-        List<CallbackRequest> filtered = all.stream()
-            .filter(m -> "all".equalsIgnoreCase(status) || status.equalsIgnoreCase(m.getStatus()))
-            .filter(m -> q == null || q.isBlank() || containsIgnoreCase(m.getName(), q) || containsIgnoreCase(m.getEmail(), q) || containsIgnoreCase(m.getPhone(), q) || containsIgnoreCase(m.getLocation(), q))
-            .toList();
-        int total = filtered.size();
-        int p = Math.max(page, 0);
-        int s = Math.max(size, 1);
-        int from = Math.min(p * s, total);
-        int to = Math.min(from + s, total);
-        List<CallbackRequest> items = filtered.subList(from, to);
-        return Map.of("items", items, "total", total, "page", p, "size", s);
+        return inboxQueryService.page(callbackRequestRepository, status, q, page, size, "name", "email", "phone", "location");
     }
 
     @PutMapping("/{id}/status")
     public Map<String, Object> updateStatus(@PathVariable @NonNull Long id, @RequestBody Map<String, String> payload) {
-        String status = payload.getOrDefault("status", "handled");
+        String status = com.kwick.backend.service.InboxQueryService.normalizeStatus(payload.getOrDefault("status", "handled"));
         CallbackRequest req = callbackRequestRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Not found"));
         req.setStatus(status);
         req.setHandledAt("handled".equalsIgnoreCase(status) ? java.time.LocalDateTime.now() : null);
@@ -58,9 +47,4 @@ public class CallbackRequestController {
         notificationsPublisher.callbackStatus(id, status);
         return Map.of("ok", true, "id", id, "status", status);
     }
-
-    private boolean containsIgnoreCase(String s, String q) {
-        if (s == null) return false;
-        return s.toLowerCase().contains(q.toLowerCase());
-    }
 }
@@ -5,9 +5,7 @@ import com.kwick.backend.repository.ContactMessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.data.domain.Sort;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -19,6 +17,8 @@ public class ContactMessageController {
     private ContactMessageRepository contactMessageRepository;
     @Autowired
     private com.kwick.backend.service.NotificationsPublisher notificationsPublisher;
+    @Autowired
+    private com.kwick.backend.service.InboxQueryService inboxQueryService;
 
     @PostMapping
     public ContactMessage create(@RequestBody ContactMessage msg) {
@@ -35,23 +35,12 @@ public class ContactMessageController {
             @RequestParam(required = false, defaultValue = "") String q,
             @RequestParam(required = false, defaultValue = "0") int page,
             @RequestParam(required = false, defaultValue = "20") int size) {
-        List<ContactMessage> all = contactMessageRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
-        List<ContactMessage> filtered = all.stream()
-            .filter(m -> "all".equalsIgnoreCase(status) || status.equalsIgnoreCase(m.getStatus()))
-            .filter(m -> q == null || q.isBlank() || containsIgnoreCase(m.getName(), q) || containsIgnoreCase(m.getEmail(), q) || containsIgnoreCase(m.getPhone(), q) || containsIgnoreCase(m.getSubject(), q))
-            .toList();
-        int total = filtered.size();
-        int p = Math.max(page, 0);
-        int s = Math.max(size, 1);
-        int from = Math.min(p * s, total);
-        int to = Math.min(from + s, total);
-        List<ContactMessage> items = filtered.subList(from, to);
-        return Map.of("items", items, "total", total, "page", p, "size", s);
+        return inboxQueryService.page(contactMessageRepository, status, q, page, size, "name", "email", "phone", "subject");
         }
 
     @PutMapping("/{id}/status")
     public Map<String, Object> updateStatus(@PathVariable @NonNull Long id, @RequestBody Map<String, String> payload) {
-        String status = payload.getOrDefault("status", "handled");
+        String status = com.kwick.backend.service.InboxQueryService.normalizeStatus(payload.getOrDefault("status", "handled"));
         ContactMessage msg = contactMessageRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Not found"));
         msg.setStatus(status);
         msg.setHandledAt("handled".equalsIgnoreCase(status) ? java.time.LocalDateTime.now() : null);
@@ -59,9 +48,4 @@ public class ContactMessageController {
         notificationsPublisher.contactStatus(id, status);
         return Map.of("ok", true, "id", id, "status", status);
     }
-
-    private boolean containsIgnoreCase(String s, String q) {
-        if (s == null) return false;
-        return s.toLowerCase().contains(q.toLowerCase());
-    }
 }
@@ -5,8 +5,6 @@ import com.kwick.backend.repository.CtaRecordRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.data.domain.Sort;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,6 +14,8 @@ public class CtaRecordController {
     private CtaRecordRepository ctaRecordRepository;
     @Autowired
     private com.kwick.backend.service.NotificationsPublisher notificationsPublisher;
+    @Autowired
+    private com.kwick.backend.service.InboxQueryService inboxQueryService;
 
     @PostMapping
     public CtaRecord createCtaRecord(@RequestBody CtaRecord ctaRecord) {
@@ -33,23 +33,12 @@ public class CtaRecordController {
         @RequestParam(required = false, defaultValue = "0") int page,
         @RequestParam(required = false, defaultValue = "20") int size
     ) {
-        List<CtaRecord> all = ctaRecordRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
-        List<CtaRecord> filtered = all.stream()
-            .filter(m -> "all".equalsIgnoreCase(status) || status.equalsIgnoreCase(m.getStatus()))
-            .filter(m -> q == null || q.isBlank() || containsIgnoreCase(m.getName(), q) || containsIgnoreCase(m.getEmail(), q) || containsIgnoreCase(m.getPhone(), q) || containsIgnoreCase(m.getLocation(), q))
-            .toList();
-        int total = filtered.size();
-        int p = Math.max(page, 0);
-        int s = Math.max(size, 1);
-        int from = Math.min(p * s, total);
-        int to = Math.min(from + s, total);
-        List<CtaRecord> items = filtered.subList(from, to);
-        return Map.of("items", items, "total", total, "page", p, "size", s);
+        return inboxQueryService.page(ctaRecordRepository, status, q, page, size, "name", "email", "phone", "location");
     }
 
     @PutMapping("/{id}/status")
     public Map<String, Object> updateStatus(@PathVariable @NonNull Long id, @RequestBody Map<String, String> payload) {
-        String status = payload.getOrDefault("status", "handled");
+        String status = com.kwick.backend.service.InboxQueryService.normalizeStatus(payload.getOrDefault("status", "handled"));
         CtaRecord rec = ctaRecordRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Not found"));
         rec.setStatus(status);
         rec.setHandledAt("handled".equalsIgnoreCase(status) ? java.time.LocalDateTime.now() : null);
@@ -57,9 +46,4 @@ public class CtaRecordController {
         notificationsPublisher.ctaStatus(id, status);
         return Map.of("ok", true, "id", id, "status", status);
     }
-
-    private boolean containsIgnoreCase(String s, String q) {
-        if (s == null) return false;
-        return s.toLowerCase().contains(q.toLowerCase());
-    }
 }
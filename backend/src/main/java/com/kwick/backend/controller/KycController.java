@@ -1,27 +1,47 @@
 package com.kwick.backend.controller;
 
 import com.kwick.backend.ApiResponse;
+import com.kwick.backend.exception.InvalidUploadException;
 import com.kwick.backend.model.KycVerification;
 import com.kwick.backend.model.User;
 import com.kwick.backend.repository.KycRepository;
 import com.kwick.backend.repository.UserRepository;
 import com.kwick.backend.service.StorageService;
-import com.kwick.backend.service.PdfGenerationService;
-import com.kwick.backend.service.EmailService;
+import com.kwick.backend.service.StoredFile;
+import com.kwick.backend.service.UploadIngestStream;
+import com.kwick.backend.service.KycPdfCache;
+import com.kwick.backend.service.KycJobService;
+import com.kwick.backend.service.ThumbnailService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 
 @RestController
 @RequestMapping("/api/kyc")
@@ -31,17 +51,25 @@ public class KycController {
     private final StorageService storageService;
     private final KycRepository kycRepository;
     private final UserRepository userRepository;
-    private final PdfGenerationService pdfGenerationService;
-    private final EmailService emailService;
+    private final KycPdfCache kycPdfCache;
+    private final KycJobService kycJobService;
+    private final Executor uploadExecutor;
+    private final ThumbnailService thumbnailService;
+    private final long batchTimeoutMillis;
 
     @Autowired
     public KycController(StorageService storageService, KycRepository kycRepository, UserRepository userRepository,
-            PdfGenerationService pdfGenerationService, EmailService emailService) {
+            KycPdfCache kycPdfCache, KycJobService kycJobService,
+            @Qualifier("kycUploadExecutor") Executor uploadExecutor, ThumbnailService thumbnailService,
+            @Value("${kyc.upload.batch-timeout-ms:60000}") long batchTimeoutMillis) {
         this.storageService = storageService;
         this.kycRepository = kycRepository;
         this.userRepository = userRepository;
-        this.pdfGenerationService = pdfGenerationService;
-        this.emailService = emailService;
+        this.kycPdfCache = kycPdfCache;
+        this.kycJobService = kycJobService;
+        this.uploadExecutor = uploadExecutor;
+        this.thumbnailService = thumbnailService;
+        this.batchTimeoutMillis = batchTimeoutMillis;
     }
 
     // Backwards-compatible constructor for tests that only pass StorageService and
@@ -50,8 +78,11 @@ public class KycController {
         this.storageService = storageService;
         this.kycRepository = kycRepository;
         this.userRepository = null;
-        this.pdfGenerationService = null;
-        this.emailService = null;
+        this.kycPdfCache = null;
+        this.kycJobService = null;
+        this.uploadExecutor = Runnable::run;
+        this.thumbnailService = null;
+        this.batchTimeoutMillis = 60_000;
     }
 
     /**
@@ -85,20 +116,13 @@ public class KycController {
             if (userId == null) {
                 return ResponseEntity.status(401).body(new ApiResponse<>("Unauthorized"));
             }
-            // File type/size validation
             if (file == null || file.isEmpty()) {
                 return ResponseEntity.badRequest().body(new ApiResponse<>("No file uploaded"));
             }
-            String contentType = file.getContentType();
-            long maxSize = 5 * 1024 * 1024; // 5MB
-            if (file.getSize() > maxSize) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("File too large (max 5MB)"));
-            }
-            if (contentType == null || !(contentType.equals("image/jpeg") || contentType.equals("image/png") || contentType.equals("application/pdf"))) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("Invalid file type. Only JPEG, PNG, or PDF allowed."));
-            }
 
-            String url = storageService.storeFile(file, "kyc/" + userId + "/aadhaar");
+            // File type (signature) and 5MB limit are checked while the upload streams to storage
+            StoredFile stored = storageService.ingest(file, "kyc/" + userId + "/aadhaar");
+            String url = stored.url();
             KycVerification kyc = kycRepository.findByUserId(userId).orElseGet(() -> {
                 KycVerification k = new KycVerification();
                 k.setUserId(userId);
@@ -107,12 +131,15 @@ public class KycController {
 
             kyc.setAadhaarFrontUrl(url);
             kyc.setAadhaarFrontFilename(file.getOriginalFilename());
-            kyc.setAadhaarFrontType(file.getContentType());
-            kyc.setAadhaarFrontSize(file.getSize());
+            kyc.setAadhaarFrontType(stored.contentType());
+            kyc.setAadhaarFrontSize(stored.size());
             kycRepository.saveAndFlush(kyc);
+            scheduleThumbnail(stored);
 
             logger.info("Aadhaar front uploaded for user: {}", userId);
             return ResponseEntity.ok(new ApiResponse<>(Map.of("message", "Aadhaar front uploaded", "url", url)));
+        } catch (InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error uploading Aadhaar front: {}", e.getMessage());
             return ResponseEntity.status(500).body(new ApiResponse<>("Upload failed: " + e.getMessage()));
@@ -135,20 +162,13 @@ public class KycController {
             if (userId == null) {
                 return ResponseEntity.status(401).body(new ApiResponse<>("Unauthorized"));
             }
-            // File type/size validation
             if (file == null || file.isEmpty()) {
                 return ResponseEntity.badRequest().body(new ApiResponse<>("No file uploaded"));
             }
-            String contentType = file.getContentType();
-            long maxSize = 5 * 1024 * 1024; // 5MB
-            if (file.getSize() > maxSize) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("File too large (max 5MB)"));
-            }
-            if (contentType == null || !(contentType.equals("image/jpeg") || contentType.equals("image/png") || contentType.equals("application/pdf"))) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("Invalid file type. Only JPEG, PNG, or PDF allowed."));
-            }
 
-            String url = storageService.storeFile(file, "kyc/" + userId + "/aadhaar");
+            // File type (signature) and 5MB limit are checked while the upload streams to storage
+            StoredFile stored = storageService.ingest(file, "kyc/" + userId + "/aadhaar");
+            String url = stored.url();
             KycVerification kyc = kycRepository.findByUserId(userId).orElseGet(() -> {
                 KycVerification k = new KycVerification();
                 k.setUserId(userId);
@@ -157,12 +177,15 @@ public class KycController {
 
             kyc.setAadhaarBackUrl(url);
             kyc.setAadhaarBackFilename(file.getOriginalFilename());
-            kyc.setAadhaarBackType(file.getContentType());
-            kyc.setAadhaarBackSize(file.getSize());
+            kyc.setAadhaarBackType(stored.contentType());
+            kyc.setAadhaarBackSize(stored.size());
             kycRepository.saveAndFlush(kyc);
+            scheduleThumbnail(stored);
 
             logger.info("Aadhaar back uploaded for user: {}", userId);
             return ResponseEntity.ok(new ApiResponse<>(Map.of("message", "Aadhaar back uploaded", "url", url)));
+        } catch (InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error uploading Aadhaar back: {}", e.getMessage());
             return ResponseEntity.status(500).body(new ApiResponse<>("Upload failed: " + e.getMessage()));
@@ -185,20 +208,13 @@ public class KycController {
             if (userId == null) {
                 return ResponseEntity.status(401).body(new ApiResponse<>("Unauthorized"));
             }
-            // File type/size validation
             if (file == null || file.isEmpty()) {
                 return ResponseEntity.badRequest().body(new ApiResponse<>("No file uploaded"));
             }
-            String contentType = file.getContentType();
-            long maxSize = 5 * 1024 * 1024; // 5MB
-            if (file.getSize() > maxSize) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("File too large (max 5MB)"));
-            }
-            if (contentType == null || !(contentType.equals("image/jpeg") || contentType.equals("image/png") || contentType.equals("application/pdf"))) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("Invalid file type. Only JPEG, PNG, or PDF allowed."));
-            }
 
-            String url = storageService.storeFile(file, "kyc/" + userId + "/license");
+            // File type (signature) and 5MB limit are checked while the upload streams to storage
+            StoredFile stored = storageService.ingest(file, "kyc/" + userId + "/license");
+            String url = stored.url();
             KycVerification kyc = kycRepository.findByUserId(userId).orElseGet(() -> {
                 KycVerification k = new KycVerification();
                 k.setUserId(userId);
@@ -207,12 +223,15 @@ public class KycController {
 
             kyc.setLicenseFrontUrl(url);
             kyc.setLicenseFrontFilename(file.getOriginalFilename());
-            kyc.setLicenseFrontType(file.getContentType());
-            kyc.setLicenseFrontSize(file.getSize());
+            kyc.setLicenseFrontType(stored.contentType());
+            kyc.setLicenseFrontSize(stored.size());
             kycRepository.saveAndFlush(kyc);
+            scheduleThumbnail(stored);
 
             logger.info("License front uploaded for user: {}", userId);
             return ResponseEntity.ok(new ApiResponse<>(Map.of("message", "License front uploaded", "url", url)));
+        } catch (InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error uploading License front: {}", e.getMessage());
             return ResponseEntity.status(500).body(new ApiResponse<>("Upload failed: " + e.getMessage()));
@@ -235,20 +254,13 @@ public class KycController {
             if (userId == null) {
                 return ResponseEntity.status(401).body(new ApiResponse<>("Unauthorized"));
             }
-            // File type/size validation
             if (file == null || file.isEmpty()) {
                 return ResponseEntity.badRequest().body(new ApiResponse<>("No file uploaded"));
             }
-            String contentType = file.getContentType();
-            long maxSize = 5 * 1024 * 1024; // 5MB
-            if (file.getSize() > maxSize) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("File too large (max 5MB)"));
-            }
-            if (contentType == null || !(contentType.equals("image/jpeg") || contentType.equals("image/png") || contentType.equals("application/pdf"))) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("Invalid file type. Only JPEG, PNG, or PDF allowed."));
-            }
 
-            String url = storageService.storeFile(file, "kyc/" + userId + "/license");
+            // File type (signature) and 5MB limit are checked while the upload streams to storage
+            StoredFile stored = storageService.ingest(file, "kyc/" + userId + "/license");
+            String url = stored.url();
             KycVerification kyc = kycRepository.findByUserId(userId).orElseGet(() -> {
                 KycVerification k = new KycVerification();
                 k.setUserId(userId);
@@ -257,12 +269,15 @@ public class KycController {
 
             kyc.setLicenseBackUrl(url);
             kyc.setLicenseBackFilename(file.getOriginalFilename());
-            kyc.setLicenseBackType(file.getContentType());
-            kyc.setLicenseBackSize(file.getSize());
+            kyc.setLicenseBackType(stored.contentType());
+            kyc.setLicenseBackSize(stored.size());
             kycRepository.saveAndFlush(kyc);
+            scheduleThumbnail(stored);
 
             logger.info("License back uploaded for user: {}", userId);
             return ResponseEntity.ok(new ApiResponse<>(Map.of("message", "License back uploaded", "url", url)));
+        } catch (InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error uploading License back: {}", e.getMessage());
             return ResponseEntity.status(500).body(new ApiResponse<>("Upload failed: " + e.getMessage()));
@@ -285,20 +300,13 @@ public class KycController {
             if (userId == null) {
                 return ResponseEntity.status(401).body(new ApiResponse<>("Unauthorized"));
             }
-            // File type/size validation
             if (file == null || file.isEmpty()) {
                 return ResponseEntity.badRequest().body(new ApiResponse<>("No file uploaded"));
             }
-            String contentType = file.getContentType();
-            long maxSize = 5 * 1024 * 1024; // 5MB
-            if (file.getSize() > maxSize) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("File too large (max 5MB)"));
-            }
-            if (contentType == null || !(contentType.equals("image/jpeg") || contentType.equals("image/png") || contentType.equals("application/pdf"))) {
-                return ResponseEntity.badRequest().body(new ApiResponse<>("Invalid file type. Only JPEG, PNG, or PDF allowed."));
-            }
 
-            String url = storageService.storeFile(file, "kyc/" + userId + "/selfie");
+            // File type (signature) and 5MB limit are checked while the upload streams to storage
+            StoredFile stored = storageService.ingest(file, "kyc/" + userId + "/selfie");
+            String url = stored.url();
             KycVerification kyc = kycRepository.findByUserId(userId).orElseGet(() -> {
                 KycVerification k = new KycVerification();
                 k.setUserId(userId);
@@ -307,18 +315,184 @@ public class KycController {
 
             kyc.setSelfieUrl(url);
             kyc.setSelfieFilename(file.getOriginalFilename());
-            kyc.setSelfieType(file.getContentType());
-            kyc.setSelfieSize(file.getSize());
+            kyc.setSelfieType(stored.contentType());
+            kyc.setSelfieSize(stored.size());
             kycRepository.saveAndFlush(kyc);
+            scheduleThumbnail(stored);
 
             logger.info("Selfie uploaded for user: {}", userId);
             return ResponseEntity.ok(new ApiResponse<>(Map.of("message", "Selfie uploaded", "url", url)));
+        } catch (InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage()));
         } catch (Exception e) {
             logger.error("Error uploading Selfie: {}", e.getMessage());
             return ResponseEntity.status(500).body(new ApiResponse<>("Upload failed: " + e.getMessage()));
         }
     }
 
+    /**
+     * Upload any of the five KYC documents in one request.
+     * Files are handed to StorageService.ingestAsync in parallel and the servlet thread is released while
+     * they are stored; all metadata is then written with a single save instead of one find + flush per document.
+     */
+    @PostMapping(value = "/upload/batch", consumes = "multipart/form-data")
+    public CompletableFuture<ResponseEntity<ApiResponse<Map<String, Object>>>> uploadBatch(
+            @RequestPart(value = "aadhaarFront", required = false) MultipartFile aadhaarFront,
+            @RequestPart(value = "aadhaarBack", required = false) MultipartFile aadhaarBack,
+            @RequestPart(value = "licenseFront", required = false) MultipartFile licenseFront,
+            @RequestPart(value = "licenseBack", required = false) MultipartFile licenseBack,
+            @RequestPart(value = "selfie", required = false) MultipartFile selfie,
+            HttpServletRequest request) {
+        Long userId = getUserId(request);
+        if (userId == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).body(new ApiResponse<>("Unauthorized")));
+        }
+
+        Map<String, MultipartFile> parts = new LinkedHashMap<>();
+        if (aadhaarFront != null && !aadhaarFront.isEmpty()) parts.put("aadhaarFront", aadhaarFront);
+        if (aadhaarBack != null && !aadhaarBack.isEmpty()) parts.put("aadhaarBack", aadhaarBack);
+        if (licenseFront != null && !licenseFront.isEmpty()) parts.put("licenseFront", licenseFront);
+        if (licenseBack != null && !licenseBack.isEmpty()) parts.put("licenseBack", licenseBack);
+        if (selfie != null && !selfie.isEmpty()) parts.put("selfie", selfie);
+        if (parts.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(new ApiResponse<>("No file uploaded")));
+        }
+
+        // Declared sizes and signatures are checked for every part before any is stored, so a bad part
+        // cannot leave its siblings behind as orphans; ingest re-checks both while streaming
+        for (Map.Entry<String, MultipartFile> part : parts.entrySet()) {
+            if (part.getValue().getSize() > UploadIngestStream.MAX_KYC_BYTES) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(part.getKey() + ": File too large (max 5MB)")));
+            }
+            try (InputStream in = part.getValue().getInputStream()) {
+                UploadIngestStream.detect(in);
+            } catch (InvalidUploadException e) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(part.getKey() + ": " + e.getMessage())));
+            } catch (IOException e) {
+                logger.error("Error reading KYC batch part {}: {}", part.getKey(), e.getMessage());
+                return CompletableFuture.completedFuture(ResponseEntity.status(500)
+                        .body(new ApiResponse<>("Upload failed: " + e.getMessage())));
+            }
+        }
+
+        Map<String, CompletableFuture<StoredFile>> stored = new LinkedHashMap<>();
+        for (Map.Entry<String, MultipartFile> part : parts.entrySet()) {
+            String subpath = "kyc/" + userId + "/" + (part.getKey().equals("selfie") ? "selfie"
+                    : part.getKey().startsWith("aadhaar") ? "aadhaar" : "license");
+            stored.put(part.getKey(), storageService.ingestAsync(part.getValue(), subpath, uploadExecutor));
+        }
+
+        // Completion may arrive on an S3 I/O thread, so the JDBC work hops back onto the upload pool.
+        // kyc.upload.batch-timeout-ms must stay below spring.mvc.async.request-timeout so this answers first.
+        return CompletableFuture.allOf(stored.values().toArray(new CompletableFuture<?>[0]))
+                .orTimeout(batchTimeoutMillis, TimeUnit.MILLISECONDS)
+                .handleAsync((ignored, error) -> {
+                    if (error != null) {
+                        discardStored(stored);
+                        return batchFailure(stored, error);
+                    }
+                    return saveBatch(userId, parts, stored);
+                }, uploadExecutor)
+                .exceptionally(e -> {
+                    discardStored(stored);
+                    logger.error("Error in KYC batch upload: {}", e.getMessage());
+                    return ResponseEntity.status(500).body(new ApiResponse<>("Upload failed: " + e.getMessage()));
+                });
+    }
+
+    // Parts that were (or, after a timeout, later get) stored for a batch that is not recorded would be orphans
+    private void discardStored(Map<String, CompletableFuture<StoredFile>> stored) {
+        stored.values().forEach(f -> f.thenAccept(file -> {
+            try {
+                storageService.discard(file.url());
+            } catch (Exception e) {
+                logger.warn("Could not discard unrecorded KYC upload {}: {}", file.url(), e.getMessage());
+            }
+        }));
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> saveBatch(Long userId,
+            Map<String, MultipartFile> parts, Map<String, CompletableFuture<StoredFile>> stored) {
+        KycVerification kyc = kycRepository.findByUserId(userId).orElseGet(() -> {
+            KycVerification k = new KycVerification();
+            k.setUserId(userId);
+            return k;
+        });
+        Map<String, Object> urls = new LinkedHashMap<>();
+        for (Map.Entry<String, MultipartFile> part : parts.entrySet()) {
+            StoredFile file = stored.get(part.getKey()).join();
+            applyDocument(kyc, part.getKey(), file, part.getValue().getOriginalFilename());
+            urls.put(part.getKey(), file.url());
+        }
+        kycRepository.saveAndFlush(kyc);
+        stored.values().forEach(f -> scheduleThumbnail(f.join()));
+
+        logger.info("KYC batch upload for user {}: {}", userId, urls.keySet());
+        return ResponseEntity.ok(new ApiResponse<>(Map.of("message", "Documents uploaded", "urls", urls)));
+    }
+
+    // A rejected part answers 400 naming the part; anything else (I/O, timeout) is a 500
+    private ResponseEntity<ApiResponse<Map<String, Object>>> batchFailure(
+            Map<String, CompletableFuture<StoredFile>> stored, Throwable error) {
+        for (Map.Entry<String, CompletableFuture<StoredFile>> f : stored.entrySet()) {
+            if (!f.getValue().isCompletedExceptionally()) {
+                continue;
+            }
+            Throwable cause = f.getValue().handle((ok, ex) -> ex instanceof CompletionException ? ex.getCause() : ex).join();
+            if (cause instanceof InvalidUploadException) {
+                return ResponseEntity.badRequest().body(new ApiResponse<>(f.getKey() + ": " + cause.getMessage()));
+            }
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        logger.error("Error in KYC batch upload: {}", cause.toString());
+        return ResponseEntity.status(500).body(new ApiResponse<>("Upload failed: " + cause.getMessage()));
+    }
+
+    // Admin previews are rendered off the request path
+    private void scheduleThumbnail(StoredFile stored) {
+        if (thumbnailService != null) {
+            thumbnailService.schedule(stored);
+        }
+    }
+
+    private void applyDocument(KycVerification kyc, String part, StoredFile file, String filename) {
+        switch (part) {
+            case "aadhaarFront" -> {
+                kyc.setAadhaarFrontUrl(file.url());
+                kyc.setAadhaarFrontFilename(filename);
+                kyc.setAadhaarFrontType(file.contentType());
+                kyc.setAadhaarFrontSize(file.size());
+            }
+            case "aadhaarBack" -> {
+                kyc.setAadhaarBackUrl(file.url());
+                kyc.setAadhaarBackFilename(filename);
+                kyc.setAadhaarBackType(file.contentType());
+                kyc.setAadhaarBackSize(file.size());
+            }
+            case "licenseFront" -> {
+                kyc.setLicenseFrontUrl(file.url());
+                kyc.setLicenseFrontFilename(filename);
+                kyc.setLicenseFrontType(file.contentType());
+                kyc.setLicenseFrontSize(file.size());
+            }
+            case "licenseBack" -> {
+                kyc.setLicenseBackUrl(file.url());
+                kyc.setLicenseBackFilename(filename);
+                kyc.setLicenseBackType(file.contentType());
+                kyc.setLicenseBackSize(file.size());
+            }
+            case "selfie" -> {
+                kyc.setSelfieUrl(file.url());
+                kyc.setSelfieFilename(filename);
+                kyc.setSelfieType(file.contentType());
+                kyc.setSelfieSize(file.size());
+            }
+            default -> throw new IllegalArgumentException("Unknown KYC document: " + part);
+        }
+    }
+
     /**
      * Submit KYC with Personal Details
      */
@@ -380,29 +554,9 @@ public class KycController {
             userRepository.save(u);
             logger.info("Updated user {} KYC status to pending", userId);
 
-            // Generate and store PDF
-            try {
-                byte[] pdfBytes = pdfGenerationService.generateKycPdf(kyc, u);
-                String pdfFileName = "kyc_" + userId + "_" + System.currentTimeMillis() + ".pdf";
-                Path uploadDir = Paths.get("backend-uploads", "kyc", userId.toString());
-                Files.createDirectories(uploadDir);
-                Path filePath = uploadDir.resolve(pdfFileName);
-                Files.write(filePath, pdfBytes);
-                String relativeUrl = "backend-uploads/kyc/" + userId + "/" + pdfFileName;
-                kyc.setKycPdfUrl(relativeUrl);
-                kycRepository.saveAndFlush(kyc);
-                logger.info("KYC PDF generated and saved for user {} at: {}", userId, filePath.toString());
-            } catch (Exception pdfEx) {
-                logger.warn("Could not generate KYC PDF for user {}: {}", userId, pdfEx.getMessage());
-            }
-
-            // Send submission notification email to admin
-            try {
-                if (emailService != null) {
-                    emailService.sendKycSubmissionNotification(u.getName(), u.getEmail(), userId);
-                }
-            } catch (Exception emailEx) {
-                logger.warn("Could not send KYC submission email for user {}: {}", userId, emailEx.getMessage());
+            // PDF generation and the admin email run on the KYC job workers once this commits
+            if (kycJobService != null) {
+                kycJobService.enqueuePostSubmit(kyc.getId(), userId);
             }
 
             logger.info("✅ KYC submitted successfully for user: {} with status: pending", userId);
@@ -468,9 +622,11 @@ public class KycController {
 
     /**
      * Download KYC PDF
+     * Served from the content-hash keyed PDF cache; the hash is also the ETag, so an unchanged
+     * KYC answers If-None-Match with 304 before any file is touched.
      */
     @GetMapping("/download-pdf")
-    public ResponseEntity<?> downloadKycPdf(HttpServletRequest request) {
+    public ResponseEntity<?> downloadKycPdf(HttpServletRequest request, WebRequest webRequest) {
         try {
             Long userId = getUserId(request);
             if (userId == null) {
@@ -485,33 +641,21 @@ public class KycController {
             KycVerification kyc = kycOpt.get();
             User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
 
-            byte[] pdfBytes = null;
-
-            // Try to load from stored file first
-            if (kyc.getKycPdfUrl() != null && kyc.getKycPdfUrl().startsWith("backend-uploads")) {
-                try {
-                    Path filePath = Paths.get(kyc.getKycPdfUrl());
-                    if (Files.exists(filePath)) {
-                        pdfBytes = Files.readAllBytes(filePath);
-                        logger.info("KYC PDF loaded from file for user: {}", userId);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Failed to load stored KYC PDF for user {}: {}", userId, e.getMessage());
-                }
-            }
-
-            // If no stored file, generate PDF on-the-fly
-            if (pdfBytes == null) {
-                pdfBytes = pdfGenerationService.generateKycPdf(kyc, user);
-                logger.info("KYC PDF generated on-the-fly for user: {}", userId);
+            String hash = kycPdfCache.hash(kyc, user);
+            if (webRequest.checkNotModified(KycPdfCache.etag(hash))) {
+                return null; // 304 already written
             }
 
+            KycPdfCache.PdfArtifact pdf = kycPdfCache.resolve(kyc, user, hash);
             logger.info("KYC PDF downloaded for user: {}", userId);
 
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"kyc-" + userId + ".pdf\"")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PDF_VALUE)
-                    .body(pdfBytes);
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .contentLength(pdf.size())
+                    .eTag(pdf.etag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(new FileSystemResource(pdf.path()));
         } catch (Exception e) {
             logger.error("Error downloading KYC PDF: {}", e.getMessage());
             return ResponseEntity.status(500).body(new ApiResponse<>("Failed to download KYC PDF: " + e.getMessage()));
@@ -521,13 +665,16 @@ public class KycController {
     /**
      * Serve KYC document files
      * Usage: /api/kyc/file/{userId}/aadhaar/filename
-     * Handles URL-encoded filenames with spaces and special characters
+     * Handles URL-encoded filenames with spaces and special characters.
+     * The file is streamed (never buffered into a byte[]); Range, If-None-Match and
+     * If-Modified-Since are honoured, and the content type comes from the upload metadata.
      */
     @GetMapping("/file/{userId}/{docType}/{filename:.+}")
     public ResponseEntity<?> getKycFile(
             @PathVariable String userId,
             @PathVariable String docType,
-            @PathVariable String filename) {
+            @PathVariable String filename,
+            WebRequest webRequest) {
         try {
             // Decode URL-encoded filename (e.g., "file%20name.jpg" -> "file name.jpg")
             String decodedFilename = java.net.URLDecoder.decode(filename, java.nio.charset.StandardCharsets.UTF_8);
@@ -542,6 +689,15 @@ public class KycController {
                 return ResponseEntity.status(403).body(new ApiResponse<>("Forbidden"));
             }
 
+            if (!Files.exists(filePath) && decodedFilename.endsWith(ThumbnailService.SUFFIX)) {
+                // Thumbnail not rendered (yet, or ever for older uploads): serve the original instead
+                Path original = findThumbnailSource(basePath, decodedFilename);
+                if (original != null) {
+                    filePath = original;
+                    decodedFilename = original.getFileName().toString();
+                }
+            }
+
             if (!Files.exists(filePath)) {
                 logger.warn("KYC file not found: {}", filePath);
                 // Return a default SVG image for not found
@@ -551,20 +707,78 @@ public class KycController {
                         .body(svg);
             }
 
-            byte[] fileContent = Files.readAllBytes(filePath);
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
+            // Uploaded files are never rewritten in place, so size + mtime make a strong validator
+            BasicFileAttributes attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            String etag = "\"" + Long.toHexString(attrs.size()) + "-" + Long.toHexString(lastModified) + "\"";
+            if (webRequest.checkNotModified(etag, lastModified)) {
+                return null; // 304 already written
             }
 
-            logger.info("Serving KYC file: {}", filePath);
+            MediaType contentType = resolveKycFileType(userId, decodedFilename);
+
+            logger.debug("Serving KYC file: {}", filePath);
             return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_TYPE, contentType)
-                    .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(fileContent.length))
-                    .body(fileContent);
+                    .contentType(contentType)
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePrivate())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .body(new FileSystemResource(filePath));
         } catch (Exception e) {
             logger.error("Error serving KYC file: {}", e.getMessage());
             return ResponseEntity.status(500).body(new ApiResponse<>("Error serving file: " + e.getMessage()));
         }
     }
+
+    private Path findThumbnailSource(Path dir, String thumbnailName) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(ThumbnailService.SUFFIX) && ThumbnailService.thumbnailName(name).equals(thumbnailName)) {
+                    return file;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Content type recorded at upload time for this file, falling back to the file extension.
+     */
+    private MediaType resolveKycFileType(String userId, String filename) {
+        String stored = null;
+        try {
+            KycVerification kyc = kycRepository.findByUserId(Long.parseLong(userId)).orElse(null);
+            if (kyc != null) {
+                if (sameFile(kyc.getAadhaarFrontUrl(), filename)) stored = kyc.getAadhaarFrontType();
+                else if (sameFile(kyc.getAadhaarBackUrl(), filename)) stored = kyc.getAadhaarBackType();
+                else if (sameFile(kyc.getLicenseFrontUrl(), filename)) stored = kyc.getLicenseFrontType();
+                else if (sameFile(kyc.getLicenseBackUrl(), filename)) stored = kyc.getLicenseBackType();
+                else if (sameFile(kyc.getSelfieUrl(), filename)) stored = kyc.getSelfieType();
+            }
+        } catch (NumberFormatException ignored) {
+            // non-numeric user directory: fall through to extension lookup
+        }
+        if (stored != null && !stored.isBlank()) {
+            try {
+                return MediaType.parseMediaType(stored);
+            } catch (Exception e) {
+                logger.warn("Ignoring invalid stored content type '{}' for {}", stored, filename);
+            }
+        }
+        return MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    // Stored paths may be Windows or POSIX absolute paths, or s3:// URLs; compare the last segment only
+    private boolean sameFile(String storedPath, String filename) {
+        if (storedPath == null) {
+            return false;
+        }
+        int slash = Math.max(storedPath.lastIndexOf('/'), storedPath.lastIndexOf('\\'));
+        return storedPath.substring(slash + 1).equals(filename);
+    }
 }
@@ -0,0 +1,37 @@
+package com.kwick.backend.controller;
+
+import com.kwick.backend.ApiResponse;
+import com.kwick.backend.exception.UnauthorizedException;
+import com.kwick.backend.security.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+public class NotificationController {
+
+    private final JwtUtil jwtUtil;
+
+    public NotificationController(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    /**
+     * One-time ticket for /ws/notifications?ticket=..., so browsers never put their access token in a URL.
+     */
+    @PostMapping("/ticket")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> socketTicket(HttpServletRequest request) {
+        Object userId = request.getAttribute("userId");
+        if (userId == null) {
+            throw new UnauthorizedException("User not authenticated");
+        }
+        return ResponseEntity.ok(new ApiResponse<>(Map.of(
+                "ticket", jwtUtil.generateSocketTicket(userId.toString()),
+                "expiresIn", JwtUtil.SOCKET_TICKET_MILLIS / 1000)));
+    }
+}
@@ -99,6 +99,7 @@ public class UserController {
             throw new IllegalArgumentException("Old password is incorrect");
         }
         user.setPasswordHash(passwordEncoder.encode(newPassword));
+        user.bumpTokenVersion();
         userRepository.save(user);
         return ResponseEntity.ok(new ApiResponse<>(Map.of("message", "Password changed successfully")));
     }
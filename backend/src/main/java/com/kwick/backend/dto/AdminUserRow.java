@@ -0,0 +1,33 @@
+package com.kwick.backend.dto;
+
+/**
+ * Row of the admin user list, selected straight from the users table by a JPQL
+ * constructor expression (password hash and address are never loaded).
+ */
+public class AdminUserRow {
+    private final Long userId;
+    private final String name;
+    private final String email;
+    private final String phone;
+    private final String role;
+    private final String kycStatus;
+    private final String status;
+
+    public AdminUserRow(Long userId, String name, String email, String phone, String role, String kycStatus, String status) {
+        this.userId = userId;
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+        this.role = role;
+        this.kycStatus = kycStatus;
+        this.status = status;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getName() { return name; }
+    public String getEmail() { return email; }
+    public String getPhone() { return phone; }
+    public String getRole() { return role; }
+    public String getKycStatus() { return kycStatus; }
+    public String getStatus() { return status; }
+}
@@ -0,0 +1,60 @@
+package com.kwick.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the admin KYC list, built directly by a JPQL constructor expression
+ * (KYC joined with its user) so a page costs one select plus one count.
+ */
+public class KycListItem {
+    private final Long kycId;
+    private final Long userId;
+    private final String userName;
+    private final String userEmail;
+    private final String aadhaarLast4;
+    private final String city;
+    private final String state;
+    private final String verificationStatus;
+    private final String rejectionReason;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime verifiedAt;
+    private final Long verifiedByAdmin;
+
+    public KycListItem(Long kycId, Long userId, String userName, String userEmail, String aadhaarNumber,
+            String city, String state, String verificationStatus, String rejectionReason,
+            LocalDateTime createdAt, LocalDateTime verifiedAt, Long verifiedByAdmin) {
+        this.kycId = kycId;
+        this.userId = userId;
+        this.userName = userName != null ? userName : "Unknown";
+        this.userEmail = userEmail != null ? userEmail : "N/A";
+        this.aadhaarLast4 = maskNumber(aadhaarNumber);
+        this.city = city;
+        this.state = state;
+        this.verificationStatus = verificationStatus;
+        this.rejectionReason = rejectionReason;
+        this.createdAt = createdAt;
+        this.verifiedAt = verifiedAt;
+        this.verifiedByAdmin = verifiedByAdmin;
+    }
+
+    // Only the masked form ever leaves the row
+    private static String maskNumber(String number) {
+        if (number == null || number.length() <= 4) {
+            return number;
+        }
+        return "**** **** " + number.substring(number.length() - 4);
+    }
+
+    public Long getKycId() { return kycId; }
+    public Long getUserId() { return userId; }
+    public String getUserName() { return userName; }
+    public String getUserEmail() { return userEmail; }
+    public String getAadhaarLast4() { return aadhaarLast4; }
+    public String getCity() { return city; }
+    public String getState() { return state; }
+    public String getVerificationStatus() { return verificationStatus; }
+    public String getRejectionReason() { return rejectionReason; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getVerifiedAt() { return verifiedAt; }
+    public Long getVerifiedByAdmin() { return verifiedByAdmin; }
+}
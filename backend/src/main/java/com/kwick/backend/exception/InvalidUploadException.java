@@ -0,0 +1,11 @@
+package com.kwick.backend.exception;
+
+/**
+ * Upload rejected while it was being read (wrong file signature, over the size limit).
+ * Extends IllegalArgumentException so the exception handlers answer 400.
+ */
+public class InvalidUploadException extends IllegalArgumentException {
+    public InvalidUploadException(String message) {
+        super(message);
+    }
+}
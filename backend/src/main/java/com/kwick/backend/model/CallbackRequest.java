@@ -8,7 +8,13 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "callback_request")
+@Table(
+    name = "callback_request",
+    indexes = {
+        @Index(name = "idx_callback_request_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_callback_request_created", columnList = "created_at")
+    }
+)
 public class CallbackRequest {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
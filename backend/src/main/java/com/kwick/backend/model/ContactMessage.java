@@ -13,7 +13,13 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "contact_message")
+@Table(
+    name = "contact_message",
+    indexes = {
+        @Index(name = "idx_contact_message_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_contact_message_created", columnList = "created_at")
+    }
+)
 public class ContactMessage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -11,7 +11,13 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "cta_record")
+@Table(
+    name = "cta_record",
+    indexes = {
+        @Index(name = "idx_cta_record_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_cta_record_created", columnList = "created_at")
+    }
+)
 public class CtaRecord {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
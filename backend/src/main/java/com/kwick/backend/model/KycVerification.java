@@ -4,9 +4,17 @@ package com.kwick.backend.model;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Entity
-@Table(name = "kyc_verification")
+@Table(
+    name = "kyc_verification",
+    indexes = {
+        @Index(name = "idx_kyc_status_created", columnList = "verification_status, created_at"),
+        @Index(name = "idx_kyc_created", columnList = "created_at"),
+        @Index(name = "idx_kyc_user", columnList = "user_id")
+    }
+)
 public class KycVerification {
 
     // Aadhaar Front file metadata
@@ -304,8 +312,9 @@ public class KycVerification {
         return verificationStatus;
     }
 
+    // Stored lower-case so the admin status filter can compare the raw, indexed column
     public void setVerificationStatus(String verificationStatus) {
-        this.verificationStatus = verificationStatus;
+        this.verificationStatus = verificationStatus == null ? null : verificationStatus.trim().toLowerCase(Locale.ROOT);
     }
 
     public String getRejectionReason() {
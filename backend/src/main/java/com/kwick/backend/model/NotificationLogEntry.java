@@ -0,0 +1,60 @@
+package com.kwick.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One admin dashboard notification in the shared event log that JdbcNotificationTransport polls.
+ * The auto-increment id doubles as the cluster-wide sequence number.
+ */
+@Entity
+@Table(
+    name = "notification_log",
+    indexes = {
+        @Index(name = "idx_notification_log_created", columnList = "created_at")
+    }
+)
+public class NotificationLogEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    private String topic;
+
+    @Column(nullable = false, length = 20)
+    private String event;
+
+    @Column(name = "entity_id", nullable = false)
+    private long entityId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(length = 100)
+    private String status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+
+    public String getEvent() { return event; }
+    public void setEvent(String event) { this.event = event; }
+
+    public long getEntityId() { return entityId; }
+    public void setEntityId(long entityId) { this.entityId = entityId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
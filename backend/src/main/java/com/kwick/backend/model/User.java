@@ -1,5 +1,6 @@
 package com.kwick.backend.model;
 
+import com.kwick.backend.security.PrincipalCacheInvalidator;
 import jakarta.persistence.*;
 
 
@@ -12,10 +13,15 @@ import jakarta.persistence.*;
 
 
 @Entity
+@EntityListeners(PrincipalCacheInvalidator.class)
 @Table(
     name = "users",
     uniqueConstraints = {
         @UniqueConstraint(name = "uk_users_email", columnNames = {"email"})
+    },
+    indexes = {
+        @Index(name = "idx_users_name", columnList = "name"),
+        @Index(name = "idx_users_phone", columnList = "phone")
     }
 )
 public class User {
@@ -46,6 +52,22 @@ public class User {
     @Column(name = "kyc_status", nullable = false, length = 20)
     private String kycStatus = "incomplete";
 
+    // Account status shown and set in the admin user list: active, inactive or suspended
+    @Column(nullable = false, length = 20)
+    private String status = "active";
+
+    // Access tokens carry the value they were issued at (see JwtUtil); bumped only by bumpTokenVersion()
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0;
+
+    /**
+     * Retire the role claims of every access token issued so far. Call alongside a role, status or
+     * password change; profile and KYC updates leave outstanding tokens alone.
+     */
+    public void bumpTokenVersion() {
+        tokenVersion++;
+    }
+
     // getters and setters
     public Long getId() {
         return id;
@@ -95,6 +117,22 @@ public class User {
         this.kycStatus = kycStatus;
     }
 
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     public String getPhone() {
         return phone;
     }
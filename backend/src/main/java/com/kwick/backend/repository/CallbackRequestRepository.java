@@ -2,6 +2,7 @@ package com.kwick.backend.repository;
 
 import com.kwick.backend.model.CallbackRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface CallbackRequestRepository extends JpaRepository<CallbackRequest, Long> {
+public interface CallbackRequestRepository extends JpaRepository<CallbackRequest, Long>, JpaSpecificationExecutor<CallbackRequest> {
 }
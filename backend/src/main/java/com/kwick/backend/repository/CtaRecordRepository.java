@@ -2,8 +2,9 @@ package com.kwick.backend.repository;
 
 import com.kwick.backend.model.CtaRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CtaRecordRepository extends JpaRepository<CtaRecord, Long> {
+public interface CtaRecordRepository extends JpaRepository<CtaRecord, Long>, JpaSpecificationExecutor<CtaRecord> {
 }
@@ -0,0 +1,38 @@
+package com.kwick.backend.repository;
+
+import com.kwick.backend.model.KycJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface KycJobRepository extends JpaRepository<KycJob, Long> {
+
+    @Query("select j.id from KycJob j where j.status = 'pending' and j.nextAttemptAt <= :now order by j.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable limit);
+
+    /**
+     * Atomically move a pending job to running; returns 0 if another worker/replica got it first.
+     */
+    @Modifying
+    @Transactional
+    @Query("update KycJob j set j.status = 'running', j.attempts = j.attempts + 1, j.updatedAt = :now "
+            + "where j.id = :id and j.status = 'pending'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Jobs left running by a crashed instance go back to the queue
+    @Modifying
+    @Transactional
+    @Query("update KycJob j set j.status = 'pending', j.updatedAt = :now "
+            + "where j.status = 'running' and j.updatedAt < :staleBefore")
+    int releaseStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+
+    long countByStatus(String status);
+}
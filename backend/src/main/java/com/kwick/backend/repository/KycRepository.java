@@ -1,16 +1,63 @@
 package com.kwick.backend.repository;
 
+import com.kwick.backend.dto.KycListItem;
 import com.kwick.backend.model.KycVerification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface KycRepository extends JpaRepository<KycVerification, Long> {
+
+    // Admin list rows: KYC joined with its user in the same statement (no per-row user lookup)
+    String ADMIN_LIST_SELECT = "select new com.kwick.backend.dto.KycListItem(k.id, k.userId, u.name, u.email, "
+            + "k.aadhaarNumber, k.city, k.state, k.verificationStatus, k.rejectionReason, "
+            + "k.createdAt, k.verifiedAt, k.verifiedByAdmin) "
+            + "from KycVerification k left join User u on u.id = k.userId ";
+
+    // Statuses are stored lower-case (KycVerification#setVerificationStatus), so callers pass a lower-cased
+    // filter and the raw column is compared, keeping idx_kyc_status_created usable
+    String ADMIN_SEARCH_WHERE = "where (:status is null or k.verificationStatus = :status) "
+            + "and (lower(u.name) like :pattern escape '\\' or lower(u.email) like :pattern escape '\\' "
+            + "or lower(k.city) like :pattern escape '\\' or lower(k.state) like :pattern escape '\\')";
+
     Optional<KycVerification> findByUserId(Long userId);
 
+    @Query("select k.kycPdfUrl from KycVerification k where k.userId = :userId")
+    Optional<String> findKycPdfUrlByUserId(@Param("userId") Long userId);
+
     List<KycVerification> findByVerificationStatus(String verificationStatus);
+
+    @Query(value = ADMIN_LIST_SELECT,
+            countQuery = "select count(k) from KycVerification k")
+    Page<KycListItem> findAdminPage(Pageable pageable);
+
+    // Served by idx_kyc_status_created
+    @Query(value = ADMIN_LIST_SELECT + "where k.verificationStatus = :status",
+            countQuery = "select count(k) from KycVerification k where k.verificationStatus = :status")
+    Page<KycListItem> findAdminPageByStatus(@Param("status") String status, Pageable pageable);
+
+    /**
+     * Admin search across applicant name/email and KYC city/state. {@code pattern} must be lower-cased
+     * and built with {@link LikePatterns#contains}; {@code status} lower-cased, or null to match all.
+     */
+    @Query(value = ADMIN_LIST_SELECT + ADMIN_SEARCH_WHERE,
+            countQuery = "select count(k) from KycVerification k left join User u on u.id = k.userId "
+            + ADMIN_SEARCH_WHERE)
+    Page<KycListItem> searchAdminPage(@Param("status") String status, @Param("pattern") String pattern, Pageable pageable);
+
+    // Targeted write so background jobs never overwrite concurrent admin/user edits of the row
+    @Modifying
+    @Transactional
+    @Query("update KycVerification k set k.kycPdfUrl = :url where k.id = :id")
+    int updateKycPdfUrl(@Param("id") Long id, @Param("url") String url);
 }
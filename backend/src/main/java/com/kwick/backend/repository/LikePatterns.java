@@ -0,0 +1,34 @@
+package com.kwick.backend.repository;
+
+/**
+ * LIKE patterns built from user search input. {@code %}, {@code _} and the escape character itself are
+ * escaped so they match literally, which means every query taking these patterns must declare
+ * {@code escape '\'}.
+ */
+public final class LikePatterns {
+
+    public static final char ESCAPE = '\\';
+
+    private LikePatterns() {
+    }
+
+    public static String contains(String term) {
+        return "%" + escape(term) + "%";
+    }
+
+    public static String prefix(String term) {
+        return escape(term) + "%";
+    }
+
+    static String escape(String term) {
+        StringBuilder sb = new StringBuilder(term.length() + 8);
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                sb.append(ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
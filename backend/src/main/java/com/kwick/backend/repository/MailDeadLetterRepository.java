@@ -0,0 +1,9 @@
+package com.kwick.backend.repository;
+
+import com.kwick.backend.model.MailDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MailDeadLetterRepository extends JpaRepository<MailDeadLetter, Long> {
+}
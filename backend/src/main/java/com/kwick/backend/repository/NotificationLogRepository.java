@@ -0,0 +1,31 @@
+package com.kwick.backend.repository;
+
+import com.kwick.backend.model.NotificationLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationLogRepository extends JpaRepository<NotificationLogEntry, Long> {
+
+    @Query("select n from NotificationLogEntry n where n.id > :after order by n.id")
+    List<NotificationLogEntry> findAfter(@Param("after") long after, Pageable limit);
+
+    @Query("select coalesce(max(n.id), 0) from NotificationLogEntry n")
+    long findMaxId();
+
+    @Query("select coalesce(min(n.id), 0) from NotificationLogEntry n")
+    long findMinId();
+
+    @Modifying
+    @Transactional
+    @Query("delete from NotificationLogEntry n where n.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -1,12 +1,48 @@
 package com.kwick.backend.repository;
 
+import com.kwick.backend.dto.AdminUserRow;
 import com.kwick.backend.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    String ADMIN_ROW_SELECT = "select new com.kwick.backend.dto.AdminUserRow(u.id, u.name, u.email, u.phone, u.role, u.kycStatus, u.status) from User u ";
+
+    // Substring match; lower() defeats indexes, so this scans (kept for the existing search box).
+    // Patterns come from LikePatterns, hence the escape clause.
+    String CONTAINS_WHERE = "where (:pattern is null or lower(u.name) like :pattern escape '\\' "
+            + "or lower(u.email) like :pattern escape '\\' or lower(u.phone) like :pattern escape '\\') ";
+
+    // Prefix match on raw columns, served by uk_users_email / idx_users_name / idx_users_phone
+    String PREFIX_WHERE = "where (:prefix is null or u.email like :prefix escape '\\' "
+            + "or u.name like :prefix escape '\\' or u.phone like :prefix escape '\\') ";
+
     Optional<User> findByEmail(String email);
-    // ... custom queries
+
+    // Just the column the role-claim check needs, without loading (or caching) the entity
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Keyset page of users with {@code user_id > afterId}, in id order. Pass afterId = 0 with an
+     * offset Pageable for classic page/size paging; the Pageable only supplies offset/limit.
+     */
+    @Query(ADMIN_ROW_SELECT + CONTAINS_WHERE + "and u.id > :afterId order by u.id")
+    List<AdminUserRow> seekContaining(@Param("pattern") String pattern, @Param("afterId") long afterId, Pageable limit);
+
+    @Query(ADMIN_ROW_SELECT + PREFIX_WHERE + "and u.id > :afterId order by u.id")
+    List<AdminUserRow> seekByPrefix(@Param("prefix") String prefix, @Param("afterId") long afterId, Pageable limit);
+
+    @Query("select count(u) from User u " + CONTAINS_WHERE)
+    long countContaining(@Param("pattern") String pattern);
+
+    @Query("select count(u) from User u " + PREFIX_WHERE)
+    long countByPrefix(@Param("prefix") String prefix);
 }
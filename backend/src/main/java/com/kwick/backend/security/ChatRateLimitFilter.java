@@ -0,0 +1,154 @@
+package com.kwick.backend.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kwick.backend.ApiResponse;
+import com.kwick.backend.service.BoundedTtlMap;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket throttle for the public chat endpoint, per client IP and overall, so widget spam is answered
+ * with a 429 right after CORS handling (so the widget can read it) and before JWT parsing, validation or the
+ * controller. Each bucket is a single AtomicLong
+ * (GCRA: the time at which the bucket would be full again), updated with CAS, so the hot path takes no lock.
+ * The per-IP table is bounded: a bucket that has refilled carries no state and counts as expired, and past
+ * the limit clients not seen recently are dropped first (see {@link BoundedTtlMap}).
+ *
+ * Client IPs come from {@code getRemoteAddr()}; behind a proxy set {@code server.forward-headers-strategy}
+ * so that is the real client rather than the load balancer.
+ */
+@Component
+public class ChatRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String CHAT_PATH = "/api/chat";
+    private static final byte[] REJECTED_BODY = body();
+
+    private final boolean enabled;
+    private final long ipInterval;
+    private final long ipTolerance;
+    private final long globalInterval;
+    private final long globalTolerance;
+    private final LongSupplier nanoTime;
+
+    // A bucket that has refilled is indistinguishable from a new one
+    private final BoundedTtlMap<String, AtomicLong> ipBuckets;
+    private final AtomicLong globalBucket;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedIp = new LongAdder();
+    private final LongAdder rejectedGlobal = new LongAdder();
+
+    @Autowired
+    public ChatRateLimitFilter(@Value("${chat.rate-limit.enabled:true}") boolean enabled,
+            @Value("${chat.rate-limit.per-ip.requests-per-minute:30}") double ipPerMinute,
+            @Value("${chat.rate-limit.per-ip.burst:10}") int ipBurst,
+            @Value("${chat.rate-limit.global.requests-per-second:50}") double globalPerSecond,
+            @Value("${chat.rate-limit.global.burst:100}") int globalBurst,
+            @Value("${chat.rate-limit.max-tracked-ips:10000}") int maxKeys) {
+        this(enabled, ipPerMinute / 60, ipBurst, globalPerSecond, globalBurst, maxKeys, System::nanoTime);
+    }
+
+    ChatRateLimitFilter(boolean enabled, double ipPerSecond, int ipBurst, double globalPerSecond, int globalBurst,
+            int maxKeys, LongSupplier nanoTime) {
+        this.enabled = enabled;
+        this.ipInterval = interval(ipPerSecond);
+        this.ipTolerance = ipInterval * (Math.max(ipBurst, 1) - 1);
+        this.globalInterval = interval(globalPerSecond);
+        this.globalTolerance = globalInterval * (Math.max(globalBurst, 1) - 1);
+        this.nanoTime = nanoTime;
+        this.ipBuckets = new BoundedTtlMap<>(maxKeys, AtomicLong::get, nanoTime);
+        this.globalBucket = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    private static long interval(double perSecond) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(perSecond, 0.001));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || !CHAT_PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long now = nanoTime.getAsLong();
+        String ip = String.valueOf(request.getRemoteAddr());
+        AtomicLong bucket = ipBuckets.computeIfAbsent(ip, k -> new AtomicLong(now));
+        long wait = acquire(bucket, now, ipInterval, ipTolerance);
+        if (wait > 0) {
+            rejectedIp.increment();
+            reject(response, wait);
+            return;
+        }
+        wait = acquire(globalBucket, now, globalInterval, globalTolerance);
+        if (wait > 0) {
+            rejectedGlobal.increment();
+            reject(response, wait);
+            return;
+        }
+        allowed.increment();
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Take one token; returns 0 on success, otherwise how long until one is available.
+     */
+    private static long acquire(AtomicLong bucket, long now, long interval, long tolerance) {
+        while (true) {
+            long fullAt = bucket.get();
+            long base = fullAt - now > 0 ? fullAt : now;
+            long wait = base - tolerance - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, base + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private static byte[] body() {
+        try {
+            return new ObjectMapper().writeValueAsBytes(new ApiResponse<Void>(false, "Too many chat requests, please slow down", null));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("trackedIps", ipBuckets.size());
+        stats.put("maxTrackedIps", ipBuckets.maxSize());
+        stats.put("allowed", allowed.sum());
+        stats.put("rejectedPerIp", rejectedIp.sum());
+        stats.put("rejectedGlobal", rejectedGlobal.sum());
+        stats.put("evictions", ipBuckets.evictions());
+        return stats;
+    }
+}
@@ -1,9 +1,6 @@
 package com.kwick.backend.security;
 
-import com.kwick.backend.model.User;
-import com.kwick.backend.repository.UserRepository;
 import com.auth0.jwt.interfaces.DecodedJWT;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -17,7 +14,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
-import java.util.Optional;
+import java.util.OptionalInt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,12 +24,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
 
-    @Autowired
-    private UserRepository userRepository;
-
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, PrincipalCache principalCache) {
         this.jwtUtil = jwtUtil;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -65,13 +61,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                 try {
                     Long uid = Long.parseLong(userId);
-                    Optional<User> ou = userRepository.findById(uid);
-                    if (ou.isPresent()) {
-                        User u = ou.get();
-                        String role = u.getRole() == null ? "user" : u.getRole().toLowerCase();
+                    // A signed role claim is trusted while it was issued at the user's current token_version,
+                    // which is all that is looked up (cached). Otherwise the role comes from the principal cache;
+                    // either way the DB is only hit on a miss.
+                    String role = null;
+                    if (jwtUtil.isRoleClaimsEnabled() && jwtUtil.getRoleClaim(decoded) != null) {
+                        OptionalInt version = principalCache.tokenVersion(uid);
+                        if (version.isPresent()) {
+                            role = jwtUtil.getCurrentRoleClaim(decoded, version.getAsInt());
+                        }
+                    }
+                    if (role == null) {
+                        PrincipalCache.CachedPrincipal principal = principalCache.resolve(uid);
+                        role = principal.exists() ? principal.role() : null;
+                    }
+                    if (role != null) {
                         request.setAttribute("userRole", role);
                         var auth = new UsernamePasswordAuthenticationToken(
-                                u.getId().toString(),
+                                uid.toString(),
                                 null,
                                 List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
                         SecurityContextHolder.getContext().setAuthentication(auth);
@@ -4,6 +4,8 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
+import com.auth0.jwt.interfaces.Claim;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -15,15 +17,32 @@ public class JwtUtil {
 
     private final Algorithm algorithm;
     private final JWTVerifier verifier;
+    // Socket tickets use a derived key so neither kind of token verifies as the other
+    private final Algorithm ticketAlgorithm;
+    private final JWTVerifier ticketVerifier;
     private final long expirationMillis = 1000L * 60 * 60; // 1 hour
+    private final boolean roleClaimsEnabled;
 
-    public JwtUtil(@Value("${jwt.secret:}") String secret) {
+    static final String ROLE_CLAIM = "role";
+    static final String VERSION_CLAIM = "ver";
+    public static final long SOCKET_TICKET_MILLIS = 30_000;
+
+    public JwtUtil(String secret) {
+        this(secret, false);
+    }
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.secret:}") String secret,
+            @Value("${jwt.role-claims.enabled:false}") boolean roleClaimsEnabled) {
+        this.roleClaimsEnabled = roleClaimsEnabled;
         if (secret == null || secret.isBlank()) {
             // fallback to a random secret for dev if none provided
             secret = UUID.randomUUID().toString();
         }
         this.algorithm = Algorithm.HMAC256(secret);
         this.verifier = JWT.require(algorithm).build();
+        this.ticketAlgorithm = Algorithm.HMAC256(secret + ":ws-ticket");
+        this.ticketVerifier = JWT.require(ticketAlgorithm).build();
     }
 
     public String generateToken(String subject) {
@@ -36,7 +55,71 @@ public class JwtUtil {
                 .sign(algorithm);
     }
 
+    /**
+     * Access token carrying a signed role claim plus the user's token_version at issue time. The
+     * claim only counts while that version is still the user's current one, so a role, status or
+     * password change retires it on every replica and across restarts. Only used when
+     * {@code jwt.role-claims.enabled=true}; see {@link #isRoleClaimsEnabled()}.
+     */
+    public String generateAccessToken(String subject, String role, int tokenVersion) {
+        Date now = new Date();
+        Date exp = new Date(now.getTime() + expirationMillis);
+        return JWT.create()
+                .withSubject(subject)
+                .withClaim(ROLE_CLAIM, role == null ? "user" : role.toLowerCase())
+                .withClaim(VERSION_CLAIM, tokenVersion)
+                .withIssuedAt(now)
+                .withExpiresAt(exp)
+                .sign(algorithm);
+    }
+
     public DecodedJWT parseClaims(String token) {
         return verifier.verify(token);
     }
+
+    /**
+     * Short-lived ticket for opening a notification WebSocket, so the access token itself never appears in a
+     * URL (and so in proxy or access logs). It carries only the subject and a unique id; it is not accepted
+     * as an access token.
+     */
+    public String generateSocketTicket(String subject) {
+        Date now = new Date();
+        return JWT.create()
+                .withSubject(subject)
+                .withJWTId(UUID.randomUUID().toString())
+                .withIssuedAt(now)
+                .withExpiresAt(new Date(now.getTime() + SOCKET_TICKET_MILLIS))
+                .sign(ticketAlgorithm);
+    }
+
+    public DecodedJWT parseSocketTicket(String ticket) {
+        return ticketVerifier.verify(ticket);
+    }
+
+    /**
+     * Role claim of a verified token, or null for the legacy subject-only format.
+     */
+    public String getRoleClaim(DecodedJWT decoded) {
+        Claim claim = decoded.getClaim(ROLE_CLAIM);
+        return claim.isMissing() || claim.isNull() ? null : claim.asString();
+    }
+
+    /**
+     * Role claim of a verified token if it was issued at {@code currentVersion}, otherwise null.
+     */
+    public String getCurrentRoleClaim(DecodedJWT decoded, int currentVersion) {
+        Claim version = decoded.getClaim(VERSION_CLAIM);
+        if (version.isMissing() || version.isNull() || version.asInt() == null || version.asInt() != currentVersion) {
+            return null;
+        }
+        return getRoleClaim(decoded);
+    }
+
+    public boolean isRoleClaimsEnabled() {
+        return roleClaimsEnabled;
+    }
+
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
 }
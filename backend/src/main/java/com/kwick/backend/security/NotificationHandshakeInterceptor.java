@@ -0,0 +1,102 @@
+package com.kwick.backend.security;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.kwick.backend.service.NotificationWebSocketHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records who opened a /ws/notifications socket so the handler can authorize topic subscriptions.
+ * Browsers can't set an Authorization header on a WebSocket handshake, so besides the identity the JWT
+ * filter already put on the request, a {@code ?ticket=} query parameter is accepted: a one-time ticket from
+ * {@code POST /api/notifications/ticket}, valid for {@link JwtUtil#SOCKET_TICKET_MILLIS}. Access tokens are
+ * never taken from the URL, where proxies and access logs would keep them. A ticket is single-use on the
+ * replica that accepts it and expires within seconds anywhere else. Anonymous sockets are still allowed to
+ * connect; they just can't subscribe to anything. A {@code ?since=<seq>} parameter asks for the events missed
+ * since that sequence number to be replayed first.
+ */
+@Component
+public class NotificationHandshakeInterceptor implements HandshakeInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationHandshakeInterceptor.class);
+
+    private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
+    // Ticket id -> expiry (epoch millis) of tickets already used here
+    private final Map<String, Long> usedTickets = new ConcurrentHashMap<>();
+
+    public NotificationHandshakeInterceptor(JwtUtil jwtUtil, PrincipalCache principalCache) {
+        this.jwtUtil = jwtUtil;
+        this.principalCache = principalCache;
+    }
+
+    @Override
+    public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams();
+        String since = params.getFirst("since");
+        if (since != null) {
+            try {
+                attributes.put(NotificationWebSocketHandler.ATTR_RESUME_FROM, Long.parseLong(since.trim()));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring invalid notification resume position: {}", since);
+            }
+        }
+        if (request instanceof ServletServerHttpRequest servlet) {
+            Object userId = servlet.getServletRequest().getAttribute("userId");
+            Object role = servlet.getServletRequest().getAttribute("userRole");
+            if (userId != null && role != null) {
+                attributes.put(NotificationWebSocketHandler.ATTR_USER_ID, Long.parseLong(userId.toString()));
+                attributes.put(NotificationWebSocketHandler.ATTR_ROLE, role.toString());
+                return true;
+            }
+        }
+        String ticket = params.getFirst("ticket");
+        if (ticket != null && !ticket.isBlank()) {
+            authenticate(ticket, attributes);
+        }
+        return true;
+    }
+
+    // The ticket only names the user; the role always comes from the current (cached) users row
+    private void authenticate(String ticket, Map<String, Object> attributes) {
+        try {
+            DecodedJWT decoded = jwtUtil.parseSocketTicket(ticket);
+            if (!markUsed(decoded)) {
+                logger.debug("Ignoring reused notification socket ticket for user {}", decoded.getSubject());
+                return;
+            }
+            Long uid = Long.parseLong(decoded.getSubject());
+            PrincipalCache.CachedPrincipal principal = principalCache.resolve(uid);
+            if (principal.exists() && principal.role() != null) {
+                attributes.put(NotificationWebSocketHandler.ATTR_USER_ID, uid);
+                attributes.put(NotificationWebSocketHandler.ATTR_ROLE, principal.role().toLowerCase());
+            }
+        } catch (Exception e) {
+            logger.debug("Ignoring invalid notification socket ticket: {}", e.getMessage());
+        }
+    }
+
+    private boolean markUsed(DecodedJWT ticket) {
+        long now = System.currentTimeMillis();
+        usedTickets.values().removeIf(expiresAt -> expiresAt < now);
+        return ticket.getId() != null && usedTickets.putIfAbsent(ticket.getId(), ticket.getExpiresAt().getTime()) == null;
+    }
+
+    @Override
+    public void afterHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler, Exception exception) {
+    }
+}
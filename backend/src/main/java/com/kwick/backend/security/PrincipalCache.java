@@ -0,0 +1,190 @@
+package com.kwick.backend.security;
+
+import com.kwick.backend.model.User;
+import com.kwick.backend.repository.UserRepository;
+import com.kwick.backend.service.BoundedTtlMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, TTL-evicting cache of the principal data the JWT filter needs (existence + role),
+ * so authenticated requests don't each cost a users table lookup. Tokens with signed role claims
+ * only need the user's token_version, which is cached on its own from a one-column query.
+ * Entries are invalidated by {@link PrincipalCacheInvalidator} once a User row change has committed.
+ * A load that overlaps an invalidation of the same key is returned but not cached, so a row read
+ * before the commit can't be put back after the invalidation and outlive it for a whole TTL.
+ */
+@Component
+public class PrincipalCache {
+
+    /**
+     * Snapshot of a user as seen by the security filter. {@code exists == false} caches a miss
+     * so tokens for deleted users don't hammer the database either.
+     */
+    public record CachedPrincipal(Long userId, String role, String kycStatus, int tokenVersion, boolean exists) {
+        static CachedPrincipal missing(Long userId) {
+            return new CachedPrincipal(userId, null, null, 0, false);
+        }
+    }
+
+    private static final int GENERATION_STRIPES = 64;
+
+    private record Entry(CachedPrincipal principal, long expiresAtNanos) {
+    }
+
+    private record VersionEntry(OptionalInt version, long expiresAtNanos) {
+    }
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final BoundedTtlMap<Long, Entry> entries;
+    private final BoundedTtlMap<Long, VersionEntry> versions;
+    // Invalidation generation per key stripe; bumped before an entry is removed
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public PrincipalCache(UserRepository userRepository,
+            @Value("${security.principal-cache.enabled:true}") boolean enabled,
+            @Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${security.principal-cache.max-size:10000}") int maxSize) {
+        this(userRepository, enabled, Duration.ofSeconds(ttlSeconds), maxSize);
+    }
+
+    PrincipalCache(UserRepository userRepository, boolean enabled, Duration ttl, int maxSize) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.ttlNanos = Math.max(ttl.toNanos(), 0);
+        this.entries = new BoundedTtlMap<>(maxSize, Entry::expiresAtNanos, System::nanoTime);
+        this.versions = new BoundedTtlMap<>(maxSize, VersionEntry::expiresAtNanos, System::nanoTime);
+    }
+
+    /**
+     * Resolve a principal, hitting the database only on a miss or an expired entry.
+     */
+    public CachedPrincipal resolve(Long userId) {
+        if (!enabled) {
+            misses.increment();
+            return load(userId);
+        }
+        Entry e = entries.get(userId);
+        if (e != null) {
+            hits.increment();
+            return e.principal();
+        }
+        misses.increment();
+        int stripe = stripe(userId);
+        long generation = generations.get(stripe);
+        long now = System.nanoTime();
+        CachedPrincipal loaded = load(userId);
+        cacheIfCurrent(entries, userId, stripe, generation, new Entry(loaded, now + ttlNanos));
+        return loaded;
+    }
+
+    /**
+     * The user's current token_version, or empty if the user doesn't exist. Taken from a cached principal
+     * when there is one, otherwise from {@link UserRepository#findTokenVersionById}; the User entity is never
+     * loaded here.
+     */
+    public OptionalInt tokenVersion(Long userId) {
+        if (!enabled) {
+            misses.increment();
+            return loadVersion(userId);
+        }
+        Entry e = entries.get(userId);
+        if (e != null) {
+            hits.increment();
+            return e.principal().exists() ? OptionalInt.of(e.principal().tokenVersion()) : OptionalInt.empty();
+        }
+        VersionEntry v = versions.get(userId);
+        if (v != null) {
+            hits.increment();
+            return v.version();
+        }
+        misses.increment();
+        int stripe = stripe(userId);
+        long generation = generations.get(stripe);
+        long now = System.nanoTime();
+        OptionalInt loaded = loadVersion(userId);
+        cacheIfCurrent(versions, userId, stripe, generation, new VersionEntry(loaded, now + ttlNanos));
+        return loaded;
+    }
+
+    // Checked inside compute so it can't interleave with invalidate()'s bump-then-remove
+    private <T> void cacheIfCurrent(BoundedTtlMap<Long, T> map, Long userId, int stripe, long generation, T value) {
+        map.compute(userId, (id, current) -> generations.get(stripe) == generation ? value : current);
+    }
+
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(userId));
+        versions.remove(userId);
+        if (entries.remove(userId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        invalidations.add(entries.size());
+        entries.clear();
+        versions.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", entries.size());
+        stats.put("versions", versions.size());
+        stats.put("maxSize", entries.maxSize());
+        stats.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(ttlNanos));
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", (h + m) == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", entries.evictions());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private CachedPrincipal load(Long userId) {
+        return userRepository.findById(userId)
+                .map(PrincipalCache::toPrincipal)
+                .orElseGet(() -> CachedPrincipal.missing(userId));
+    }
+
+    private OptionalInt loadVersion(Long userId) {
+        return userRepository.findTokenVersionById(userId).map(OptionalInt::of).orElseGet(OptionalInt::empty);
+    }
+
+    static CachedPrincipal toPrincipal(User u) {
+        String role = u.getRole() == null ? "user" : u.getRole().toLowerCase();
+        return new CachedPrincipal(u.getId(), role, u.getKycStatus(), u.getTokenVersion(), true);
+    }
+
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (GENERATION_STRIPES - 1);
+    }
+}
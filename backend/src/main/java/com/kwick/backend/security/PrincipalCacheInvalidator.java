@@ -0,0 +1,51 @@
+package com.kwick.backend.security;
+
+import com.kwick.backend.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener on {@link User} that drops the cached principal whenever the row is
+ * inserted, updated (role/KYC changes) or deleted. JPA callbacks fire at flush, before commit, so
+ * the eviction is deferred until the transaction commits; otherwise a concurrent request could
+ * reload the old row in between and cache it for a full TTL. After a role, status or password change
+ * the reloaded row carries a bumped token_version, which retires the role claims of already-issued
+ * access tokens. Hibernate obtains
+ * this listener from the Spring context while the EntityManagerFactory is still being built, so
+ * the cache (which needs UserRepository) is resolved lazily to avoid a circular dependency.
+ */
+@Component
+public class PrincipalCacheInvalidator {
+
+    private final ObjectProvider<PrincipalCache> principalCache;
+
+    public PrincipalCacheInvalidator(ObjectProvider<PrincipalCache> principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        PrincipalCache cache = principalCache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        Long userId = user.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        } else {
+            cache.invalidate(userId);
+        }
+    }
+}
@@ -42,7 +42,7 @@ public class AuthService {
         u.setName(name);
         userRepository.save(u);
 
-        String token = jwtUtil.generateToken(u.getId().toString());
+        String token = accessToken(u);
         String refreshToken = jwtUtil.generateToken("refresh:" + u.getId());
 
         RefreshToken rt = new RefreshToken();
@@ -75,7 +75,7 @@ public class AuthService {
             throw new IllegalArgumentException("Invalid credentials");
         }
 
-        String token = jwtUtil.generateToken(u.getId().toString());
+        String token = accessToken(u);
         String refreshToken = jwtUtil.generateToken("refresh:" + u.getId());
 
         RefreshToken rt = new RefreshToken();
@@ -116,7 +116,10 @@ public class AuthService {
         found.setRevoked(true);
         refreshTokenRepository.save(found);
 
-        String token = jwtUtil.generateToken(id);
+        String token = jwtUtil.isRoleClaimsEnabled()
+                ? userRepository.findById(Long.parseLong(id)).map(this::accessToken)
+                        .orElseThrow(() -> new IllegalArgumentException("User not found"))
+                : jwtUtil.generateToken(id);
         String newRefresh = jwtUtil.generateToken("refresh:" + id);
 
         RefreshToken rt = new RefreshToken();
@@ -129,6 +132,16 @@ public class AuthService {
         return Map.of("token", token, "refreshToken", newRefresh);
     }
 
+    /**
+     * Access token for a user; carries a signed role claim when jwt.role-claims.enabled is set
+     */
+    private String accessToken(User u) {
+        if (jwtUtil.isRoleClaimsEnabled()) {
+            return jwtUtil.generateAccessToken(u.getId().toString(), u.getRole(), u.getTokenVersion());
+        }
+        return jwtUtil.generateToken(u.getId().toString());
+    }
+
     public void logout(String refreshToken) {
         refreshTokenRepository.findByToken(refreshToken).ifPresent(rt -> {
             rt.setRevoked(true);
@@ -0,0 +1,173 @@
+package com.kwick.backend.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Size-bounded concurrent map whose values also go stale at a deadline they carry themselves, shared by the
+ * in-process caches (principals, presigned URLs, chat rate-limit buckets). Reads are a plain ConcurrentHashMap
+ * lookup. Once a new key takes the map past {@code maxSize}, a second-chance (CLOCK) sweep over insertion order
+ * evicts: expired entries go, entries read since the last pass get one more round, so the put path costs O(1)
+ * amortized instead of a scan of the whole map.
+ *
+ * Deadlines and the clock use the same unit and are compared by subtraction, so {@link System#nanoTime} works.
+ */
+public final class BoundedTtlMap<K, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile boolean referenced;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final Map<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    // Every node in insertion order, plus nodes since removed or replaced, which the sweep skips
+    private final Queue<Node<K, V>> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxSize;
+    private final ToLongFunction<? super V> deadline;
+    private final LongSupplier clock;
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlMap(int maxSize, ToLongFunction<? super V> deadline, LongSupplier clock) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.deadline = deadline;
+        this.clock = clock;
+    }
+
+    /**
+     * Value for {@code key}, or null if absent or past its deadline.
+     */
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        V value = node.value;
+        if (expired(value, clock.getAsLong())) {
+            return null;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        return value;
+    }
+
+    public V put(K key, V value) {
+        return compute(key, (k, current) -> value);
+    }
+
+    /**
+     * Value for {@code key}, creating it if absent. An expired value is returned as is rather than replaced, so
+     * callers holding it keep sharing one instance; they judge its deadline themselves.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> create) {
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            if (!node.referenced) {
+                node.referenced = true;
+            }
+            return node.value;
+        }
+        return compute(key, (k, current) -> current != null ? current : create.apply(k));
+    }
+
+    /**
+     * Atomically replace the value for {@code key}. {@code remap} sees the current value whether or not it has
+     * expired; returning null removes the entry.
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remap) {
+        boolean[] added = new boolean[1];
+        Node<K, V> node = map.compute(key, (k, current) -> {
+            V next = remap.apply(k, current == null ? null : current.value);
+            if (next == null) {
+                return null;
+            }
+            if (current != null) {
+                current.value = next;
+                return current;
+            }
+            added[0] = true;
+            return new Node<>(k, next);
+        });
+        if (added[0]) {
+            order.offer(node);
+            queued.incrementAndGet();
+            trim();
+        }
+        return node == null ? null : node.value;
+    }
+
+    public V remove(K key) {
+        Node<K, V> node = map.remove(key);
+        return node == null ? null : node.value;
+    }
+
+    public void clear() {
+        map.clear();
+        order.clear();
+        queued.set(0);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Entries dropped to stay within maxSize, expired ones included.
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private boolean expired(V value, long now) {
+        return deadline.applyAsLong(value) - now <= 0;
+    }
+
+    // Also runs while the map is within bounds once removed keys have left the queue twice its size
+    private void trim() {
+        long now = clock.getAsLong();
+        for (int budget = 2 * queued.get() + 1; budget > 0; budget--) {
+            boolean full = map.size() > maxSize;
+            if (!full && queued.get() <= 2 * maxSize) {
+                return;
+            }
+            Node<K, V> node = order.poll();
+            if (node == null) {
+                return;
+            }
+            if (map.get(node.key) != node) {
+                queued.decrementAndGet();
+                continue;
+            }
+            if (expired(node.value, now) || (full && !node.referenced)) {
+                queued.decrementAndGet();
+                if (map.remove(node.key, node)) {
+                    evictions.increment();
+                }
+                continue;
+            }
+            if (full) {
+                node.referenced = false;
+            }
+            order.offer(node);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.kwick.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, pre-indexed chatbot content: intents in priority order, their keywords compiled into one
+ * {@link KeywordMatcher}, and a reply per intent and language held in flat arrays. Built once per load
+ * from the versioned JSON resource; a lookup is an automaton pass plus two array reads.
+ *
+ * <pre>
+ * {"version": 2,
+ *  "intents": [{"id": "greeting", "keywords": ["hello", "नमस्ते"], "replies": {"en": "...", "hi": "...", "hinglish": "..."}}],
+ *  "fallback": {"en": "...", "hi": "...", "hinglish": "..."}}
+ * </pre>
+ * A missing "hi" or "hinglish" reply falls back to "en".
+ */
+public final class ChatbotCatalog {
+
+    public static final int EN = 0;
+    public static final int HI = 1;
+    public static final int HINGLISH = 2;
+    public static final List<String> LANGUAGES = List.of("en", "hi", "hinglish");
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final int version;
+    private final List<String> intentIds;
+    private final List<List<String>> keywords;
+    private final KeywordMatcher matcher;
+    // [intent][language]; the fallback reply is the last row
+    private final String[][] replies;
+
+    private ChatbotCatalog(int version, List<String> intentIds, List<List<String>> keywords, String[][] replies) {
+        this.version = version;
+        this.intentIds = List.copyOf(intentIds);
+        this.keywords = List.copyOf(keywords);
+        this.matcher = KeywordMatcher.compile(this.keywords);
+        this.replies = replies;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the document is not a usable catalog
+     */
+    public static ChatbotCatalog parse(byte[] json) {
+        JsonNode root;
+        try {
+            root = JSON.readTree(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Catalog is not valid JSON: " + e.getMessage(), e);
+        }
+        if (root == null || !root.path("version").canConvertToInt()) {
+            throw new IllegalArgumentException("Catalog needs a numeric \"version\"");
+        }
+        JsonNode intents = root.path("intents");
+        if (!intents.isArray() || intents.isEmpty() || intents.size() > Long.SIZE) {
+            throw new IllegalArgumentException("Catalog needs 1-" + Long.SIZE + " \"intents\"");
+        }
+        List<String> ids = new ArrayList<>();
+        List<List<String>> keywords = new ArrayList<>();
+        String[][] replies = new String[intents.size() + 1][];
+        Set<String> seen = new HashSet<>();
+        for (JsonNode intent : intents) {
+            String id = intent.path("id").asText("");
+            if (id.isBlank() || !seen.add(id)) {
+                throw new IllegalArgumentException("Intent ids must be present and unique: \"" + id + "\"");
+            }
+            List<String> words = new ArrayList<>();
+            intent.path("keywords").forEach(k -> {
+                if (!k.asText("").isBlank()) {
+                    words.add(k.asText());
+                }
+            });
+            if (words.isEmpty()) {
+                throw new IllegalArgumentException("Intent \"" + id + "\" has no keywords");
+            }
+            replies[ids.size()] = replies(intent.path("replies"), id);
+            ids.add(id);
+            keywords.add(List.copyOf(words));
+        }
+        replies[ids.size()] = replies(root.path("fallback"), "fallback");
+        return new ChatbotCatalog(root.get("version").asInt(), ids, keywords, replies);
+    }
+
+    private static String[] replies(JsonNode node, String owner) {
+        String en = node.path("en").asText("");
+        if (en.isBlank()) {
+            throw new IllegalArgumentException("\"" + owner + "\" needs at least an \"en\" reply");
+        }
+        String[] byLanguage = new String[LANGUAGES.size()];
+        for (int i = 0; i < byLanguage.length; i++) {
+            String text = node.path(LANGUAGES.get(i)).asText("");
+            byLanguage[i] = text.isBlank() ? en : text;
+        }
+        return byLanguage;
+    }
+
+    /**
+     * Bit {@code i} set for each intent {@code i} (in catalog order) with a keyword in the message.
+     */
+    public long match(CharSequence message) {
+        return matcher.match(message);
+    }
+
+    /**
+     * The reply for the highest-priority matched intent, or the fallback when nothing matched.
+     */
+    public String reply(long matched, int language) {
+        int row = matched == 0 ? intentIds.size() : Long.numberOfTrailingZeros(matched);
+        return replies[row][language];
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public List<String> intentIds() {
+        return intentIds;
+    }
+
+    public List<String> keywords(int intent) {
+        return keywords.get(intent);
+    }
+}
@@ -1,124 +1,160 @@
 package com.kwick.backend.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.util.regex.Pattern;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keyword chatbot. Intents, keywords and replies come from a {@link ChatbotCatalog} loaded from
+ * {@code chatbot.catalog.location} (the bundled classpath:chatbot/catalog.json by default; point it at a
+ * file: URL to edit replies without a redeploy). The location is re-read periodically and a changed,
+ * valid catalog replaces the current one in a single volatile write, so chats in flight keep the catalog
+ * they started with and never wait on a reload. An invalid file is logged and ignored.
+ */
 @Service
 public class ChatbotService {
 
-    private static final Pattern DEVANAGARI_PATTERN = Pattern.compile("[\\u0900-\\u097F]+");
-    private static final Pattern LATIN_PATTERN = Pattern.compile("[a-zA-Z]+");
+    private static final Logger logger = LoggerFactory.getLogger(ChatbotService.class);
 
-    public String detectLanguage(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            return "en";
-        }
+    private final Resource location;
+    private volatile ChatbotCatalog catalog;
+    // Guarded by this
+    private byte[] loadedBytes;
+    private volatile Instant loadedAt;
 
-        String normalized = text.toLowerCase().trim();
-        boolean hasDevanagari = DEVANAGARI_PATTERN.matcher(normalized).find();
-        boolean hasLatin = LATIN_PATTERN.matcher(normalized).find();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder reloadFailures = new LongAdder();
 
-        if (hasDevanagari && hasLatin) {
-            return "hinglish";
-        } else if (hasDevanagari) {
-            return "hi";
-        } else {
-            return "en";
-        }
+    @Autowired
+    public ChatbotService(ResourceLoader resourceLoader,
+            @Value("${chatbot.catalog.location:classpath:chatbot/catalog.json}") String location) {
+        this(resourceLoader.getResource(location));
     }
 
-    public String generateReply(String message) {
-        String language = detectLanguage(message);
-        String lowerMessage = message.toLowerCase();
-
-        if (isGreeting(lowerMessage)) {
-            return getGreeting(language);
-        }
-
-        if (isHelpRequest(lowerMessage)) {
-            return getHelpResponse(language);
+    ChatbotService(Resource location) {
+        this.location = location;
+        if (!load()) {
+            throw new IllegalStateException("Chatbot catalog " + location + " could not be loaded");
         }
-
-        if (isVehicleQuery(lowerMessage)) {
-            return getVehicleResponse(language);
-        }
-
-        if (isKycQuery(lowerMessage)) {
-            return getKycResponse(language);
-        }
-
-        if (isPaymentQuery(lowerMessage)) {
-            return getPaymentResponse(language);
-        }
-
-        return getDefaultResponse(language);
     }
 
-    private boolean isGreeting(String message) {
-        return message.matches(".*(hello|hi|hey|namaste|namaskar|हैलो|नमस्ते).*");
+    @Scheduled(initialDelayString = "${chatbot.catalog.reload-interval-ms:30000}",
+            fixedDelayString = "${chatbot.catalog.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        reload();
     }
 
-    private boolean isHelpRequest(String message) {
-        return message.matches(".*(help|support|madad|मदद|सहायता).*");
+    /**
+     * Re-read the catalog and swap it in if the content changed and parses. Returns true if a new catalog is live.
+     */
+    public synchronized boolean reload() {
+        return load();
     }
 
-    private boolean isVehicleQuery(String message) {
-        return message.matches(".*(vehicle|bike|scooter|rent|गाड़ी|वाहन|किराया).*");
-    }
-
-    private boolean isKycQuery(String message) {
-        return message.matches(".*(kyc|document|verification|दस्तावेज़|सत्यापन).*");
-    }
-
-    private boolean isPaymentQuery(String message) {
-        return message.matches(".*(payment|price|cost|भुगतान|कीमत|पैसे).*");
+    // Not overridable, so the constructor can run it; callers other than the constructor hold the lock
+    private boolean load() {
+        byte[] bytes;
+        try (InputStream in = location.getInputStream()) {
+            bytes = in.readAllBytes();
+        } catch (IOException e) {
+            reloadFailures.increment();
+            logger.error("Chatbot catalog {} unreadable: {}", location, e.getMessage());
+            return false;
+        }
+        if (Arrays.equals(bytes, loadedBytes)) {
+            return false;
+        }
+        ChatbotCatalog next;
+        try {
+            next = ChatbotCatalog.parse(bytes);
+        } catch (IllegalArgumentException e) {
+            reloadFailures.increment();
+            logger.error("Chatbot catalog {} rejected, keeping version {}: {}", location,
+                    catalog != null ? catalog.version() : null, e.getMessage());
+            return false;
+        }
+        loadedBytes = bytes;
+        loadedAt = Instant.now();
+        catalog = next;
+        reloads.increment();
+        logger.info("Chatbot catalog version {} loaded ({} intents)", next.version(), next.intentIds().size());
+        return true;
     }
 
-    private String getGreeting(String language) {
-        return switch (language) {
-            case "hi" -> "नमस्ते! मैं Kwickrs चैटबॉट हूं। मैं आपकी कैसे मदद कर सकता हूं?";
-            case "hinglish" -> "Namaste! Main Kwickrs chatbot hoon. Main aapki kaise madad kar sakta hoon?";
-            default -> "Hello! I'm the Kwickrs chatbot. How can I help you today?";
-        };
+    public String detectLanguage(String text) {
+        return ChatbotCatalog.LANGUAGES.get(languageOf(text));
     }
 
-    private String getHelpResponse(String language) {
-        return switch (language) {
-            case "hi" -> "मैं आपकी निम्नलिखित में मदद कर सकता हूं:\n• वाहन किराए पर लेना\n• KYC सत्यापन\n• भुगतान और मूल्य निर्धारण\n• बैटरी स्वैपिंग स्टेशन\nआप क्या जानना चाहेंगे?";
-            case "hinglish" -> "Main aapki help kar sakta hoon:\n• Vehicle rent karne mein\n• KYC verification mein\n• Payment aur pricing mein\n• Battery swapping stations mein\nAap kya jaanna chahenge?";
-            default -> "I can assist you with:\n• Vehicle rentals\n• KYC verification\n• Payments and pricing\n• Battery swapping stations\nWhat would you like to know?";
-        };
+    // Devanagari and/or Latin letters anywhere in the text; one pass, nothing allocated
+    private static int languageOf(String text) {
+        if (text == null) {
+            return ChatbotCatalog.EN;
+        }
+        boolean hasDevanagari = false;
+        boolean hasLatin = false;
+        for (int i = 0, n = text.length(); i < n && !(hasDevanagari && hasLatin); i++) {
+            char c = text.charAt(i);
+            if (c >= '\u0900' && c <= '\u097F') {
+                hasDevanagari = true;
+            } else {
+                // ASCII folds with one bit (no other ASCII char lands in a-z); e.g. the Kelvin sign needs the real thing
+                char lower = c < 0x80 ? (char) (c | 0x20) : Character.toLowerCase(c);
+                hasLatin |= lower >= 'a' && lower <= 'z';
+            }
+        }
+        if (hasDevanagari && hasLatin) {
+            return ChatbotCatalog.HINGLISH;
+        }
+        return hasDevanagari ? ChatbotCatalog.HI : ChatbotCatalog.EN;
     }
 
-    private String getVehicleResponse(String language) {
-        return switch (language) {
-            case "hi" -> "हमारे पास इलेक्ट्रिक स्कूटर और बाइक किराए पर उपलब्ध हैं। किराया ₹299/दिन से शुरू होता है। क्या आप किसी विशेष वाहन के बारे में जानना चाहेंगे?";
-            case "hinglish" -> "Humare paas electric scooters aur bikes rent par available hain. Rent ₹299/day se start hota hai. Kya aap kisi specific vehicle ke baare mein jaanna chahenge?";
-            default -> "We have electric scooters and bikes available for rent. Pricing starts from ₹299/day. Would you like to know about any specific vehicle?";
-        };
+    /**
+     * Ids of every intent with a keyword in the message, in priority order.
+     */
+    public Set<String> detectIntents(String message) {
+        ChatbotCatalog current = catalog;
+        long matched = current.match(message);
+        Set<String> intents = new LinkedHashSet<>();
+        for (int i = 0; i < current.intentIds().size(); i++) {
+            if ((matched & (1L << i)) != 0) {
+                intents.add(current.intentIds().get(i));
+            }
+        }
+        return intents;
     }
 
-    private String getKycResponse(String language) {
-        return switch (language) {
-            case "hi" -> "KYC के लिए आपको निम्नलिखित दस्तावेज़ चाहिए:\n• आधार कार्ड\n• ड्राइविंग लाइसेंस\n• पासपोर्ट साइज़ फोटो\nआप अपने डैशबोर्ड से KYC अपलोड कर सकते हैं।";
-            case "hinglish" -> "KYC ke liye aapko ye documents chahiye:\n• Aadhaar Card\n• Driving License\n• Passport size photo\nAap apne dashboard se KYC upload kar sakte hain.";
-            default -> "For KYC, you'll need:\n• Aadhaar Card\n• Driving License\n• Passport size photo\nYou can upload KYC documents from your dashboard.";
-        };
+    public String generateReply(String message) {
+        ChatbotCatalog current = catalog;
+        return current.reply(current.match(message), languageOf(message));
     }
 
-    private String getPaymentResponse(String language) {
-        return switch (language) {
-            case "hi" -> "भुगतान विकल्प:\n• UPI\n• क्रेडिट/डेबिट कार्ड\n• नेट बैंकिंग\n• वॉलेट\nसभी भुगतान सुरक्षित और एन्क्रिप्टेड हैं। क्या आपको और जानकारी चाहिए?";
-            case "hinglish" -> "Payment options:\n• UPI\n• Credit/Debit Card\n• Net Banking\n• Wallet\nSabhi payments secure aur encrypted hain. Kya aapko aur information chahiye?";
-            default -> "Payment options:\n• UPI\n• Credit/Debit Cards\n• Net Banking\n• Wallets\nAll payments are secure and encrypted. Need more information?";
-        };
+    public ChatbotCatalog catalog() {
+        return catalog;
     }
 
-    private String getDefaultResponse(String language) {
-        return switch (language) {
-            case "hi" -> "मैं आपकी मदद करना चाहता हूं। क्या आप अपना सवाल थोड़ा और स्पष्ट कर सकते हैं? आप वाहन, KYC, या भुगतान के बारे में पूछ सकते हैं।";
-            case "hinglish" -> "Main aapki help karna chahta hoon. Kya aap apna question thoda aur clear kar sakte hain? Aap vehicle, KYC, ya payment ke baare mein pooch sakte hain.";
-            default -> "I'd love to help! Could you please clarify your question? You can ask about vehicles, KYC, or payments.";
-        };
+    public Map<String, Object> stats() {
+        ChatbotCatalog current = catalog;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("catalogVersion", current.version());
+        stats.put("intents", current.intentIds().size());
+        stats.put("loadedAt", String.valueOf(loadedAt));
+        stats.put("reloads", reloads.sum());
+        stats.put("reloadFailures", reloadFailures.sum());
+        return stats;
     }
 }
@@ -0,0 +1,219 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.exception.InvalidUploadException;
+import com.kwick.backend.model.KycVerification;
+import com.kwick.backend.repository.KycRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local storage that names every KYC document after its SHA-256:
+ * {@code backend-uploads/kyc/{userId}/{docType}/{sha256}.{ext}}. Re-uploading the same image lands on
+ * the existing file instead of adding a copy, and the layout still matches /api/kyc/file/{userId}/{docType}/..
+ *
+ * A blob's reference count is the number of KycVerification document columns pointing at it; the sweeper
+ * deletes blobs whose count has dropped to zero (e.g. after a re-submission replaced them).
+ */
+@Service
+@ConditionalOnExpression("!${aws.s3.enabled:false} && ${storage.content-addressed:true}")
+public class ContentAddressedStorageService implements StorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentAddressedStorageService.class);
+    private static final List<String> DOC_DIRS = List.of("aadhaar", "license", "selfie");
+
+    private final Path baseDir;
+    private final KycRepository kycRepository;
+    private final Duration sweepGrace;
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder swept = new LongAdder();
+    private final LongAdder sweptBytes = new LongAdder();
+    private final AtomicLong lastSweepMillis = new AtomicLong();
+
+    @Autowired
+    public ContentAddressedStorageService(KycRepository kycRepository,
+            @Value("${storage.sweeper.grace-minutes:60}") long graceMinutes) throws IOException {
+        this(Path.of(System.getProperty("user.dir"), "backend-uploads"), kycRepository, Duration.ofMinutes(graceMinutes));
+    }
+
+    ContentAddressedStorageService(Path baseDir, KycRepository kycRepository, Duration sweepGrace) throws IOException {
+        this.baseDir = baseDir;
+        this.kycRepository = kycRepository;
+        this.sweepGrace = sweepGrace;
+        Files.createDirectories(baseDir);
+    }
+
+    @Override
+    public StoredFile ingest(MultipartFile file, String subpath) throws Exception {
+        if (file.getSize() > UploadIngestStream.MAX_KYC_BYTES) {
+            throw new InvalidUploadException("File too large (max 5MB)");
+        }
+        Path destDir = baseDir.resolve(subpath == null ? "" : subpath);
+        Files.createDirectories(destDir);
+
+        // The name depends on the hash, so write to a temp file first and rename once the stream is done
+        Path tmp = Files.createTempFile(destDir, ".upload-", ".tmp");
+        try {
+            String contentType;
+            long size;
+            String sha256;
+            try (UploadIngestStream in = UploadIngestStream.open(file.getInputStream(), UploadIngestStream.MAX_KYC_BYTES)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                contentType = in.contentType();
+                size = in.size();
+                sha256 = in.sha256();
+            }
+
+            Path dest = destDir.resolve(sha256 + extension(contentType));
+            // Same bytes already stored: the rename swaps in an identical file, which also refreshes its
+            // mtime so the sweeper's grace window covers it until the new reference is saved
+            if (Files.exists(dest)) {
+                deduplicated.increment();
+            } else {
+                stored.increment();
+            }
+            moveIntoPlace(tmp, dest);
+            return new StoredFile(dest.toAbsolutePath().toString(), contentType, size, sha256);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void moveIntoPlace(Path tmp, Path dest) throws IOException {
+        try {
+            Files.move(tmp, dest, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException | FileAlreadyExistsException e) {
+            Files.move(tmp, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String extension(String contentType) {
+        return switch (contentType) {
+            case "image/jpeg" -> ".jpg";
+            case "image/png" -> ".png";
+            case "application/pdf" -> ".pdf";
+            default -> "";
+        };
+    }
+
+    // A blob may already be shared with a recorded document; unreferenced ones are left to the sweeper
+    @Override
+    public void discard(String url) {
+    }
+
+    /**
+     * Delete document blobs no KycVerification references any more. Files younger than the grace period
+     * are skipped so an upload whose metadata has not been saved yet is never reclaimed.
+     */
+    @Scheduled(initialDelayString = "${storage.sweeper.initial-delay-ms:300000}",
+            fixedDelayString = "${storage.sweeper.interval-ms:3600000}")
+    public void sweepOrphans() {
+        Path kycDir = baseDir.resolve("kyc");
+        if (!Files.isDirectory(kycDir)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(sweepGrace);
+        try (DirectoryStream<Path> users = Files.newDirectoryStream(kycDir, Files::isDirectory)) {
+            for (Path userDir : users) {
+                Long userId;
+                try {
+                    userId = Long.parseLong(userDir.getFileName().toString());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                try {
+                    sweepUser(userId, userDir, cutoff);
+                } catch (IOException e) {
+                    logger.warn("KYC blob sweep failed for user {}: {}", userId, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("KYC blob sweep failed: {}", e.getMessage());
+        } finally {
+            lastSweepMillis.set(System.currentTimeMillis());
+        }
+    }
+
+    private void sweepUser(Long userId, Path userDir, Instant cutoff) throws IOException {
+        Map<String, Integer> refCounts = referenceCounts(kycRepository.findByUserId(userId).orElse(null));
+        for (String docDir : DOC_DIRS) {
+            Path dir = userDir.resolve(docDir);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (DirectoryStream<Path> blobs = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+                for (Path blob : blobs) {
+                    String key = docDir + "/" + blob.getFileName();
+                    if (refCounts.getOrDefault(key, 0) > 0
+                            || Files.getLastModifiedTime(blob).toInstant().isAfter(cutoff)) {
+                        continue;
+                    }
+                    long size = Files.size(blob);
+                    if (Files.deleteIfExists(blob)) {
+                        swept.increment();
+                        sweptBytes.add(size);
+                        logger.info("Reclaimed orphaned KYC blob for user {}: {}", userId, key);
+                    }
+                }
+            }
+        }
+    }
+
+    // docType/filename -> number of document columns referencing it
+    static Map<String, Integer> referenceCounts(KycVerification kyc) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (kyc == null) {
+            return counts;
+        }
+        count(counts, "aadhaar", kyc.getAadhaarFrontUrl());
+        count(counts, "aadhaar", kyc.getAadhaarBackUrl());
+        count(counts, "license", kyc.getLicenseFrontUrl());
+        count(counts, "license", kyc.getLicenseBackUrl());
+        count(counts, "selfie", kyc.getSelfieUrl());
+        return counts;
+    }
+
+    // Stored URLs may be Windows or POSIX absolute paths; the last segment is the blob name
+    private static void count(Map<String, Integer> counts, String docDir, String url) {
+        if (url == null || url.isEmpty()) {
+            return;
+        }
+        int slash = Math.max(url.lastIndexOf('/'), url.lastIndexOf('\\'));
+        counts.merge(docDir + "/" + url.substring(slash + 1), 1, Integer::sum);
+        // A thumbnail lives exactly as long as its original
+        counts.merge(docDir + "/" + ThumbnailService.thumbnailName(url), 1, Integer::sum);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stored", stored.sum());
+        stats.put("deduplicated", deduplicated.sum());
+        stats.put("sweptBlobs", swept.sum());
+        stats.put("sweptBytes", sweptBytes.sum());
+        stats.put("lastSweepMillis", lastSweepMillis.get());
+        return stats;
+    }
+}
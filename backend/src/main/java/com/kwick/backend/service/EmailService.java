@@ -3,7 +3,6 @@ package com.kwick.backend.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +12,9 @@ public class EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
-    @Autowired(required = false)
-    private JavaMailSender javaMailSender;
+    // Sends go through the bounded dispatcher queue so callers never wait on SMTP
+    @Autowired
+    private MailDispatcher mailDispatcher;
 
     @Value("${app.email.from:noreply@kwick.com}")
     private String emailFrom;
@@ -27,7 +27,7 @@ public class EmailService {
      */
     public void sendKycSubmissionNotification(String userName, String userEmail, Long userId) {
         try {
-            if (javaMailSender == null) {
+            if (!mailDispatcher.isEnabled()) {
                 logger.warn("JavaMailSender not configured. Skipping email notification for user: {}", userId);
                 return;
             }
@@ -48,8 +48,8 @@ public class EmailService {
             message.setSubject(subject);
             message.setText(body);
 
-            javaMailSender.send(message);
-            logger.info("KYC submission notification sent for user: {}", userId);
+            mailDispatcher.dispatch(message);
+            logger.info("KYC submission notification queued for user: {}", userId);
         } catch (Exception e) {
             logger.error("Failed to send KYC submission notification for user: {}", userId, e);
             // Don't throw exception - email is non-critical
@@ -61,7 +61,7 @@ public class EmailService {
      */
     public void sendKycApprovalNotification(String userName, String userEmail) {
         try {
-            if (javaMailSender == null) {
+            if (!mailDispatcher.isEnabled()) {
                 logger.warn("JavaMailSender not configured. Skipping email notification to: {}", userEmail);
                 return;
             }
@@ -80,8 +80,8 @@ public class EmailService {
             message.setSubject(subject);
             message.setText(body);
 
-            javaMailSender.send(message);
-            logger.info("KYC approval notification sent to: {}", userEmail);
+            mailDispatcher.dispatch(message);
+            logger.info("KYC approval notification queued to: {}", userEmail);
         } catch (Exception e) {
             logger.error("Failed to send KYC approval notification to: {}", userEmail, e);
         }
@@ -92,7 +92,7 @@ public class EmailService {
      */
     public void sendKycRejectionNotification(String userName, String userEmail, String rejectionReason) {
         try {
-            if (javaMailSender == null) {
+            if (!mailDispatcher.isEnabled()) {
                 logger.warn("JavaMailSender not configured. Skipping email notification to: {}", userEmail);
                 return;
             }
@@ -114,8 +114,8 @@ public class EmailService {
             message.setSubject(subject);
             message.setText(body);
 
-            javaMailSender.send(message);
-            logger.info("KYC rejection notification sent to: {}", userEmail);
+            mailDispatcher.dispatch(message);
+            logger.info("KYC rejection notification queued to: {}", userEmail);
         } catch (Exception e) {
             logger.error("Failed to send KYC rejection notification to: {}", userEmail, e);
         }
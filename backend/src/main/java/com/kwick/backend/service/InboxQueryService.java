@@ -0,0 +1,63 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.repository.LikePatterns;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Shared admin "inbox" listing for lead tables (contact messages, CTA records, callback requests):
+ * status filter + free-text search + newest-first paging, all executed in the database.
+ * Status filtering with created_at ordering is served by each table's (status, created_at) index;
+ * that works because the controllers store statuses through {@link #normalizeStatus}.
+ */
+@Service
+public class InboxQueryService {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    /**
+     * @param searchFields entity attributes matched case-insensitively against {@code q}
+     * @return the response shape the inbox controllers have always returned: items, total, page, size
+     */
+    public <T> Map<String, Object> page(JpaSpecificationExecutor<T> repository, String status, String q,
+            int page, int size, String... searchFields) {
+        int p = Math.max(page, 0);
+        int s = Math.max(size, 1);
+        Page<T> result = repository.findAll(spec(status, q, searchFields), PageRequest.of(p, s, NEWEST_FIRST));
+        return Map.of("items", result.getContent(), "total", result.getTotalElements(), "page", p, "size", s);
+    }
+
+    /**
+     * Canonical (trimmed, lower-case) form in which inbox statuses are stored and compared.
+     */
+    public static String normalizeStatus(String status) {
+        return status == null ? null : status.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static <T> Specification<T> spec(String status, String q, String... searchFields) {
+        return (root, query, cb) -> {
+            Predicate where = cb.conjunction();
+            if (status != null && !status.isBlank() && !"all".equalsIgnoreCase(status)) {
+                // statuses are written normalized, so compare the raw column and keep the index usable
+                where = cb.and(where, cb.equal(root.get("status"), normalizeStatus(status)));
+            }
+            if (q != null && !q.isBlank() && searchFields.length > 0) {
+                String pattern = LikePatterns.contains(q.trim().toLowerCase());
+                Predicate[] matches = new Predicate[searchFields.length];
+                for (int i = 0; i < searchFields.length; i++) {
+                    matches[i] = cb.like(cb.lower(root.<String>get(searchFields[i])), pattern, LikePatterns.ESCAPE);
+                }
+                where = cb.and(where, cb.or(matches));
+            }
+            return where;
+        };
+    }
+}
@@ -0,0 +1,194 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.NotificationLogEntry;
+import com.kwick.backend.repository.NotificationLogRepository;
+import com.kwick.backend.service.NotificationEvent.Topic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Multi-replica transport over the shared database: {@link #publish} inserts a row into notification_log and
+ * every replica polls for rows past the last id it delivered. The auto-increment id is the sequence number,
+ * so all replicas see the same events in the same order. Rows are pruned after the retention period.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.transport", havingValue = "jdbc")
+public class JdbcNotificationTransport implements NotificationTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcNotificationTransport.class);
+
+    private final NotificationLogRepository repository;
+    private final int batchSize;
+    private final Duration gapWait;
+    private final Duration retention;
+    private final Clock clock;
+
+    private volatile Consumer<NotificationEvent> sink;
+    // Written only under this lock; volatile so stats() can read it while a poll is running
+    private volatile long lastSeq = -1;
+    private Instant gapSince;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    @Autowired
+    public JdbcNotificationTransport(NotificationLogRepository repository,
+            @Value("${notifications.transport.batch-size:500}") int batchSize,
+            @Value("${notifications.transport.gap-wait-ms:2000}") long gapWaitMs,
+            @Value("${notifications.transport.retention-minutes:60}") long retentionMinutes) {
+        this(repository, batchSize, Duration.ofMillis(gapWaitMs), Duration.ofMinutes(retentionMinutes), Clock.systemDefaultZone());
+    }
+
+    JdbcNotificationTransport(NotificationLogRepository repository, int batchSize, Duration gapWait, Duration retention, Clock clock) {
+        this.repository = repository;
+        this.batchSize = Math.max(batchSize, 1);
+        this.gapWait = gapWait;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    @Override
+    public void publish(NotificationEvent event) {
+        NotificationLogEntry entry = new NotificationLogEntry();
+        entry.setTopic(event.topic().wireName());
+        entry.setEvent(event.event());
+        entry.setEntityId(event.id());
+        entry.setUserId(event.userId());
+        entry.setStatus(event.status());
+        entry.setCreatedAt(LocalDateTime.now(clock));
+        repository.save(entry);
+        published.increment();
+    }
+
+    /**
+     * Start delivering from the current end of the log; history from before this replica started is not replayed.
+     */
+    @Override
+    public synchronized void subscribe(Consumer<NotificationEvent> sink) {
+        this.sink = sink;
+        try {
+            lastSeq = repository.findMaxId();
+        } catch (RuntimeException e) {
+            logger.warn("Notification log unavailable at startup, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.transport.poll-interval-ms:250}")
+    public synchronized void poll() {
+        Consumer<NotificationEvent> target = sink;
+        if (target == null) {
+            return;
+        }
+        try {
+            if (lastSeq < 0) {
+                lastSeq = repository.findMaxId();
+                return;
+            }
+            List<NotificationLogEntry> rows = repository.findAfter(lastSeq, PageRequest.of(0, batchSize));
+            for (NotificationLogEntry row : rows) {
+                // Started on an empty (e.g. fully pruned) log: the sequence begins wherever the first row lands
+                boolean gap = lastSeq > 0 && row.getId() != lastSeq + 1;
+                if (gap && !gapExpired()) {
+                    // A lower id may belong to an INSERT that has not committed yet; hold back until it shows up
+                    break;
+                }
+                if (gap) {
+                    skipped.add(row.getId() - lastSeq - 1);
+                }
+                gapSince = null;
+                received.increment();
+                try {
+                    target.accept(toEvent(row));
+                } catch (RuntimeException e) {
+                    failures.increment();
+                    logger.warn("Notification {} delivery failed: {}", row.getId(), e.getMessage());
+                }
+                // Only advanced once the sink has the event, so history() never returns one still in flight
+                lastSeq = row.getId();
+            }
+        } catch (Exception e) {
+            failures.increment();
+            logger.error("Notification log poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Ids lost to rolled-back inserts never appear, so a gap is only waited out for gapWait
+    private boolean gapExpired() {
+        Instant now = clock.instant();
+        if (gapSince == null) {
+            gapSince = now;
+        }
+        return !now.isBefore(gapSince.plus(gapWait));
+    }
+
+    @Scheduled(initialDelayString = "${notifications.transport.prune-interval-ms:600000}",
+            fixedDelayString = "${notifications.transport.prune-interval-ms:600000}")
+    public void prune() {
+        try {
+            pruned.add(repository.deleteOlderThan(LocalDateTime.now(clock).minus(retention)));
+        } catch (Exception e) {
+            logger.warn("Notification log prune failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Served from notification_log; null once pruning has removed part of the requested range.
+     */
+    @Override
+    public List<NotificationEvent> history(long afterSeq, long deliveredUpTo, int limit) {
+        long upTo = Math.max(deliveredUpTo, lastSeq);
+        if (upTo < 0 || afterSeq > upTo) {
+            return null;
+        }
+        long oldest = repository.findMinId();
+        if (oldest == 0 ? afterSeq < upTo : afterSeq + 1 < oldest) {
+            return null;
+        }
+        List<NotificationEvent> events = new ArrayList<>();
+        for (NotificationLogEntry row : repository.findAfter(afterSeq, PageRequest.of(0, Math.max(limit, 1)))) {
+            if (row.getId() > upTo) {
+                break;
+            }
+            events.add(toEvent(row));
+        }
+        return events;
+    }
+
+    private static NotificationEvent toEvent(NotificationLogEntry row) {
+        return new NotificationEvent(Topic.valueOf(row.getTopic().toUpperCase()), row.getEvent(), row.getEntityId(),
+                row.getUserId(), row.getStatus(), row.getId());
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", "jdbc");
+        stats.put("lastSeq", lastSeq);
+        stats.put("published", published.sum());
+        stats.put("received", received.sum());
+        stats.put("skippedIds", skipped.sum());
+        stats.put("pruned", pruned.sum());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+}
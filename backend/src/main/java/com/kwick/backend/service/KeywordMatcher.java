@@ -0,0 +1,115 @@
+package com.kwick.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton over groups of keywords, compiled once into a dense transition table. {@link #match}
+ * makes a single pass over the text, case-insensitively and without allocating, and returns a bit mask with
+ * bit {@code i} set when any keyword of group {@code i} occurs anywhere in it (as a substring, the same as the
+ * {@code .*(a|b).*} regexes it replaces). At most 64 groups.
+ */
+public final class KeywordMatcher {
+
+    private final int[] charClass;
+    private final int alphabet;
+    private final int[] delta;
+    private final long[] output;
+
+    private KeywordMatcher(int[] charClass, int alphabet, int[] delta, long[] output) {
+        this.charClass = charClass;
+        this.alphabet = alphabet;
+        this.delta = delta;
+        this.output = output;
+    }
+
+    public static KeywordMatcher compile(List<? extends List<String>> keywordsByGroup) {
+        if (keywordsByGroup.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " keyword groups, got " + keywordsByGroup.size());
+        }
+        // Only characters that occur in some keyword get a class; everything else is class 0 and resets to the root
+        TreeSet<Character> chars = new TreeSet<>();
+        int totalLength = 0;
+        for (List<String> group : keywordsByGroup) {
+            for (String keyword : group) {
+                String k = keyword.toLowerCase(Locale.ROOT);
+                for (int i = 0; i < k.length(); i++) {
+                    chars.add(k.charAt(i));
+                }
+                totalLength += k.length();
+            }
+        }
+        int[] charClass = new int[chars.isEmpty() ? 1 : chars.last() + 1];
+        int alphabet = 1;
+        for (char c : chars) {
+            charClass[c] = alphabet++;
+        }
+
+        int[] delta = new int[(totalLength + 1) * alphabet];
+        Arrays.fill(delta, -1);
+        long[] output = new long[totalLength + 1];
+        int states = 1;
+        for (int g = 0; g < keywordsByGroup.size(); g++) {
+            for (String keyword : keywordsByGroup.get(g)) {
+                String k = keyword.toLowerCase(Locale.ROOT);
+                if (k.isEmpty()) {
+                    continue;
+                }
+                int state = 0;
+                for (int i = 0; i < k.length(); i++) {
+                    int slot = state * alphabet + charClass[k.charAt(i)];
+                    if (delta[slot] < 0) {
+                        delta[slot] = states++;
+                    }
+                    state = delta[slot];
+                }
+                output[state] |= 1L << g;
+            }
+        }
+
+        // Breadth-first, fill in every missing transition from the failure state so matching never backtracks
+        int[] fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int a = 0; a < alphabet; a++) {
+                int slot = s * alphabet + a;
+                int viaFail = s == 0 ? 0 : delta[fail[s] * alphabet + a];
+                int t = delta[slot];
+                if (t < 0 || a == 0) {
+                    delta[slot] = a == 0 ? 0 : viaFail;
+                } else {
+                    fail[t] = viaFail;
+                    output[t] |= output[viaFail];
+                    queue.add(t);
+                }
+            }
+        }
+        return new KeywordMatcher(charClass, alphabet, Arrays.copyOf(delta, states * alphabet), Arrays.copyOf(output, states));
+    }
+
+    public long match(CharSequence text) {
+        long matched = 0;
+        int state = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            } else if (c > 0x7F) {
+                c = Character.toLowerCase(c);
+            }
+            state = delta[state * alphabet + (c < charClass.length ? charClass[c] : 0)];
+            matched |= output[state];
+        }
+        return matched;
+    }
+
+    public int states() {
+        return output.length;
+    }
+}
@@ -0,0 +1,173 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.KycJob;
+import com.kwick.backend.model.KycVerification;
+import com.kwick.backend.model.User;
+import com.kwick.backend.repository.KycJobRepository;
+import com.kwick.backend.repository.KycRepository;
+import com.kwick.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * DB-backed outbox for the slow part of a KYC submission. {@link #enqueuePostSubmit} is called inside
+ * the submit transaction; a poller claims due rows and runs them on the bounded kycJobExecutor, so the
+ * request returns as soon as the KYC row commits. Failed jobs are retried with exponential backoff;
+ * each step's completion is recorded on the row, so a retry only redoes the steps that did not finish
+ * and the admin email goes out once (short of a crash between sending it and saving the row).
+ */
+@Service
+public class KycJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycJobService.class);
+
+    private final KycJobRepository kycJobRepository;
+    private final KycRepository kycRepository;
+    private final UserRepository userRepository;
+    private final KycPdfCache kycPdfCache;
+    private final EmailService emailService;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${kyc.jobs.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${kyc.jobs.retry-base-seconds:10}")
+    private long retryBaseSeconds = 10;
+
+    @Value("${kyc.jobs.stale-after-minutes:10}")
+    private long staleAfterMinutes = 10;
+
+    public KycJobService(KycJobRepository kycJobRepository, KycRepository kycRepository, UserRepository userRepository,
+            KycPdfCache kycPdfCache, EmailService emailService,
+            @Qualifier("kycJobExecutor") ThreadPoolTaskExecutor executor) {
+        this.kycJobRepository = kycJobRepository;
+        this.kycRepository = kycRepository;
+        this.userRepository = userRepository;
+        this.kycPdfCache = kycPdfCache;
+        this.emailService = emailService;
+        this.executor = executor;
+    }
+
+    /**
+     * Queue PDF generation + admin notification for a submitted KYC. Joins the caller's transaction,
+     * so the job only becomes visible if the submission commits.
+     */
+    public KycJob enqueuePostSubmit(Long kycId, Long userId) {
+        KycJob job = new KycJob();
+        job.setKycId(kycId);
+        job.setUserId(userId);
+        job.setJobType(KycJob.TYPE_POST_SUBMIT);
+        return kycJobRepository.save(job);
+    }
+
+    @Scheduled(fixedDelayString = "${kyc.jobs.poll-interval-ms:2000}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            int released = kycJobRepository.releaseStale(now.minusMinutes(staleAfterMinutes), now);
+            if (released > 0) {
+                logger.warn("Re-queued {} stale KYC jobs", released);
+            }
+
+            // Only claim what the pool can take right now; the rest stays pending in the table
+            int free = executor.getMaxPoolSize() - executor.getActiveCount()
+                    + executor.getThreadPoolExecutor().getQueue().remainingCapacity();
+            if (free <= 0) {
+                return;
+            }
+            List<Long> due = kycJobRepository.findDueIds(now, PageRequest.of(0, free));
+            for (Long id : due) {
+                if (kycJobRepository.claim(id, LocalDateTime.now()) == 0) {
+                    continue; // taken by another worker/replica
+                }
+                try {
+                    executor.execute(() -> run(id));
+                } catch (RejectedExecutionException rex) {
+                    kycJobRepository.findById(id).ifPresent(job -> reschedule(job, "executor saturated", false));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("KYC job poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    void run(Long jobId) {
+        KycJob job = kycJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        try {
+            KycVerification kyc = kycRepository.findById(job.getKycId())
+                    .orElseThrow(() -> new IllegalStateException("KYC " + job.getKycId() + " not found"));
+            User u = userRepository.findById(job.getUserId())
+                    .orElseThrow(() -> new IllegalStateException("User " + job.getUserId() + " not found"));
+
+            if (job.getPdfRenderedAt() == null) {
+                // Pre-render the PDF so the first download is served from the cache
+                KycPdfCache.PdfArtifact pdf = kycPdfCache.resolve(kyc, u);
+                logger.info("KYC PDF ready for user {} at: {}", u.getId(), pdf.path());
+                job.setPdfRenderedAt(LocalDateTime.now());
+                job.setUpdatedAt(job.getPdfRenderedAt());
+                kycJobRepository.save(job);
+            }
+
+            if (job.getEmailSentAt() == null) {
+                // Send submission notification email to admin
+                emailService.sendKycSubmissionNotification(u.getName(), u.getEmail(), u.getId());
+                job.setEmailSentAt(LocalDateTime.now());
+                job.setUpdatedAt(job.getEmailSentAt());
+                kycJobRepository.save(job);
+            }
+
+            job.setStatus(KycJob.STATUS_DONE);
+            job.setLastError(null);
+            job.setUpdatedAt(LocalDateTime.now());
+            kycJobRepository.save(job);
+        } catch (Exception e) {
+            logger.warn("KYC job {} (kyc {}) attempt {} failed: {}", jobId, job.getKycId(), job.getAttempts(), e.getMessage());
+            reschedule(job, e.getMessage(), true);
+        }
+    }
+
+    private void reschedule(KycJob job, String error, boolean countsAsAttempt) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!countsAsAttempt) {
+            job.setAttempts(Math.max(job.getAttempts() - 1, 0));
+        }
+        if (job.getAttempts() >= maxAttempts) {
+            job.setStatus(KycJob.STATUS_FAILED);
+            logger.error("KYC job {} (kyc {}) failed permanently after {} attempts", job.getId(), job.getKycId(), job.getAttempts());
+        } else {
+            job.setStatus(KycJob.STATUS_PENDING);
+            long delay = retryBaseSeconds << Math.min(Math.max(job.getAttempts() - 1, 0), 10);
+            job.setNextAttemptAt(now.plusSeconds(countsAsAttempt ? delay : 0));
+        }
+        job.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), 500)));
+        job.setUpdatedAt(now);
+        kycJobRepository.save(job);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", kycJobRepository.countByStatus(KycJob.STATUS_PENDING));
+        stats.put("running", kycJobRepository.countByStatus(KycJob.STATUS_RUNNING));
+        stats.put("failed", kycJobRepository.countByStatus(KycJob.STATUS_FAILED));
+        stats.put("done", kycJobRepository.countByStatus(KycJob.STATUS_DONE));
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("workers", executor.getMaxPoolSize());
+        stats.put("queued", executor.getThreadPoolExecutor().getQueue().size());
+        return stats;
+    }
+}
@@ -0,0 +1,186 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.KycVerification;
+import com.kwick.backend.model.User;
+import com.kwick.backend.repository.KycRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versioned on-disk cache of KYC PDFs. Each artifact is named after
+ * {@link PdfGenerationService#contentHash}, so a status change or profile edit yields a new file on the
+ * next download while unchanged data keeps being served from the existing one (or a 304).
+ * Every resolve() touches the file it serves, and {@link #sweepSuperseded} deletes files that are neither
+ * the user's current kycPdfUrl nor touched within the grace period, so a download that started before the
+ * switch can finish streaming. The sweep works from the directory and the database alone, so it also picks
+ * up files superseded before a restart or by another replica.
+ */
+@Service
+public class KycPdfCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(KycPdfCache.class);
+    private static final String BASE_DIR = "backend-uploads/kyc";
+
+    public record PdfArtifact(Path path, String hash, long size) {
+        public String etag() {
+            return KycPdfCache.etag(hash);
+        }
+    }
+
+    private final PdfGenerationService pdfGenerationService;
+    private final KycRepository kycRepository;
+    private final long supersededGraceMillis;
+    // Stored urls are relative (BASE_DIR/...); resolved against this directory
+    private final Path root;
+    private final ConcurrentHashMap<String, Object> renderLocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public KycPdfCache(PdfGenerationService pdfGenerationService, KycRepository kycRepository,
+            @Value("${kyc.pdf.superseded-grace-ms:600000}") long supersededGraceMillis) {
+        this(pdfGenerationService, kycRepository, supersededGraceMillis, Path.of(""));
+    }
+
+    KycPdfCache(PdfGenerationService pdfGenerationService, KycRepository kycRepository, long supersededGraceMillis,
+            Path root) {
+        this.pdfGenerationService = pdfGenerationService;
+        this.kycRepository = kycRepository;
+        this.supersededGraceMillis = Math.max(supersededGraceMillis, 0);
+        this.root = root;
+    }
+
+    public String hash(KycVerification kyc, User user) {
+        return pdfGenerationService.contentHash(kyc, user);
+    }
+
+    public static String etag(String hash) {
+        return "\"" + hash + "\"";
+    }
+
+    public PdfArtifact resolve(KycVerification kyc, User user) throws IOException {
+        return resolve(kyc, user, hash(kyc, user));
+    }
+
+    /**
+     * Return the artifact for {@code hash}, rendering it only if no file exists for that version yet.
+     * kycPdfUrl is repointed at the current artifact; the one it replaces is left to the sweeper.
+     */
+    public PdfArtifact resolve(KycVerification kyc, User user, String hash) throws IOException {
+        String url = BASE_DIR + "/" + kyc.getUserId() + "/kyc_" + hash + ".pdf";
+        Path target = root.resolve(url);
+        Object lock = renderLocks.computeIfAbsent(url, k -> new Object());
+        try {
+            synchronized (lock) {
+                if (Files.isRegularFile(target)) {
+                    // Served now: the sweeper leaves it alone for a grace period even if it is (or becomes) stale
+                    Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                } else {
+                    render(kyc, user, target);
+                }
+            }
+        } finally {
+            renderLocks.remove(url, lock);
+        }
+
+        if (!url.equals(kyc.getKycPdfUrl()) && kyc.getId() != null) {
+            kycRepository.updateKycPdfUrl(kyc.getId(), url);
+        }
+        return new PdfArtifact(target, hash, Files.size(target));
+    }
+
+    private void render(KycVerification kyc, User user, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), "kyc_", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                pdfGenerationService.writeKycPdf(kyc, user, out);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("KYC PDF rendered for user {} at: {}", kyc.getUserId(), target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Delete each user's kyc_*.pdf files (this cache's, or the old submit flow's) that are not the stored
+     * kycPdfUrl and were not served within kyc.pdf.superseded-grace-ms. The check is repeated under the
+     * per-url render lock, so a resolve() that has just made a version current again keeps its file.
+     */
+    @Scheduled(fixedDelayString = "${kyc.pdf.sweep-interval-ms:60000}")
+    public void sweepSuperseded() {
+        Path baseDir = root.resolve(BASE_DIR);
+        if (!Files.isDirectory(baseDir)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - supersededGraceMillis;
+        try (DirectoryStream<Path> users = Files.newDirectoryStream(baseDir, Files::isDirectory)) {
+            for (Path userDir : users) {
+                Long userId;
+                try {
+                    userId = Long.parseLong(userDir.getFileName().toString());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                try {
+                    sweepUser(userId, userDir, cutoff);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("KYC PDF sweep failed for user {}: {}", userId, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("KYC PDF sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private void sweepUser(Long userId, Path userDir, long cutoff) throws IOException {
+        String current = null;
+        boolean currentLoaded = false;
+        try (DirectoryStream<Path> pdfs = Files.newDirectoryStream(userDir, "kyc_*.pdf")) {
+            for (Path pdf : pdfs) {
+                if (Files.getLastModifiedTime(pdf).toMillis() > cutoff) {
+                    continue;
+                }
+                // Only looked up for users that have a candidate at all
+                if (!currentLoaded) {
+                    current = kycRepository.findKycPdfUrlByUserId(userId).orElse(null);
+                    currentLoaded = true;
+                }
+                String url = BASE_DIR + "/" + userId + "/" + pdf.getFileName();
+                if (url.equals(current)) {
+                    continue;
+                }
+                Object lock = renderLocks.computeIfAbsent(url, k -> new Object());
+                try {
+                    synchronized (lock) {
+                        if (Files.getLastModifiedTime(pdf).toMillis() <= cutoff
+                                && !url.equals(kycRepository.findKycPdfUrlByUserId(userId).orElse(null))
+                                && Files.deleteIfExists(pdf)) {
+                            logger.info("Removed superseded KYC PDF for user {}: {}", userId, pdf.getFileName());
+                        }
+                    }
+                } finally {
+                    renderLocks.remove(url, lock);
+                }
+            }
+        }
+    }
+}
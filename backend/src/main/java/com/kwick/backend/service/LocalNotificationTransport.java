@@ -0,0 +1,49 @@
+package com.kwick.backend.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Single-instance transport: events are numbered and delivered in-process on the publishing thread.
+ * The default, and what tests use. Numbering starts from the wall clock, so it keeps increasing across
+ * restarts and a socket resuming from before a deploy is told to resync instead of being handed a delta
+ * computed against a different run's numbers.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.transport", havingValue = "local", matchIfMissing = true)
+public class LocalNotificationTransport implements NotificationTransport {
+
+    private final AtomicLong sequence;
+    private volatile Consumer<NotificationEvent> sink = event -> { };
+
+    public LocalNotificationTransport() {
+        this(System.currentTimeMillis());
+    }
+
+    LocalNotificationTransport(long lastSeq) {
+        this.sequence = new AtomicLong(lastSeq);
+    }
+
+    @Override
+    public void publish(NotificationEvent event) {
+        sink.accept(event.withSeq(sequence.incrementAndGet()));
+    }
+
+    @Override
+    public void subscribe(Consumer<NotificationEvent> sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", "local");
+        stats.put("lastSeq", sequence.get());
+        return stats;
+    }
+}
@@ -1,15 +1,18 @@
 package com.kwick.backend.service;
 
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import com.kwick.backend.exception.InvalidUploadException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 
+// Legacy timestamped layout; the default local backend is ContentAddressedStorageService
 @Service
-@ConditionalOnProperty(name = "aws.s3.enabled", havingValue = "false", matchIfMissing = true)
+@ConditionalOnExpression("!${aws.s3.enabled:false} && !${storage.content-addressed:true}")
 public class LocalStorageService implements StorageService {
 
     private final Path baseDir = Path.of(System.getProperty("user.dir"), "backend-uploads");
@@ -19,13 +22,22 @@ public class LocalStorageService implements StorageService {
     }
 
     @Override
-    public String storeFile(MultipartFile file, String subpath) throws Exception {
+    public StoredFile ingest(MultipartFile file, String subpath) throws Exception {
+        if (file.getSize() > UploadIngestStream.MAX_KYC_BYTES) {
+            throw new InvalidUploadException("File too large (max 5MB)");
+        }
         Path destDir = baseDir.resolve(subpath == null ? "" : subpath);
         Files.createDirectories(destDir);
         Path dest = destDir.resolve(System.currentTimeMillis() + "-" + file.getOriginalFilename());
-        try (var in = file.getInputStream()) {
-            Files.copy(in, dest, StandardCopyOption.REPLACE_EXISTING);
+        try (UploadIngestStream in = UploadIngestStream.open(file.getInputStream(), UploadIngestStream.MAX_KYC_BYTES)) {
+            try {
+                Files.copy(in, dest, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                // Don't leave a truncated file behind when the stream is rejected part-way
+                Files.deleteIfExists(dest);
+                throw e;
+            }
+            return new StoredFile(dest.toAbsolutePath().toString(), in.contentType(), in.size(), in.sha256());
         }
-        return dest.toAbsolutePath().toString();
     }
 }
@@ -0,0 +1,337 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.MailDeadLetter;
+import com.kwick.backend.repository.MailDeadLetterRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.MailSender;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound mail pipeline. Callers hand messages to {@link #dispatch} and return immediately; a fixed set of
+ * worker threads drain a bounded queue in batches, sending each batch over one SMTP connection
+ * (JavaMailSenderImpl opens a single Transport per {@code send(SimpleMailMessage...)} call).
+ * Failed messages are retried with exponential backoff and end up in mail_dead_letter when retries run
+ * out or when the queue is full. Dead letters for rejected messages are written from the retry thread, never
+ * the caller's; if that backlog itself exceeds the queue capacity further rejects are counted and dropped.
+ */
+@Component
+public class MailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private record PendingDeadLetter(OutboundMail mail, String error) {
+    }
+
+    private record OutboundMail(SimpleMailMessage message, int attempts) {
+    }
+
+    private final MailSender mailSender;
+    private final MailDeadLetterRepository deadLetterRepository;
+    private final BlockingQueue<OutboundMail> queue;
+    private final int capacity;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long enqueueTimeoutMillis;
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mail-retry");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ConcurrentLinkedQueue<OutboundMail> pendingRetries = new ConcurrentLinkedQueue<>();
+    // Queue-full rejects waiting for the mail-retry thread to store them; counted to stay within capacity
+    private final ConcurrentLinkedQueue<PendingDeadLetter> deadLetterBacklog = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingDeadLetters = new AtomicInteger();
+    private volatile boolean running;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+
+    @Autowired
+    public MailDispatcher(ObjectProvider<MailSender> mailSender, MailDeadLetterRepository deadLetterRepository,
+            @Value("${mail.dispatch.queue-capacity:500}") int capacity,
+            @Value("${mail.dispatch.workers:2}") int workers,
+            @Value("${mail.dispatch.batch-size:20}") int batchSize,
+            @Value("${mail.dispatch.max-attempts:4}") int maxAttempts,
+            @Value("${mail.dispatch.retry-base-ms:2000}") long retryBaseMillis,
+            @Value("${mail.dispatch.enqueue-timeout-ms:50}") long enqueueTimeoutMillis) {
+        this(mailSender.getIfAvailable(), deadLetterRepository, capacity, workers, batchSize, maxAttempts,
+                retryBaseMillis, enqueueTimeoutMillis);
+    }
+
+    MailDispatcher(MailSender mailSender, MailDeadLetterRepository deadLetterRepository, int capacity, int workers,
+            int batchSize, int maxAttempts, long retryBaseMillis, long enqueueTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.deadLetterRepository = deadLetterRepository;
+        this.capacity = Math.max(capacity, 1);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.workers = Math.max(workers, 1);
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBaseMillis = Math.max(retryBaseMillis, 0);
+        this.enqueueTimeoutMillis = Math.max(enqueueTimeoutMillis, 0);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(this::workLoop, "mail-dispatch-" + i);
+            t.setDaemon(true);
+            t.start();
+            workerThreads.add(t);
+        }
+    }
+
+    /**
+     * Stop accepting work, let the workers flush what is already queued, then exit.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        retryScheduler.shutdownNow();
+        for (Thread t : workerThreads) {
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workerThreads.clear();
+        // Retries still waiting on their backoff would otherwise be lost
+        OutboundMail pending;
+        while ((pending = pendingRetries.poll()) != null) {
+            deadLetter(pending, "shutdown before retry");
+        }
+        // As would queue-full rejects whose write shutdownNow() cancelled
+        while (deadLetterNext()) {
+        }
+    }
+
+    public boolean isEnabled() {
+        return mailSender != null;
+    }
+
+    /**
+     * Queue a message for delivery. Waits at most mail.dispatch.enqueue-timeout-ms for room; if the queue
+     * is still full the message is dead-lettered in the background and {@code false} is returned, so callers
+     * never block on SMTP or on the database.
+     */
+    public boolean dispatch(SimpleMailMessage message) {
+        if (mailSender == null) {
+            logger.warn("JavaMailSender not configured. Dropping email to: {}", recipients(message));
+            return false;
+        }
+        try {
+            if (queue.offer(new OutboundMail(message, 0), enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                enqueued.increment();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        logger.warn("Mail queue full ({}), dead-lettering email to: {}", capacity, recipients(message));
+        deadLetterLater(new OutboundMail(message, 0), "queue full");
+        return false;
+    }
+
+    private void deadLetterLater(OutboundMail mail, String error) {
+        if (pendingDeadLetters.incrementAndGet() > capacity) {
+            pendingDeadLetters.decrementAndGet();
+            drop(mail);
+            return;
+        }
+        deadLetterBacklog.add(new PendingDeadLetter(mail, error));
+        try {
+            retryScheduler.execute(this::deadLetterNext);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: store it on this thread rather than leave it behind stop()'s drain
+            deadLetterNext();
+        }
+    }
+
+    private boolean deadLetterNext() {
+        PendingDeadLetter next = deadLetterBacklog.poll();
+        if (next == null) {
+            return false;
+        }
+        try {
+            deadLetter(next.mail(), next.error());
+        } finally {
+            pendingDeadLetters.decrementAndGet();
+        }
+        return true;
+    }
+
+    private void drop(OutboundMail mail) {
+        dropped.increment();
+        logger.error("Dead-letter backlog full, dropping email to: {}", recipients(mail.message()));
+    }
+
+    private void workLoop() {
+        List<OutboundMail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OutboundMail first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Mail worker error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<OutboundMail> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = batch.get(i).message();
+        }
+        long start = System.nanoTime();
+        Map<Object, Exception> failed = Map.of();
+        Exception batchError = null;
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            batchError = e;
+        } catch (MailException e) {
+            batchError = e;
+        }
+        long elapsed = System.nanoTime() - start;
+        batches.increment();
+        sendNanos.add(elapsed);
+        maxBatchNanos.accumulateAndGet(elapsed, Math::max);
+
+        for (OutboundMail mail : batch) {
+            Exception error = batchError == null ? null
+                    : failed.isEmpty() ? batchError : failed.get(mail.message());
+            if (error == null) {
+                sent.increment();
+            } else {
+                failures.increment();
+                retryOrDeadLetter(mail, error);
+            }
+        }
+    }
+
+    private void retryOrDeadLetter(OutboundMail mail, Exception error) {
+        int attempts = mail.attempts() + 1;
+        OutboundMail next = new OutboundMail(mail.message(), attempts);
+        if (attempts >= maxAttempts || !running) {
+            logger.error("Giving up on email to {} after {} attempts: {}", recipients(mail.message()), attempts, error.getMessage());
+            deadLetter(next, error.getMessage());
+            return;
+        }
+        long delay = retryBaseMillis << Math.min(attempts - 1, 10);
+        logger.warn("Email to {} failed (attempt {}), retrying in {} ms: {}", recipients(mail.message()), attempts, delay, error.getMessage());
+        retries.increment();
+        pendingRetries.add(next);
+        try {
+            retryScheduler.schedule(() -> {
+                if (!pendingRetries.remove(next)) {
+                    return;
+                }
+                if (!queue.offer(next)) {
+                    rejected.increment();
+                    deadLetter(next, "queue full on retry");
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            pendingRetries.remove(next);
+            deadLetter(next, error.getMessage());
+        }
+    }
+
+    private void deadLetter(OutboundMail mail, String error) {
+        try {
+            SimpleMailMessage m = mail.message();
+            MailDeadLetter dl = new MailDeadLetter();
+            dl.setRecipients(truncate(recipients(m), 500));
+            dl.setSubject(truncate(m.getSubject(), 255));
+            dl.setBody(m.getText());
+            dl.setAttempts(mail.attempts());
+            dl.setLastError(truncate(error, 500));
+            deadLetterRepository.save(dl);
+        } catch (Exception e) {
+            logger.error("Could not store dead-lettered email to {}: {}", recipients(mail.message()), e.getMessage());
+        } finally {
+            deadLettered.increment();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long b = batches.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", capacity);
+        stats.put("workers", workers);
+        stats.put("enqueued", enqueued.sum());
+        stats.put("sent", sent.sum());
+        stats.put("failures", failures.sum());
+        stats.put("retries", retries.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("deadLettered", deadLettered.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("batches", b);
+        stats.put("avgBatchMillis", b == 0 ? 0.0 : sendNanos.sum() / 1_000_000.0 / b);
+        stats.put("maxBatchMillis", TimeUnit.NANOSECONDS.toMillis(maxBatchNanos.get()));
+        return stats;
+    }
+
+    private static String recipients(SimpleMailMessage m) {
+        return m.getTo() == null ? "" : String.join(",", m.getTo());
+    }
+
+    private static String truncate(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
+    }
+}
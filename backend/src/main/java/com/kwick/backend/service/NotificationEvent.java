@@ -0,0 +1,74 @@
+package com.kwick.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * An admin dashboard notification. The wire format is unchanged from the hand-built strings it replaces:
+ * {@code {"type":"contact","event":"status","id":5,"status":"resolved"}}, and for KYC
+ * {@code {"type":"kyc","event":"status","kycId":3,"userId":9,"status":"approved"}}. Once the fan-out
+ * transport has assigned a cluster-wide sequence number it is appended as {@code "seq"}.
+ */
+public record NotificationEvent(Topic topic, String event, long id, Long userId, String status, long seq) {
+
+    public enum Topic {
+        CONTACT, CALLBACK, CTA, KYC;
+
+        public String wireName() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    public static NotificationEvent created(Topic topic, long id) {
+        return new NotificationEvent(topic, "created", id, null, null, 0);
+    }
+
+    public static NotificationEvent status(Topic topic, long id, String status) {
+        return new NotificationEvent(topic, "status", id, null, status, 0);
+    }
+
+    public static NotificationEvent kycStatus(long kycId, long userId, String status) {
+        return new NotificationEvent(Topic.KYC, "status", kycId, userId, status, 0);
+    }
+
+    public NotificationEvent withSeq(long seq) {
+        return new NotificationEvent(topic, event, id, userId, status, seq);
+    }
+
+    /**
+     * Serialize once; the resulting frame is shared by every session it is sent to.
+     * Values are escaped, so a status can no longer break the JSON.
+     */
+    public String toJson() {
+        StringWriter out = new StringWriter(96);
+        try (JsonGenerator g = JSON.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeStringField("type", topic.wireName());
+            g.writeStringField("event", event);
+            if (topic == Topic.KYC) {
+                g.writeNumberField("kycId", id);
+                if (userId != null) {
+                    g.writeNumberField("userId", userId);
+                }
+            } else {
+                g.writeNumberField("id", id);
+            }
+            if (status != null) {
+                g.writeStringField("status", status);
+            }
+            if (seq > 0) {
+                g.writeNumberField("seq", seq);
+            }
+            g.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.kwick.backend.service;
+
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring of the most recently delivered notification events, with the frame each was sent as, so a
+ * reconnecting socket can be sent just what it missed. Not thread-safe: NotificationWebSocketHandler guards it
+ * with the same lock it delivers under, which is what makes "replay, then go live" gap-free.
+ */
+public class NotificationReplayBuffer {
+
+    public record Entry(NotificationEvent event, TextMessage frame) { }
+
+    private final Entry[] ring;
+    private int head;
+    private int size;
+    // Every event with a higher seq than this is still in the ring; -1 until the first append
+    private long floor = -1;
+    private long lastSeq;
+
+    public NotificationReplayBuffer(int capacity) {
+        this.ring = new Entry[Math.max(capacity, 1)];
+    }
+
+    public void append(NotificationEvent event, TextMessage frame) {
+        if (size == ring.length) {
+            floor = ring[head].event().seq();
+        } else if (floor < 0) {
+            floor = event.seq() - 1;
+        }
+        ring[head] = new Entry(event, frame);
+        head = (head + 1) % ring.length;
+        size = Math.min(size + 1, ring.length);
+        lastSeq = event.seq();
+    }
+
+    /**
+     * Entries after {@code seq}, oldest first; null if the ring no longer reaches back that far
+     * (or {@code seq} is from a numbering this process never issued).
+     */
+    public List<Entry> after(long seq) {
+        if (!reaches(seq)) {
+            return null;
+        }
+        List<Entry> missed = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Entry entry = ring[(head - size + i + ring.length) % ring.length];
+            if (entry.event().seq() > seq) {
+                missed.add(entry);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * Whether {@link #after} would answer for {@code seq}.
+     */
+    public boolean reaches(long seq) {
+        return floor >= 0 && seq >= floor && seq <= lastSeq;
+    }
+
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+}
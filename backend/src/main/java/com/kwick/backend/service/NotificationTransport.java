@@ -0,0 +1,35 @@
+package com.kwick.backend.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Fans notification events out to every backend replica. {@link NotificationsPublisher} hands each event to
+ * {@link #publish} from its dispatcher thread; the transport stamps it with a cluster-wide sequence number and
+ * calls the registered sink exactly once per event on every replica, including the one that published it.
+ * Selected with {@code notifications.transport} ({@code local} or {@code jdbc}).
+ */
+public interface NotificationTransport {
+
+    /**
+     * Make an event visible to all replicas. May block briefly (e.g. a single INSERT) but never on sockets.
+     */
+    void publish(NotificationEvent event);
+
+    /**
+     * Register where this replica's events go, in sequence order. Called once at startup.
+     */
+    void subscribe(Consumer<NotificationEvent> sink);
+
+    /**
+     * Events with {@code afterSeq < seq <= max(deliveredUpTo, what the sink has already been given)}, oldest first,
+     * at most {@code limit}, from durable storage; null if that range is not retained. Lets a reconnecting socket
+     * catch up when it has been away longer than the in-memory replay buffer covers.
+     */
+    default List<NotificationEvent> history(long afterSeq, long deliveredUpTo, int limit) {
+        return null;
+    }
+
+    Map<String, Object> stats();
+}
@@ -1,37 +1,545 @@
 package com.kwick.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Notification sockets. Each session gets its own bounded outbox drained by the send pool, one drain
+ * at a time per session, so frames stay in order, {@code sendMessage} is never called concurrently and a
+ * stalled browser only ever holds up itself. A session whose send has been stuck longer than
+ * {@code sendTimeLimit}, or whose outbox overflows under the "terminate" policy, is closed and evicted.
+ * Eviction interrupts the worker still blocked in {@code sendMessage}, and Tomcat's blocking-send timeout is
+ * set to the same limit, so wedged browsers cannot hold the send pool however many of them there are.
+ *
+ * Events are fanned out through a topic -> sessions index, so only subscribers are touched. Clients send
+ * {@code {"action":"subscribe","topics":["kyc","user:42"]}} (or "unsubscribe"). Sockets identify themselves
+ * with a one-time ticket (see NotificationHandshakeInterceptor); anonymous sockets receive no events. Admin
+ * sockets start subscribed to every admin topic; a signed-in user starts on (and may only use)
+ * {@code user:<their id>}, which carries their own KYC status changes.
+ *
+ * Every event frame carries the transport's {@code seq}. A client reconnecting with {@code ?since=<last seq>}
+ * first gets {@code {"type":"replay","since":N,"count":k}} followed by the k frames it missed on its topics,
+ * served from a ring of recent events or, past that, the transport's durable log. If neither reaches back far
+ * enough it gets {@code {"type":"resync"}} and should reload its lists as before. The durable log is read before
+ * taking the delivery lock; registration and the replay (that page plus whatever the ring gained meanwhile) then
+ * happen under it, so nothing published meanwhile is lost or sent twice and deliveries never wait on SQL.
+ */
 @Component
 public class NotificationWebSocketHandler extends TextWebSocketHandler {
 
-    private final Set<WebSocketSession> sessions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private static final Logger logger = LoggerFactory.getLogger(NotificationWebSocketHandler.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Session attributes filled in by NotificationHandshakeInterceptor
+    public static final String ATTR_USER_ID = "userId";
+    public static final String ATTR_ROLE = "userRole";
+    public static final String ATTR_RESUME_FROM = "resumeFrom";
+
+    public static final Set<String> ADMIN_TOPICS = Set.of("contact", "callback", "cta", "kyc");
+    private static final String USER_TOPIC_PREFIX = "user:";
+    // Tomcat's per-session cap on a blocking send (default 20s)
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    public enum OverflowPolicy {
+        /** Close the session; the dashboard reconnects and reloads. */
+        TERMINATE,
+        /** Discard the oldest queued frame and keep the session. */
+        DROP_OLDEST
+    }
+
+    private static final class Outbox {
+        final WebSocketSession session;
+        final Long userId;
+        final boolean admin;
+        final Set<String> topics = ConcurrentHashMap.newKeySet();
+        final ArrayDeque<TextMessage> queue = new ArrayDeque<>();
+        boolean draining;
+        boolean evicted;
+        // Worker currently inside sendMessage, so eviction can interrupt it
+        Thread sender;
+        volatile long sendStartedNanos;
+
+        Outbox(WebSocketSession session, Long userId, boolean admin) {
+            this.session = session;
+            this.userId = userId;
+            this.admin = admin;
+        }
+    }
+
+    private final Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+    private final Map<String, Set<Outbox>> subscribers = new ConcurrentHashMap<>();
+    private final Executor sendExecutor;
+    private final int maxQueued;
+    private final long sendTimeLimitNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final NotificationTransport transport;
+    // Also the delivery lock: deliver() and resume() run under it
+    private final NotificationReplayBuffer replay;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder resumes = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+
+    @Autowired
+    public NotificationWebSocketHandler(@Qualifier("notificationSendExecutor") Executor sendExecutor,
+            @Value("${notifications.ws.max-queued:256}") int maxQueued,
+            @Value("${notifications.ws.send-time-limit-ms:5000}") long sendTimeLimitMs,
+            @Value("${notifications.ws.overflow:terminate}") String overflowPolicy,
+            NotificationTransport transport,
+            @Value("${notifications.replay.capacity:1000}") int replayCapacity) {
+        this(sendExecutor, maxQueued, sendTimeLimitMs, OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase().replace('-', '_')),
+                transport, replayCapacity);
+    }
+
+    NotificationWebSocketHandler(Executor sendExecutor, int maxQueued, long sendTimeLimitMs, OverflowPolicy overflowPolicy) {
+        this(sendExecutor, maxQueued, sendTimeLimitMs, overflowPolicy, null, 1000);
+    }
+
+    NotificationWebSocketHandler(Executor sendExecutor, int maxQueued, long sendTimeLimitMs, OverflowPolicy overflowPolicy,
+            NotificationTransport transport, int replayCapacity) {
+        this.sendExecutor = sendExecutor;
+        this.maxQueued = Math.max(maxQueued, 1);
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(sendTimeLimitMs, 1));
+        this.overflowPolicy = overflowPolicy;
+        this.transport = transport;
+        this.replay = new NotificationReplayBuffer(replayCapacity);
+    }
 
     @Override
     public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
-        sessions.add(session);
+        Object userId = session.getAttributes().get(ATTR_USER_ID);
+        Object role = session.getAttributes().get(ATTR_ROLE);
+        Outbox outbox = new Outbox(session, userId instanceof Long id ? id : null, "admin".equalsIgnoreCase(String.valueOf(role)));
+        Object since = session.getAttributes().get(ATTR_RESUME_FROM);
+        boundSendTime(session);
+        // Past the ring, read the durable log up to what has been delivered so far, without the lock held
+        List<NotificationReplayBuffer.Entry> history = null;
+        long historyUpTo = 0;
+        if (since instanceof Long seq && transport != null) {
+            synchronized (replay) {
+                historyUpTo = replay.reaches(seq) ? -1 : replay.lastSeq();
+            }
+            if (historyUpTo >= 0) {
+                history = history(seq, historyUpTo);
+            }
+        }
+        synchronized (replay) {
+            outboxes.put(session.getId(), outbox);
+            if (outbox.admin) {
+                ADMIN_TOPICS.forEach(topic -> subscribe(outbox, topic));
+            }
+            if (outbox.userId != null) {
+                subscribe(outbox, USER_TOPIC_PREFIX + outbox.userId);
+            }
+            if (since instanceof Long seq) {
+                resume(outbox, seq, history, historyUpTo);
+            }
+        }
+    }
+
+    private void boundSendTime(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession
+                && nativeSession.getNativeSession(jakarta.websocket.Session.class) instanceof jakarta.websocket.Session ws) {
+            ws.getUserProperties().put(BLOCKING_SEND_TIMEOUT, TimeUnit.NANOSECONDS.toMillis(sendTimeLimitNanos));
+        }
+    }
+
+    // Caller holds the replay lock
+    private void resume(Outbox outbox, long since, List<NotificationReplayBuffer.Entry> history, long historyUpTo) {
+        resumes.increment();
+        List<NotificationReplayBuffer.Entry> missed = missedSince(since, history, historyUpTo);
+        List<TextMessage> frames = new ArrayList<>();
+        if (missed != null) {
+            for (NotificationReplayBuffer.Entry entry : missed) {
+                if (wants(outbox, entry.event())) {
+                    frames.add(entry.frame());
+                }
+            }
+        }
+        long now = System.nanoTime();
+        // A delta that would overflow the outbox is no better than a reload
+        if (missed == null || frames.size() >= maxQueued) {
+            resyncs.increment();
+            offer(outbox, new TextMessage(JSON.createObjectNode().put("type", "resync").put("since", since).toString()), now);
+            return;
+        }
+        offer(outbox, new TextMessage(JSON.createObjectNode().put("type", "replay").put("since", since)
+                .put("count", frames.size()).toString()), now);
+        for (TextMessage frame : frames) {
+            offer(outbox, frame, now);
+        }
+        replayed.add(frames.size());
+    }
+
+    // Caller holds the replay lock. The ring first; else the history page followed by what the ring gained since
+    private List<NotificationReplayBuffer.Entry> missedSince(long since, List<NotificationReplayBuffer.Entry> history,
+            long historyUpTo) {
+        List<NotificationReplayBuffer.Entry> missed = replay.after(since);
+        if (missed != null || history == null) {
+            return missed;
+        }
+        List<NotificationReplayBuffer.Entry> tail = replay.lastSeq() == historyUpTo ? List.of() : replay.after(historyUpTo);
+        if (tail == null) {
+            return null;
+        }
+        List<NotificationReplayBuffer.Entry> entries = new ArrayList<>(history.size() + tail.size());
+        entries.addAll(history);
+        entries.addAll(tail);
+        return entries;
+    }
+
+    // The transport's durable log between since and upTo, or null if it has none or it would not fit the outbox
+    private List<NotificationReplayBuffer.Entry> history(long since, long upTo) {
+        try {
+            // A full page may be truncated, and would not fit the outbox anyway
+            List<NotificationEvent> events = transport.history(since, upTo, maxQueued);
+            if (events == null || events.size() >= maxQueued) {
+                return null;
+            }
+            List<NotificationReplayBuffer.Entry> entries = new ArrayList<>(events.size());
+            for (NotificationEvent event : events) {
+                entries.add(new NotificationReplayBuffer.Entry(event, new TextMessage(event.toJson())));
+            }
+            return entries;
+        } catch (RuntimeException e) {
+            logger.warn("Notification history lookup failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean wants(Outbox outbox, NotificationEvent event) {
+        return outbox.topics.contains(event.topic().wireName())
+                || (event.userId() != null && outbox.topics.contains(USER_TOPIC_PREFIX + event.userId()));
     }
 
     @Override
-    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull org.springframework.web.socket.CloseStatus status) throws Exception {
-        sessions.remove(session);
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) throws Exception {
+        Outbox outbox = outboxes.remove(session.getId());
+        if (outbox != null) {
+            unsubscribeAll(outbox);
+            synchronized (outbox) {
+                outbox.evicted = true;
+                discard(outbox);
+            }
+        }
+    }
+
+    /**
+     * Subscription requests: {@code {"action":"subscribe"|"unsubscribe","topics":[...]}}. The reply lists the
+     * session's topics afterwards plus any it was not allowed to join.
+     */
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+        Outbox outbox = outboxes.get(session.getId());
+        if (outbox == null) {
+            return;
+        }
+        String action;
+        List<String> requested = new ArrayList<>();
+        try {
+            JsonNode request = JSON.readTree(message.getPayload());
+            action = request.path("action").asText("");
+            request.path("topics").forEach(t -> requested.add(t.asText().trim().toLowerCase()));
+            if (request.hasNonNull("topic")) {
+                requested.add(request.get("topic").asText().trim().toLowerCase());
+            }
+        } catch (Exception e) {
+            reply(outbox, "error", "Malformed request", null);
+            return;
+        }
+
+        List<String> denied = new ArrayList<>();
+        switch (action) {
+            case "subscribe" -> requested.forEach(topic -> {
+                if (mayJoin(outbox, topic)) {
+                    subscribe(outbox, topic);
+                } else {
+                    denied.add(topic);
+                }
+            });
+            case "unsubscribe" -> requested.forEach(topic -> unsubscribe(outbox, topic));
+            default -> {
+                reply(outbox, "error", "Unknown action: " + action, null);
+                return;
+            }
+        }
+        reply(outbox, "subscriptions", null, denied);
+    }
+
+    private static boolean mayJoin(Outbox outbox, String topic) {
+        if (topic.startsWith(USER_TOPIC_PREFIX)) {
+            return outbox.admin || (outbox.userId != null && topic.equals(USER_TOPIC_PREFIX + outbox.userId));
+        }
+        return outbox.admin && ADMIN_TOPICS.contains(topic);
+    }
+
+    private void subscribe(Outbox outbox, String topic) {
+        subscribers.compute(topic, (k, set) -> {
+            Set<Outbox> s = set != null ? set : ConcurrentHashMap.newKeySet();
+            s.add(outbox);
+            return s;
+        });
+        outbox.topics.add(topic);
+    }
+
+    private void unsubscribe(Outbox outbox, String topic) {
+        outbox.topics.remove(topic);
+        subscribers.computeIfPresent(topic, (k, set) -> {
+            set.remove(outbox);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void unsubscribeAll(Outbox outbox) {
+        for (String topic : List.copyOf(outbox.topics)) {
+            unsubscribe(outbox, topic);
+        }
+    }
+
+    private void reply(Outbox outbox, String type, String message, List<String> denied) {
+        ObjectNode body = JSON.createObjectNode().put("type", type);
+        if (message != null) {
+            body.put("message", message);
+        }
+        ArrayNode topics = body.putArray("topics");
+        new TreeSet<>(outbox.topics).forEach(topics::add);
+        if (denied != null && !denied.isEmpty()) {
+            ArrayNode rejected = body.putArray("denied");
+            denied.forEach(rejected::add);
+        }
+        offer(outbox, new TextMessage(body.toString()), System.nanoTime());
+    }
+
+    /**
+     * Queue {@code frame} for the sessions subscribed to the event's topic and, for events about a user,
+     * to that user's topic. Sessions on both get it once. Numbered events are kept for replay.
+     * Never blocks on a socket.
+     */
+    public void deliver(@NonNull NotificationEvent event, @NonNull TextMessage frame) {
+        long now = System.nanoTime();
+        String topic = event.topic().wireName();
+        int n = 0;
+        synchronized (replay) {
+            if (event.seq() > 0) {
+                replay.append(event, frame);
+            }
+            for (Outbox outbox : subscribers.getOrDefault(topic, Set.of())) {
+                offer(outbox, frame, now);
+                n++;
+            }
+            if (event.userId() != null) {
+                for (Outbox outbox : subscribers.getOrDefault(USER_TOPIC_PREFIX + event.userId(), Set.of())) {
+                    if (!outbox.topics.contains(topic)) {
+                        offer(outbox, frame, now);
+                        n++;
+                    }
+                }
+            }
+        }
+        deliveries.add(n);
     }
 
     public void broadcast(@NonNull String json) {
-        TextMessage msg = new TextMessage(json);
-        for (WebSocketSession s : sessions) {
-            if (s.isOpen()) {
-                try { s.sendMessage(msg); } catch (IOException ignored) {}
+        broadcast(new TextMessage(json));
+    }
+
+    /**
+     * Queue the same pre-serialized frame on every session's outbox, regardless of subscriptions.
+     * Never blocks on a socket.
+     */
+    public void broadcast(@NonNull TextMessage msg) {
+        long now = System.nanoTime();
+        for (Outbox outbox : outboxes.values()) {
+            offer(outbox, msg, now);
+        }
+    }
+
+    private void offer(Outbox outbox, TextMessage msg, long now) {
+        boolean schedule;
+        synchronized (outbox) {
+            if (outbox.evicted) {
+                return;
+            }
+            long started = outbox.sendStartedNanos;
+            if (started != 0 && now - started > sendTimeLimitNanos) {
+                evict(outbox, "send blocked for over " + TimeUnit.NANOSECONDS.toMillis(sendTimeLimitNanos) + "ms");
+                return;
             }
+            if (outbox.queue.size() >= maxQueued) {
+                if (overflowPolicy == OverflowPolicy.TERMINATE) {
+                    evict(outbox, "outbox full (" + maxQueued + " frames)");
+                    return;
+                }
+                outbox.queue.poll();
+                queued.decrementAndGet();
+                dropped.increment();
+            }
+            outbox.queue.add(msg);
+            maxQueueDepth.accumulateAndGet(outbox.queue.size(), Math::max);
+            queued.incrementAndGet();
+            schedule = !outbox.draining;
+            outbox.draining = true;
+        }
+        if (schedule) {
+            try {
+                sendExecutor.execute(() -> drain(outbox));
+            } catch (RejectedExecutionException e) {
+                // Pool saturated: leave the frames queued, the next broadcast schedules the drain again
+                synchronized (outbox) {
+                    outbox.draining = false;
+                }
+            }
+        }
+    }
+
+    private void drain(Outbox outbox) {
+        while (true) {
+            TextMessage next;
+            synchronized (outbox) {
+                next = outbox.evicted ? null : outbox.queue.poll();
+                if (next == null) {
+                    outbox.draining = false;
+                    return;
+                }
+                queued.decrementAndGet();
+                outbox.sender = Thread.currentThread();
+            }
+            outbox.sendStartedNanos = System.nanoTime();
+            Exception failure = null;
+            try {
+                outbox.session.sendMessage(next);
+                sent.increment();
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                outbox.sendStartedNanos = 0;
+            }
+            synchronized (outbox) {
+                outbox.sender = null;
+                if (failure != null) {
+                    evict(outbox, "send failed: " + failure.getMessage());
+                    outbox.draining = false;
+                }
+            }
+            // An eviction may have interrupted this send just as it finished; don't carry that into the next one
+            Thread.interrupted();
+            if (failure != null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Evict sessions stuck in a send past the time limit even when no new frames arrive to notice it.
+     */
+    @Scheduled(fixedDelayString = "${notifications.ws.stall-check-ms:1000}")
+    public void evictStalled() {
+        long now = System.nanoTime();
+        for (Outbox outbox : outboxes.values()) {
+            long started = outbox.sendStartedNanos;
+            if (started != 0 && now - started > sendTimeLimitNanos) {
+                synchronized (outbox) {
+                    evict(outbox, "send blocked for over " + TimeUnit.NANOSECONDS.toMillis(sendTimeLimitNanos) + "ms");
+                }
+            }
+        }
+    }
+
+    // Caller holds the outbox lock
+    private void evict(Outbox outbox, String reason) {
+        if (outbox.evicted) {
+            return;
+        }
+        outbox.evicted = true;
+        if (outbox.sender != null) {
+            // Frees the send worker; the socket is being closed anyway
+            outbox.sender.interrupt();
+        }
+        discard(outbox);
+        outboxes.remove(outbox.session.getId(), outbox);
+        unsubscribeAll(outbox);
+        evictions.increment();
+        logger.info("Evicting notification session {}: {}", outbox.session.getId(), reason);
+        // Closing can itself block on a wedged socket, so never do it on the broadcasting thread
+        Thread.ofVirtual().name("ws-evict").start(() -> {
+            try {
+                outbox.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Close of evicted session {} failed: {}", outbox.session.getId(), e.getMessage());
+            }
+        });
+    }
+
+    // Caller holds the outbox lock
+    private void discard(Outbox outbox) {
+        int n = outbox.queue.size();
+        outbox.queue.clear();
+        queued.addAndGet(-n);
+        dropped.add(n);
+    }
+
+    public int sessionCount() {
+        return outboxes.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", outboxes.size());
+        stats.put("queued", queued.get());
+        stats.put("maxQueueDepth", maxQueueDepth.get());
+        stats.put("maxQueued", maxQueued);
+        stats.put("overflowPolicy", overflowPolicy.name().toLowerCase());
+        stats.put("sent", sent.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("deliveries", deliveries.sum());
+        synchronized (replay) {
+            stats.put("replayBuffered", replay.size());
+            stats.put("replayLastSeq", replay.lastSeq());
         }
+        stats.put("resumes", resumes.sum());
+        stats.put("replayedFrames", replayed.sum());
+        stats.put("resyncs", resyncs.sum());
+        Map<String, Integer> topics = new LinkedHashMap<>();
+        ADMIN_TOPICS.stream().sorted().forEach(t -> topics.put(t, subscribers.getOrDefault(t, Set.of()).size()));
+        stats.put("topicSubscribers", topics);
+        stats.put("userTopics", subscribers.keySet().stream().filter(t -> t.startsWith(USER_TOPIC_PREFIX)).count());
+        return stats;
     }
 }
@@ -1,35 +1,154 @@
 package com.kwick.backend.service;
 
+import com.kwick.backend.service.NotificationEvent.Topic;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes admin dashboard events. Calls only enqueue a typed {@link NotificationEvent} and return, so
+ * controller threads holding a JPA transaction never touch a socket. A single dispatcher thread hands each
+ * event to the {@link NotificationTransport}, which numbers it and fans it out to every replica; each replica
+ * then serializes it once and hands the same frame to every local session subscribed to its topic.
+ * When the queue is full the event is dropped: notifications are a hint to refresh, not the source of truth.
+ */
 @Service
 public class NotificationsPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationsPublisher.class);
+
     private final NotificationWebSocketHandler handler;
+    private final NotificationTransport transport;
+    private final BlockingQueue<NotificationEvent> queue;
+    private final int capacity;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failures = new LongAdder();
 
-    public NotificationsPublisher(NotificationWebSocketHandler handler) {
+    @Autowired
+    public NotificationsPublisher(NotificationWebSocketHandler handler, NotificationTransport transport,
+            @Value("${notifications.dispatch.queue-capacity:1000}") int capacity) {
         this.handler = handler;
+        this.transport = transport;
+        this.capacity = Math.max(capacity, 1);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        transport.subscribe(this::deliver);
+        dispatcher = new Thread(this::dispatchLoop, "notifications-dispatch");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (dispatcher != null) {
+            // The loop flushes what is already queued before exiting
+            try {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dispatcher = null;
+        }
     }
 
     public void contactCreated(long id) {
-        handler.broadcast("{\"type\":\"contact\",\"event\":\"created\",\"id\":" + id + "}");
+        publish(NotificationEvent.created(Topic.CONTACT, id));
     }
     public void contactStatus(long id, String status) {
-        handler.broadcast("{\"type\":\"contact\",\"event\":\"status\",\"id\":" + id + ",\"status\":\"" + status + "\"}");
+        publish(NotificationEvent.status(Topic.CONTACT, id, status));
     }
     public void callbackCreated(long id) {
-        handler.broadcast("{\"type\":\"callback\",\"event\":\"created\",\"id\":" + id + "}");
+        publish(NotificationEvent.created(Topic.CALLBACK, id));
     }
     public void callbackStatus(long id, String status) {
-        handler.broadcast("{\"type\":\"callback\",\"event\":\"status\",\"id\":" + id + ",\"status\":\"" + status + "\"}");
+        publish(NotificationEvent.status(Topic.CALLBACK, id, status));
     }
     public void ctaCreated(long id) {
-        handler.broadcast("{\"type\":\"cta\",\"event\":\"created\",\"id\":" + id + "}");
+        publish(NotificationEvent.created(Topic.CTA, id));
     }
     public void ctaStatus(long id, String status) {
-        handler.broadcast("{\"type\":\"cta\",\"event\":\"status\",\"id\":" + id + ",\"status\":\"" + status + "\"}");
+        publish(NotificationEvent.status(Topic.CTA, id, status));
     }
 
     public void kycStatus(long kycId, long userId, String status) {
-        handler.broadcast("{\"type\":\"kyc\",\"event\":\"status\",\"kycId\":" + kycId + ",\"userId\":" + userId + ",\"status\":\"" + status + "\"}");
+        publish(NotificationEvent.kycStatus(kycId, userId, status));
+    }
+
+    /**
+     * Hand an event to the dispatcher. Never blocks; returns false if it was dropped.
+     */
+    public boolean publish(NotificationEvent event) {
+        if (queue.offer(event)) {
+            published.increment();
+            return true;
+        }
+        dropped.increment();
+        logger.warn("Notification queue full ({}), dropping {} {}", capacity, event.topic().wireName(), event.event());
+        return false;
+    }
+
+    private void dispatchLoop() {
+        while (running || !queue.isEmpty()) {
+            NotificationEvent event;
+            try {
+                event = queue.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (event == null) {
+                continue;
+            }
+            try {
+                transport.publish(event);
+            } catch (RuntimeException e) {
+                failures.increment();
+                logger.warn("Notification publish failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Called by the transport, once per event on every replica
+    private void deliver(NotificationEvent event) {
+        handler.deliver(event, new TextMessage(event.toJson()));
+        dispatched.increment();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("capacity", capacity);
+        stats.put("published", published.sum());
+        stats.put("dispatched", dispatched.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("failures", failures.sum());
+        stats.put("transport", transport.stats());
+        stats.put("sockets", handler.stats());
+        return stats;
     }
 }
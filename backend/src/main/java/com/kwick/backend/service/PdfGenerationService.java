@@ -5,156 +5,183 @@ import com.kwick.backend.model.User;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.springframework.stereotype.Service;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 
 @Service
 public class PdfGenerationService {
 
+    private static final PDFont HEADING_FONT = PDType1Font.HELVETICA_BOLD;
+    private static final PDFont BODY_FONT = PDType1Font.HELVETICA;
+    private static final float MARGIN = 50;
+    private static final float TITLE_Y = 750;
+    private static final float HEADING_GAP = 20;
+    private static final float LINE_GAP = 15;
+    private static final float SECTION_GAP = 20;
+
+    /**
+     * A labelled value; a null value means the line is left out (e.g. no verification date yet).
+     */
+    private record Field(String prefix, BiFunction<KycVerification, User, String> value) {
+    }
+
+    private record Section(String heading, List<Field> fields) {
+    }
+
+    // Static layout, built once: headings, labels and how to pull each value
+    private static final List<Section> LAYOUT = List.of(
+            new Section("Personal Information", List.of(
+                    field("Name:", (k, u) -> orEmpty(u.getName())),
+                    field("Email:", (k, u) -> orEmpty(u.getEmail())),
+                    field("Phone:", (k, u) -> orEmpty(u.getPhone())),
+                    field("Address:", (k, u) -> orEmpty(k.getStreetAddress())),
+                    field("City, State, Pincode:", (k, u) -> orEmpty(k.getCity()) + ", " + orEmpty(k.getState()) + " "
+                            + orEmpty(k.getPincode())))),
+            new Section("Document Information", List.of(
+                    field("Aadhaar Number:", (k, u) -> maskNumber(k.getAadhaarNumber())),
+                    field("Driving License Number:", (k, u) -> k.getDrivingLicenseNumber() != null ? k.getDrivingLicenseNumber() : "N/A"),
+                    field("License Expiry Date:", (k, u) -> k.getLicenseExpiryDate() != null ? k.getLicenseExpiryDate().toString() : "N/A"))),
+            new Section("Verification Status", List.of(
+                    field("Status:", (k, u) -> status(k)),
+                    field("Rejection Reason:", (k, u) -> "rejected".equals(status(k)) ? k.getRejectionReason() : null),
+                    field("Verified On:", (k, u) -> k.getVerifiedAt() != null ? k.getVerifiedAt().toString() : null),
+                    field("Submitted On:", (k, u) -> k.getCreatedAt() != null ? k.getCreatedAt().toString() : null))));
+
+    // Bump whenever LAYOUT or the drawing code changes so cached PDFs are re-rendered
+    private static final String LAYOUT_VERSION = "1";
+
+    // Output buffer is pre-sized from the last document so byte[] callers don't pay for repeated growth
+    private final AtomicInteger sizeHint = new AtomicInteger(4096);
+
     /**
      * Generate KYC verification PDF from KycVerification and User data
      */
     public byte[] generateKycPdf(KycVerification kyc, User user) throws IOException {
-        PDDocument document = new PDDocument();
-        PDPage page = new PDPage();
-        document.addPage(page);
-
-        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-            float yPosition = 750;
-            float margin = 50;
-
-            // Title
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 18);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText("KYC Verification Document");
-            contentStream.endText();
-
-            yPosition -= 30;
-
-            // User Information
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText("Personal Information");
-            contentStream.endText();
-
-            yPosition -= 20;
-
-            contentStream.setFont(PDType1Font.HELVETICA, 11);
-
-            // Name
-            drawLine(contentStream, margin, yPosition, "Name:", user.getName() != null ? user.getName() : "");
-            yPosition -= 15;
-
-            // Email
-            drawLine(contentStream, margin, yPosition, "Email:", user.getEmail() != null ? user.getEmail() : "");
-            yPosition -= 15;
-
-            // Phone
-            drawLine(contentStream, margin, yPosition, "Phone:", user.getPhone() != null ? user.getPhone() : "");
-            yPosition -= 15;
-
-            // Address
-            drawLine(contentStream, margin, yPosition, "Address:",
-                    kyc.getStreetAddress() != null ? kyc.getStreetAddress() : "");
-            yPosition -= 15;
-
-            // City, State, Pincode
-            String cityStatePin = (kyc.getCity() != null ? kyc.getCity() : "") + ", " +
-                    (kyc.getState() != null ? kyc.getState() : "") + " " +
-                    (kyc.getPincode() != null ? kyc.getPincode() : "");
-            drawLine(contentStream, margin, yPosition, "City, State, Pincode:", cityStatePin);
-            yPosition -= 20;
-
-            // Document Information
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText("Document Information");
-            contentStream.endText();
-
-            yPosition -= 20;
-            contentStream.setFont(PDType1Font.HELVETICA, 11);
-
-            // Aadhaar Number
-            drawLine(contentStream, margin, yPosition, "Aadhaar Number:",
-                    maskNumber(kyc.getAadhaarNumber()));
-            yPosition -= 15;
-
-            // Driving License Number
-            drawLine(contentStream, margin, yPosition, "Driving License Number:",
-                    kyc.getDrivingLicenseNumber() != null ? kyc.getDrivingLicenseNumber() : "N/A");
-            yPosition -= 15;
-
-            // License Expiry Date
-            String expiryDate = kyc.getLicenseExpiryDate() != null ? kyc.getLicenseExpiryDate().toString() : "N/A";
-            drawLine(contentStream, margin, yPosition, "License Expiry Date:", expiryDate);
-            yPosition -= 20;
-
-            // Verification Status
-            contentStream.setFont(PDType1Font.HELVETICA_BOLD, 12);
-            contentStream.beginText();
-            contentStream.newLineAtOffset(margin, yPosition);
-            contentStream.showText("Verification Status");
-            contentStream.endText();
-
-            yPosition -= 20;
-            contentStream.setFont(PDType1Font.HELVETICA, 11);
-
-            String status = kyc.getVerificationStatus() != null ? kyc.getVerificationStatus() : "pending";
-            drawLine(contentStream, margin, yPosition, "Status:", status);
-            yPosition -= 15;
-
-            if ("rejected".equals(status) && kyc.getRejectionReason() != null) {
-                drawLine(contentStream, margin, yPosition, "Rejection Reason:", kyc.getRejectionReason());
-                yPosition -= 15;
-            }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(sizeHint.get());
+        writeKycPdf(kyc, user, baos);
+        sizeHint.set(baos.size() + 256);
+        return baos.toByteArray();
+    }
 
-            // Verification Date (if verified)
-            if (kyc.getVerifiedAt() != null) {
-                drawLine(contentStream, margin, yPosition, "Verified On:", kyc.getVerifiedAt().toString());
-                yPosition -= 15;
+    /**
+     * Render the KYC PDF straight into {@code out} (HTTP response, file) without building a byte[].
+     * The stream is flushed but left open for the caller.
+     */
+    public void writeKycPdf(KycVerification kyc, User user, OutputStream out) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                float yPosition = TITLE_Y;
+
+                // Title
+                contentStream.beginText();
+                contentStream.setFont(HEADING_FONT, 18);
+                contentStream.newLineAtOffset(MARGIN, yPosition);
+                contentStream.showText("KYC Verification Document");
+                contentStream.endText();
+                yPosition -= 30;
+
+                // One text object per section, moving down with relative offsets
+                for (Section section : LAYOUT) {
+                    contentStream.beginText();
+                    contentStream.setFont(HEADING_FONT, 12);
+                    contentStream.newLineAtOffset(MARGIN, yPosition);
+                    contentStream.showText(section.heading());
+                    contentStream.setFont(BODY_FONT, 11);
+                    float step = HEADING_GAP;
+                    for (Field field : section.fields()) {
+                        String value = field.value().apply(kyc, user);
+                        if (value == null) {
+                            continue;
+                        }
+                        contentStream.newLineAtOffset(0, -step);
+                        contentStream.showText(field.prefix() + value);
+                        yPosition -= step;
+                        step = LINE_GAP;
+                    }
+                    contentStream.endText();
+                    yPosition -= SECTION_GAP;
+                }
             }
 
-            // Submission Date
-            if (kyc.getCreatedAt() != null) {
-                drawLine(contentStream, margin, yPosition, "Submitted On:", kyc.getCreatedAt().toString());
-            }
+            // PDDocument.save closes the stream it writes to; keep the caller's open
+            document.save(new NonClosingOutputStream(out));
+        }
+    }
 
-        } catch (IOException e) {
-            document.close();
-            throw e;
+    /**
+     * Hash of everything that ends up on the page (layout version plus each rendered line).
+     * Two inputs with the same hash produce the same PDF, so it doubles as a cache key and strong ETag.
+     */
+    public String contentHash(KycVerification kyc, User user) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(LAYOUT_VERSION.getBytes(StandardCharsets.UTF_8));
+        for (Section section : LAYOUT) {
+            for (Field field : section.fields()) {
+                String value = field.value().apply(kyc, user);
+                digest.update((byte) 0);
+                if (value != null) {
+                    digest.update((field.prefix() + value).getBytes(StandardCharsets.UTF_8));
+                }
+            }
         }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
 
-        // Convert PDF to byte array
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        document.save(baos);
-        document.close();
+    private static Field field(String label, BiFunction<KycVerification, User, String> value) {
+        return new Field(label + " ", value);
+    }
 
-        return baos.toByteArray();
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
     }
 
-    /**
-     * Helper method to draw a line with label and value
-     */
-    private void drawLine(PDPageContentStream contentStream, float x, float y, String label, String value)
-            throws IOException {
-        contentStream.beginText();
-        contentStream.newLineAtOffset(x, y);
-        contentStream.showText(label + " " + (value != null ? value : "N/A"));
-        contentStream.endText();
+    private static String status(KycVerification kyc) {
+        return kyc.getVerificationStatus() != null ? kyc.getVerificationStatus() : "pending";
     }
 
     /**
      * Mask sensitive numbers (show only last 4 digits)
      */
-    private String maskNumber(String number) {
+    private static String maskNumber(String number) {
         if (number == null || number.length() <= 4) {
             return "****";
         }
         return "****" + number.substring(number.length() - 4);
     }
+
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
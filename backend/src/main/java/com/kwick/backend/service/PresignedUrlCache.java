@@ -0,0 +1,104 @@
+package com.kwick.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Presigned GET URLs for S3-backed KYC documents, so admin clients fetch image bytes straight from
+ * S3 instead of through /api/kyc/file. Issued URLs are cached per object and handed out again while
+ * at least {@code minRemaining} of their lifetime is left, so re-rendering a detail page doesn't re-sign.
+ */
+@Service
+@ConditionalOnExpression("${aws.s3.enabled:false} && '${aws.s3.document-delivery:presigned}' == 'presigned'")
+public class PresignedUrlCache {
+
+    // Handed out again until reusableUntil, which is minRemaining before the URL itself expires
+    private record Entry(String url, long reusableUntilMillis) {
+    }
+
+    private final S3Presigner presigner;
+    private final Duration ttl;
+    private final Duration minRemaining;
+    private final Clock clock;
+    private final BoundedTtlMap<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder signed = new LongAdder();
+
+    @Autowired
+    public PresignedUrlCache(S3Presigner presigner,
+            @Value("${aws.s3.presign-ttl-seconds:900}") long ttlSeconds,
+            @Value("${aws.s3.presign-cache-max-size:5000}") int maxSize) {
+        this(presigner, Duration.ofSeconds(ttlSeconds), maxSize, Clock.systemUTC());
+    }
+
+    PresignedUrlCache(S3Presigner presigner, Duration ttl, int maxSize, Clock clock) {
+        this.presigner = presigner;
+        this.ttl = ttl;
+        // A reused URL must stay valid long enough for the browser to load the page's images
+        this.minRemaining = ttl.dividedBy(2);
+        this.clock = clock;
+        this.entries = new BoundedTtlMap<>(maxSize, Entry::reusableUntilMillis, clock::millis);
+    }
+
+    public static boolean isS3Url(String storedUrl) {
+        return storedUrl != null && storedUrl.startsWith("s3://") && storedUrl.indexOf('/', 5) > 5;
+    }
+
+    /**
+     * Presigned HTTPS URL for a {@code s3://bucket/key} value as stored by {@link S3StorageService},
+     * or null if the value isn't an S3 URL.
+     */
+    public String presign(String storedUrl) {
+        if (!isS3Url(storedUrl)) {
+            return null;
+        }
+        Entry e = entries.get(storedUrl);
+        if (e != null) {
+            hits.increment();
+            return e.url();
+        }
+        Entry fresh = sign(storedUrl);
+        entries.put(storedUrl, fresh);
+        return fresh.url();
+    }
+
+    private Entry sign(String storedUrl) {
+        int slash = storedUrl.indexOf('/', 5);
+        GetObjectRequest get = GetObjectRequest.builder()
+                .bucket(storedUrl.substring(5, slash))
+                .key(storedUrl.substring(slash + 1))
+                .build();
+        PresignedGetObjectRequest presigned = presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(ttl)
+                .getObjectRequest(get)
+                .build());
+        signed.increment();
+        Instant reusableUntil = presigned.expiration().minus(minRemaining);
+        return new Entry(presigned.url().toString(), reusableUntil.toEpochMilli());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", entries.maxSize());
+        stats.put("ttlSeconds", ttl.toSeconds());
+        stats.put("hits", hits.sum());
+        stats.put("signed", signed.sum());
+        stats.put("evictions", entries.evictions());
+        return stats;
+    }
+}
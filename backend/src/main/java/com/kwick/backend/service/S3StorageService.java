@@ -1,43 +1,246 @@
 package com.kwick.backend.service;
 
+import com.kwick.backend.exception.InvalidUploadException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @ConditionalOnProperty(name = "aws.s3.enabled", havingValue = "true")
 public class S3StorageService implements StorageService {
 
-    private final S3Client s3;
+    private static final Logger logger = LoggerFactory.getLogger(S3StorageService.class);
+
+    private record Payload(byte[] bytes, String contentType, String sha256) {
+    }
+
+    // What exists() learned about a url, trusted until untilMillis
+    private record Presence(boolean stored, long untilMillis) {
+    }
+
+    private static final long STORED_MILLIS = TimeUnit.HOURS.toMillis(24);
+    // A thumbnail is usually written seconds after the upload, so a miss is only remembered briefly
+    private static final long MISSING_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final S3AsyncClient s3;
     private final String bucket;
+    private final int maxConcurrentUploads;
+    private final Semaphore uploadPermits;
+    private final long permitTimeoutMillis;
+    private final long existsWaitMillis;
+    private final BoundedTtlMap<String, Presence> presence =
+            new BoundedTtlMap<>(10_000, Presence::untilMillis, System::currentTimeMillis);
 
-    public S3StorageService(@Value("${aws.s3.bucket:}") String bucket) {
+    @Autowired
+    public S3StorageService(S3AsyncClient s3, @Value("${aws.s3.bucket:}") String bucket,
+            @Value("${aws.s3.max-concurrent-uploads:32}") int maxConcurrentUploads,
+            @Value("${aws.s3.upload-permit-timeout-ms:10000}") long permitTimeoutMillis,
+            @Value("${aws.s3.exists-wait-ms:250}") long existsWaitMillis) {
+        this.s3 = s3;
         this.bucket = bucket;
-        this.s3 = S3Client.builder().build();
+        this.maxConcurrentUploads = Math.max(maxConcurrentUploads, 1);
+        this.uploadPermits = new Semaphore(this.maxConcurrentUploads);
+        this.permitTimeoutMillis = permitTimeoutMillis;
+        this.existsWaitMillis = Math.max(existsWaitMillis, 0);
+    }
+
+    S3StorageService(S3AsyncClient s3, String bucket, int maxConcurrentUploads, long permitTimeoutMillis) {
+        this(s3, bucket, maxConcurrentUploads, permitTimeoutMillis, 250);
+    }
+
+    @Override
+    public StoredFile ingest(MultipartFile file, String subpath) throws Exception {
+        try {
+            return ingestAsync(file, subpath, Runnable::run).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
+    /**
+     * The part is validated and hashed on {@code executor} (bounded to aws.s3.max-concurrent-uploads in
+     * flight, which also caps buffered bytes), then handed to the async client; no thread waits on S3.
+     */
     @Override
-    public String storeFile(MultipartFile file, String subpath) throws Exception {
+    public CompletableFuture<StoredFile> ingestAsync(MultipartFile file, String subpath, Executor executor) {
         String key = (subpath == null ? "" : subpath + "/") + Instant.now().toEpochMilli() + "-"
                 + URLEncoder.encode(file.getOriginalFilename(), StandardCharsets.UTF_8);
-        try (InputStream in = file.getInputStream()) {
-            PutObjectRequest req = PutObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .contentType(file.getContentType())
-                    .build();
-            s3.putObject(req, RequestBody.fromInputStream(in, file.getSize()));
-        }
-        // Return a simple s3 url; production should use signed urls or public buckets
-        return String.format("s3://%s/%s", bucket, key);
+        return CompletableFuture.supplyAsync(() -> read(file), executor)
+                .thenCompose(payload -> put(key, payload));
+    }
+
+    private Payload read(MultipartFile file) {
+        if (file.getSize() > UploadIngestStream.MAX_KYC_BYTES) {
+            throw new InvalidUploadException("File too large (max 5MB)");
+        }
+        try {
+            if (!uploadPermits.tryAcquire(permitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new CompletionException(new IOException("Too many concurrent S3 uploads, try again"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        try (UploadIngestStream in = UploadIngestStream.open(file.getInputStream(), UploadIngestStream.MAX_KYC_BYTES)) {
+            byte[] bytes = in.readAllBytes();
+            return new Payload(bytes, in.contentType(), in.sha256());
+        } catch (RuntimeException e) {
+            uploadPermits.release();
+            throw e;
+        } catch (IOException e) {
+            uploadPermits.release();
+            throw new CompletionException(e);
+        }
+    }
+
+    private CompletableFuture<StoredFile> put(String key, Payload payload) {
+        PutObjectRequest req = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(payload.contentType())
+                .contentLength((long) payload.bytes().length)
+                // S3 rejects the object if the bytes it received don't match what we hashed
+                .checksumSHA256(Base64.getEncoder().encodeToString(HexFormat.of().parseHex(payload.sha256())))
+                .build();
+        CompletableFuture<StoredFile> result;
+        try {
+            // Return a simple s3 url; production should use signed urls or public buckets
+            result = s3.putObject(req, AsyncRequestBody.fromBytes(payload.bytes()))
+                    .thenApply(r -> new StoredFile(String.format("s3://%s/%s", bucket, key), payload.contentType(),
+                            payload.bytes().length, payload.sha256()));
+        } catch (RuntimeException e) {
+            uploadPermits.release();
+            throw e;
+        }
+        return result.whenComplete((r, ex) -> uploadPermits.release());
+    }
+
+    @Override
+    public InputStream open(String url) throws IOException {
+        String[] location = location(url);
+        GetObjectRequest req = GetObjectRequest.builder().bucket(location[0]).key(location[1]).build();
+        try {
+            return s3.getObject(req, AsyncResponseTransformer.toBytes()).join().asInputStream();
+        } catch (CompletionException e) {
+            throw new IOException("Could not read " + url, e.getCause());
+        }
+    }
+
+    /**
+     * Answered from what this service has stored or seen recently; otherwise a HEAD request, waited on for at
+     * most aws.s3.exists-wait-ms. A slower answer counts as missing for now and is remembered once it arrives,
+     * so callers rendering a page never wait on S3 for long.
+     */
+    @Override
+    public boolean exists(String url) throws IOException {
+        Presence known = presence.get(url);
+        if (known != null) {
+            return known.stored();
+        }
+        String[] location = location(url);
+        HeadObjectRequest req = HeadObjectRequest.builder().bucket(location[0]).key(location[1]).build();
+        CompletableFuture<Boolean> head = s3.headObject(req).handle((r, e) -> {
+            if (e == null) {
+                remember(url, true);
+                return true;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof S3Exception s3e && s3e.statusCode() == 404) {
+                remember(url, false);
+                return false;
+            }
+            throw new CompletionException(cause);
+        });
+        try {
+            return head.get(existsWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IOException("Could not check " + url, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted checking " + url, e);
+        }
+    }
+
+    private void remember(String url, boolean stored) {
+        presence.put(url, new Presence(stored, System.currentTimeMillis() + (stored ? STORED_MILLIS : MISSING_MILLIS)));
+    }
+
+    // Often called from an S3 completion thread, so the delete is fired without waiting on it
+    @Override
+    public void discard(String url) {
+        presence.remove(url);
+        String[] location = location(url);
+        DeleteObjectRequest req = DeleteObjectRequest.builder().bucket(location[0]).key(location[1]).build();
+        s3.deleteObject(req).whenComplete((r, e) -> {
+            if (e != null) {
+                logger.warn("Could not delete unrecorded upload {}: {}", url, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public String storeDerived(String originalUrl, String name, byte[] data, String contentType) throws IOException {
+        String[] location = location(originalUrl);
+        int slash = location[1].lastIndexOf('/');
+        String key = (slash >= 0 ? location[1].substring(0, slash + 1) : "") + name;
+        PutObjectRequest req = PutObjectRequest.builder()
+                .bucket(location[0])
+                .key(key)
+                .contentType(contentType)
+                .contentLength((long) data.length)
+                .build();
+        try {
+            s3.putObject(req, AsyncRequestBody.fromBytes(data)).join();
+        } catch (CompletionException e) {
+            throw new IOException("Could not store " + key, e.getCause());
+        }
+        String url = String.format("s3://%s/%s", location[0], key);
+        remember(url, true);
+        return url;
+    }
+
+    // s3://bucket/key -> {bucket, key}
+    private static String[] location(String url) {
+        int slash = url.startsWith("s3://") ? url.indexOf('/', 5) : -1;
+        if (slash < 0) {
+            throw new IllegalArgumentException("Not an S3 url: " + url);
+        }
+        return new String[] {url.substring(5, slash), url.substring(slash + 1)};
+    }
+
+    public int getInFlightUploads() {
+        return maxConcurrentUploads - uploadPermits.availablePermits();
     }
 }
@@ -2,6 +2,83 @@ package com.kwick.backend.service;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 public interface StorageService {
-    String storeFile(MultipartFile file, String subpath) throws Exception;
+
+    /**
+     * Stream a KYC document to storage in one pass: the file signature must be JPEG, PNG or PDF, the
+     * 5MB limit is enforced as bytes are read, and the SHA-256 is computed on the way through.
+     *
+     * @throws com.kwick.backend.exception.InvalidUploadException if the upload is rejected
+     */
+    StoredFile ingest(MultipartFile file, String subpath) throws Exception;
+
+    /**
+     * Non-blocking variant of {@link #ingest}. Blocking work (reading the part, local disk writes) runs on
+     * {@code executor}; backends with an async client complete the future from their own I/O threads.
+     */
+    default CompletableFuture<StoredFile> ingestAsync(MultipartFile file, String subpath, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return ingest(file, subpath);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    default String storeFile(MultipartFile file, String subpath) throws Exception {
+        return ingest(file, subpath).url();
+    }
+
+    /**
+     * Remove a document {@link #ingest} stored that never got recorded, e.g. because its batch failed or timed
+     * out. Backends that reclaim unreferenced blobs on their own may ignore this.
+     */
+    default void discard(String url) throws IOException {
+        Files.deleteIfExists(Path.of(url));
+    }
+
+    /**
+     * Whether something is stored under {@code url}, e.g. a derived rendition that may not have been written.
+     */
+    default boolean exists(String url) throws IOException {
+        return Files.isRegularFile(Path.of(url));
+    }
+
+    /**
+     * Read back a stored document by the url {@link #ingest} returned. Local backends store absolute paths.
+     */
+    default InputStream open(String url) throws IOException {
+        return Files.newInputStream(Path.of(url));
+    }
+
+    /**
+     * Store a rendition derived from a stored document (e.g. a thumbnail) beside the original under
+     * {@code name}, replacing any earlier one, and return its url.
+     */
+    default String storeDerived(String originalUrl, String name, byte[] data, String contentType) throws IOException {
+        Path dest = Path.of(originalUrl).resolveSibling(name);
+        Path tmp = Files.createTempFile(dest.getParent(), ".derived-", ".tmp");
+        try {
+            Files.write(tmp, data);
+            try {
+                Files.move(tmp, dest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, dest, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return dest.toAbsolutePath().toString();
+    }
 }
@@ -0,0 +1,10 @@
+package com.kwick.backend.service;
+
+/**
+ * Result of {@link StorageService#ingest}: where the bytes went plus what was observed while writing them.
+ *
+ * @param contentType type detected from the file signature, not the client-supplied header
+ * @param sha256      lowercase hex digest of the stored bytes
+ */
+public record StoredFile(String url, String contentType, long size, String sha256) {
+}
@@ -0,0 +1,185 @@
+package com.kwick.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small JPEG previews of uploaded KYC images, rendered in the background and stored beside the
+ * original as {@code <name>.thumb.jpg} so admin list/detail screens don't pull 5MB scans.
+ * PDFs get no thumbnail; a missing thumbnail falls back to the original document.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+    public static final String SUFFIX = ".thumb.jpg";
+
+    private final StorageService storageService;
+    private final Executor executor;
+    private final int maxDimension;
+    private final float quality;
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    @Autowired
+    public ThumbnailService(StorageService storageService, @Qualifier("thumbnailExecutor") Executor executor,
+            @Value("${kyc.thumbnails.max-dimension:320}") int maxDimension,
+            @Value("${kyc.thumbnails.quality:0.75}") float quality) {
+        this.storageService = storageService;
+        this.executor = executor;
+        this.maxDimension = Math.max(maxDimension, 16);
+        this.quality = Math.min(Math.max(quality, 0.1f), 1.0f);
+    }
+
+    /**
+     * Queue a thumbnail for a freshly stored document. Never blocks or fails the upload.
+     */
+    public void schedule(StoredFile original) {
+        if (!isImage(original.contentType())) {
+            return;
+        }
+        try {
+            executor.execute(() -> generate(original));
+        } catch (RejectedExecutionException e) {
+            skipped.increment();
+            logger.debug("Thumbnail queue full, skipping {}", original.url());
+        }
+    }
+
+    void generate(StoredFile original) {
+        try {
+            byte[] thumb;
+            try (InputStream in = storageService.open(original.url())) {
+                thumb = render(in, maxDimension, quality);
+            }
+            storageService.storeDerived(original.url(), thumbnailName(original.url()), thumb, "image/jpeg");
+            generated.increment();
+            bytesIn.add(original.size());
+            bytesOut.add(thumb.length);
+        } catch (Exception e) {
+            failed.increment();
+            logger.warn("Thumbnail generation failed for {}: {}", original.url(), e.getMessage());
+        }
+    }
+
+    /**
+     * Decode {@code in} and re-encode it as a JPEG whose longer side is at most {@code maxDimension}.
+     * Large scans are subsampled while decoding so a 12MP photo never materialises at full size.
+     */
+    static byte[] render(InputStream in, int maxDimension, float quality) throws IOException {
+        BufferedImage source;
+        int fullWidth;
+        int fullHeight;
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                fullWidth = reader.getWidth(0);
+                fullHeight = reader.getHeight(0);
+                int longest = Math.max(fullWidth, fullHeight);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Keep at least 2x the target resolution for the final smooth downscale
+                int step = Math.max(1, longest / (maxDimension * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        // Size from the full image so subsampling rounding doesn't skew the aspect ratio
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(fullWidth, fullHeight));
+        int width = Math.max(1, (int) Math.round(fullWidth * scale));
+        int height = Math.max(1, (int) Math.round(fullHeight * scale));
+        BufferedImage thumb = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = thumb.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha: flatten transparent PNGs onto white
+            g.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        try (MemoryCacheImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(thumb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    public static boolean isImage(String contentType) {
+        return "image/jpeg".equals(contentType) || "image/png".equals(contentType);
+    }
+
+    /**
+     * Name of the thumbnail for a stored document: its last path segment with the extension
+     * replaced, e.g. {@code .../abc123.png -> abc123.thumb.jpg}.
+     */
+    public static String thumbnailName(String url) {
+        int slash = Math.max(url.lastIndexOf('/'), url.lastIndexOf('\\'));
+        String name = url.substring(slash + 1);
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + SUFFIX;
+    }
+
+    /**
+     * Url the thumbnail of {@code url} is stored under (same directory or key prefix).
+     */
+    public static String thumbnailUrl(String url) {
+        int slash = Math.max(url.lastIndexOf('/'), url.lastIndexOf('\\'));
+        return url.substring(0, slash + 1) + thumbnailName(url);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("generated", generated.sum());
+        stats.put("failed", failed.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("bytesIn", bytesIn.sum());
+        stats.put("bytesOut", bytesOut.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,150 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.exception.InvalidUploadException;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Single-pass view over an upload: the file signature is sniffed up front, then every byte read is
+ * counted against the size limit and fed to a SHA-256 digest on its way to the destination.
+ */
+public class UploadIngestStream extends FilterInputStream {
+
+    public static final long MAX_KYC_BYTES = 5L * 1024 * 1024; // 5MB
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] PDF = {'%', 'P', 'D', 'F', '-'};
+
+    private final String contentType;
+    private final long maxBytes;
+    private final MessageDigest digest;
+    private long count;
+    private String sha256;
+
+    private UploadIngestStream(InputStream in, String contentType, long maxBytes) {
+        super(in);
+        this.contentType = contentType;
+        this.maxBytes = maxBytes;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Wrap a KYC document upload (JPEG, PNG or PDF, at most {@code maxBytes}).
+     *
+     * @throws InvalidUploadException if the signature is not one of the accepted types
+     */
+    public static UploadIngestStream open(InputStream raw, long maxBytes) throws IOException {
+        byte[] header = raw.readNBytes(PNG.length);
+        String type = sniff(header);
+        if (type == null) {
+            raw.close();
+            throw invalidType();
+        }
+        return new UploadIngestStream(new SequenceInputStream(new ByteArrayInputStream(header), raw), type, maxBytes);
+    }
+
+    /**
+     * Check only the signature, reading no more than the header; lets a multi-part upload reject a bad part
+     * before any of its siblings are stored. The caller owns (and closes) {@code raw}.
+     *
+     * @throws InvalidUploadException if the signature is not one of the accepted types
+     */
+    public static String detect(InputStream raw) throws IOException {
+        String type = sniff(raw.readNBytes(PNG.length));
+        if (type == null) {
+            throw invalidType();
+        }
+        return type;
+    }
+
+    private static InvalidUploadException invalidType() {
+        return new InvalidUploadException("Invalid file type. Only JPEG, PNG, or PDF allowed.");
+    }
+
+    static String sniff(byte[] header) {
+        if (startsWith(header, JPEG)) return "image/jpeg";
+        if (startsWith(header, PNG)) return "image/png";
+        if (startsWith(header, PDF)) return "application/pdf";
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            accept(1);
+            digest.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            accept(n);
+            digest.update(b, off, n);
+        }
+        return n;
+    }
+
+    // Skipping would leave holes in the digest, so bytes are always read through
+    @Override
+    public long skip(long n) {
+        return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void accept(int n) {
+        count += n;
+        if (count > maxBytes) {
+            throw new InvalidUploadException("File too large (max " + (maxBytes / (1024 * 1024)) + "MB)");
+        }
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Digest of everything read so far; call once the stream has been fully consumed.
+     */
+    public String sha256() {
+        if (sha256 == null) {
+            sha256 = HexFormat.of().formatHex(digest.digest());
+        }
+        return sha256;
+    }
+}
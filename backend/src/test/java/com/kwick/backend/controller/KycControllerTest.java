@@ -0,0 +1,147 @@
+package com.kwick.backend.controller;
+
+import com.kwick.backend.ApiResponse;
+import com.kwick.backend.exception.InvalidUploadException;
+import com.kwick.backend.model.KycVerification;
+import com.kwick.backend.repository.KycRepository;
+import com.kwick.backend.repository.UserRepository;
+import com.kwick.backend.service.StorageService;
+import com.kwick.backend.service.StoredFile;
+import com.kwick.backend.service.ThumbnailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class KycControllerTest {
+
+    private StorageService storage;
+    private KycRepository kycRepository;
+    private ThumbnailService thumbnails;
+    private KycController controller;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(StorageService.class);
+        kycRepository = mock(KycRepository.class);
+        thumbnails = mock(ThumbnailService.class);
+        when(kycRepository.findByUserId(7L)).thenReturn(Optional.empty());
+        controller = new KycController(storage, kycRepository, mock(UserRepository.class), null, null,
+                Runnable::run, thumbnails, 200);
+        request = new MockHttpServletRequest();
+        request.setAttribute("userId", 7L);
+    }
+
+    @Test
+    void allPartsStored_savesOnceWithEveryDocument() throws Exception {
+        MockMultipartFile front = part("aadhaarFront");
+        MockMultipartFile selfie = part("selfie");
+        stored(front, "kyc/7/aadhaar", "/a.png");
+        stored(selfie, "kyc/7/selfie", "/s.png");
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = upload(front, null, null, null, selfie);
+
+        assertEquals(200, response.getStatusCode().value());
+        verify(kycRepository).saveAndFlush(argThat((KycVerification k) -> "/a.png".equals(k.getAadhaarFrontUrl())
+                && "/s.png".equals(k.getSelfieUrl()) && k.getLicenseFrontUrl() == null));
+        verify(thumbnails, times(2)).schedule(any());
+    }
+
+    @Test
+    void badSignatureBesideValidParts_isRejectedBeforeAnythingIsStored() throws Exception {
+        MockMultipartFile front = part("aadhaarFront");
+        MockMultipartFile gif = new MockMultipartFile("licenseBack", "back.png", "image/png", "GIF89a....".getBytes());
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = upload(front, null, null, gif, null);
+
+        assertEquals(400, response.getStatusCode().value());
+        assertTrue(response.getBody().getError().startsWith("licenseBack: Invalid file type"));
+        verifyNoInteractions(storage);
+        verify(kycRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void partRejectedWhileStreaming_answers400NamingThePart() throws Exception {
+        MockMultipartFile front = part("aadhaarFront");
+        MockMultipartFile selfie = part("selfie");
+        stored(front, "kyc/7/aadhaar", "/a.png");
+        when(storage.ingestAsync(eq(selfie), eq("kyc/7/selfie"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new InvalidUploadException("Invalid file type")));
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = upload(front, null, null, null, selfie);
+
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("selfie: Invalid file type", response.getBody().getError());
+        verify(kycRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void storageErrorOnOnePart_answers500WithoutSaving() throws Exception {
+        MockMultipartFile front = part("licenseFront");
+        MockMultipartFile back = part("licenseBack");
+        stored(front, "kyc/7/license", "/f.png");
+        when(storage.ingestAsync(eq(back), eq("kyc/7/license"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("disk full")));
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = upload(null, null, front, back, null);
+
+        assertEquals(500, response.getStatusCode().value());
+        assertTrue(response.getBody().getError().contains("disk full"));
+        verify(kycRepository, never()).saveAndFlush(any());
+        verify(storage).discard("/f.png");
+    }
+
+    @Test
+    void storageThatAnswersTooLate_timesOutAndDiscardsTheLateUpload() throws Exception {
+        MockMultipartFile front = part("aadhaarFront");
+        CompletableFuture<StoredFile> slow = new CompletableFuture<>();
+        when(storage.ingestAsync(eq(front), eq("kyc/7/aadhaar"), any())).thenReturn(slow);
+
+        long start = System.nanoTime();
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = upload(front, null, null, null, null);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(500, response.getStatusCode().value());
+        verify(storage, never()).discard(any());
+
+        slow.complete(new StoredFile("/late.png", "image/png", 4, "00"));
+        verify(storage).discard("/late.png");
+        verify(kycRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void noParts_answers400() throws Exception {
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = upload(null, null, null, null, null);
+
+        assertEquals(400, response.getStatusCode().value());
+        verifyNoInteractions(storage);
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> upload(MockMultipartFile aadhaarFront,
+            MockMultipartFile aadhaarBack, MockMultipartFile licenseFront, MockMultipartFile licenseBack,
+            MockMultipartFile selfie) throws Exception {
+        return controller.uploadBatch(aadhaarFront, aadhaarBack, licenseFront, licenseBack, selfie, request)
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    private void stored(MockMultipartFile file, String subpath, String url) {
+        when(storage.ingestAsync(eq(file), eq(subpath), any()))
+                .thenReturn(CompletableFuture.completedFuture(new StoredFile(url, "image/png", 4, "00")));
+    }
+
+    private static MockMultipartFile part(String name) {
+        return new MockMultipartFile(name, name + ".png", "image/png",
+                new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0});
+    }
+}
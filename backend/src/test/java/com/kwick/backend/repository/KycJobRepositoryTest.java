@@ -0,0 +1,83 @@
+package com.kwick.backend.repository;
+
+import com.kwick.backend.model.KycJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class KycJobRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @Autowired
+    private KycJobRepository kycJobRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void clean() {
+        kycJobRepository.deleteAll();
+    }
+
+    @Test
+    void claim_succeedsOnceAndCountsTheAttempt() {
+        KycJob job = job(KycJob.STATUS_PENDING, NOW.minusSeconds(1), NOW);
+
+        assertEquals(1, kycJobRepository.claim(job.getId(), NOW));
+        // A second worker or replica racing for the same row gets nothing
+        assertEquals(0, kycJobRepository.claim(job.getId(), NOW));
+        entityManager.clear();
+
+        KycJob claimed = kycJobRepository.findById(job.getId()).orElseThrow();
+        assertEquals(KycJob.STATUS_RUNNING, claimed.getStatus());
+        assertEquals(1, claimed.getAttempts());
+    }
+
+    @Test
+    void findDueIds_skipsFutureAndNonPendingJobs() {
+        KycJob due = job(KycJob.STATUS_PENDING, NOW.minusMinutes(5), NOW);
+        job(KycJob.STATUS_PENDING, NOW.plusSeconds(30), NOW);
+        job(KycJob.STATUS_RUNNING, NOW.minusMinutes(5), NOW);
+        job(KycJob.STATUS_FAILED, NOW.minusMinutes(5), NOW);
+        KycJob dueToo = job(KycJob.STATUS_PENDING, NOW, NOW);
+
+        assertEquals(List.of(due.getId(), dueToo.getId()), kycJobRepository.findDueIds(NOW, PageRequest.of(0, 10)));
+        assertEquals(List.of(due.getId()), kycJobRepository.findDueIds(NOW, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    void releaseStale_requeuesOnlyAbandonedRunningJobs() {
+        KycJob abandoned = job(KycJob.STATUS_RUNNING, NOW.minusHours(1), NOW.minusMinutes(30));
+        KycJob busy = job(KycJob.STATUS_RUNNING, NOW.minusHours(1), NOW.minusMinutes(2));
+        KycJob done = job(KycJob.STATUS_DONE, NOW.minusHours(1), NOW.minusMinutes(30));
+
+        assertEquals(1, kycJobRepository.releaseStale(NOW.minusMinutes(10), NOW));
+        entityManager.clear();
+
+        assertEquals(KycJob.STATUS_PENDING, kycJobRepository.findById(abandoned.getId()).orElseThrow().getStatus());
+        assertEquals(KycJob.STATUS_RUNNING, kycJobRepository.findById(busy.getId()).orElseThrow().getStatus());
+        assertEquals(KycJob.STATUS_DONE, kycJobRepository.findById(done.getId()).orElseThrow().getStatus());
+        // Released jobs are claimable again
+        assertEquals(1, kycJobRepository.claim(abandoned.getId(), NOW));
+    }
+
+    private KycJob job(String status, LocalDateTime nextAttemptAt, LocalDateTime updatedAt) {
+        KycJob job = new KycJob();
+        job.setKycId(1L);
+        job.setUserId(1L);
+        job.setStatus(status);
+        job.setNextAttemptAt(nextAttemptAt);
+        job.setUpdatedAt(updatedAt);
+        return entityManager.persistFlushFind(job);
+    }
+}
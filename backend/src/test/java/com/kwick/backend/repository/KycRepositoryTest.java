@@ -0,0 +1,144 @@
+package com.kwick.backend.repository;
+
+import com.kwick.backend.dto.KycListItem;
+import com.kwick.backend.model.KycVerification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class KycRepositoryTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+    @Autowired
+    private KycRepository kycRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM kyc_verification");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void adminListing_filtersAndPagesInDatabase() {
+        seed(1, 45);
+
+        Page<KycListItem> pending = kycRepository.findAdminPageByStatus("pending", FIRST_PAGE);
+        assertEquals(15, pending.getTotalElements());
+        assertEquals(15, pending.getContent().size());
+        assertTrue(pending.getContent().stream().allMatch(k -> "pending".equals(k.getVerificationStatus())));
+        assertEquals("User 45", pending.getContent().get(0).getUserName());
+
+        Page<KycListItem> byCity = kycRepository.searchAdminPage(null, LikePatterns.contains("city 7"), FIRST_PAGE);
+        assertEquals(1, byCity.getTotalElements());
+
+        Page<KycListItem> byEmail = kycRepository.searchAdminPage("approved", LikePatterns.contains("u1@kwick.in"), FIRST_PAGE);
+        assertEquals(0, byEmail.getTotalElements()); // user 1 is rejected, not approved
+
+        Page<KycListItem> secondPage = kycRepository.findAdminPage(PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+        assertEquals(45, secondPage.getTotalElements());
+        assertEquals(20, secondPage.getContent().size());
+    }
+
+    @Test
+    void adminSearch_treatsWildcardsLiterallyAndMatchesStatusesStoredInAnyCase() {
+        seed(1, 6);
+        jdbcTemplate.update("UPDATE kyc_verification SET city = 'City_100%' WHERE user_id = 3");
+        KycVerification mixedCase = kycRepository.findByUserId(6L).orElseThrow();
+        mixedCase.setVerificationStatus(" Pending");
+        kycRepository.saveAndFlush(mixedCase);
+        assertEquals("pending", jdbcTemplate.queryForObject(
+                "SELECT verification_status FROM kyc_verification WHERE user_id = 6", String.class));
+
+        assertEquals(1, kycRepository.searchAdminPage(null, LikePatterns.contains("_"), FIRST_PAGE).getTotalElements());
+        assertEquals(1, kycRepository.searchAdminPage(null, LikePatterns.contains("100%"), FIRST_PAGE).getTotalElements());
+        assertEquals(0, kycRepository.searchAdminPage(null, LikePatterns.contains("city\\"), FIRST_PAGE).getTotalElements());
+        assertEquals(6, kycRepository.searchAdminPage(null, LikePatterns.contains("city"), FIRST_PAGE).getTotalElements());
+
+        assertEquals(2, kycRepository.searchAdminPage("pending", LikePatterns.contains("city"), FIRST_PAGE).getTotalElements());
+        assertEquals(2, kycRepository.findAdminPageByStatus("pending", FIRST_PAGE).getTotalElements());
+    }
+
+    @Test
+    void adminListing_statementCountIsConstantPerPage() {
+        seed(1, 300);
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.setStatisticsEnabled(true);
+
+        for (int size : new int[] {5, 20, 100}) {
+            entityManager.clear();
+            stats.clear();
+            Page<KycListItem> page = kycRepository.findAdminPageByStatus("pending", PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt")));
+            page.getContent().forEach(KycListItem::getUserEmail);
+            assertEquals(size, page.getContent().size());
+            // one select for the rows (users joined in) + one count
+            assertEquals(2, stats.getPrepareStatementCount(), "statements for page size " + size);
+            assertEquals(0, stats.getEntityLoadCount(), "list rows must not load entities");
+        }
+    }
+
+    /**
+     * Latency of the first admin page as the table grows 10k -> 1M rows.
+     * Run with -Dkwick.bench=true; skipped in the regular build.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "kwick.bench", matches = "true")
+    void adminListing_latencyStaysFlat() {
+        int seeded = 0;
+        for (int rows : new int[] {10_000, 100_000, 1_000_000}) {
+            seed(seeded + 1, rows);
+            seeded = rows;
+            // warm up, then measure
+            for (int i = 0; i < 5; i++) {
+                kycRepository.findAdminPageByStatus("pending", FIRST_PAGE);
+            }
+            int runs = 20;
+            long start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                kycRepository.findAdminPageByStatus("pending", FIRST_PAGE).getContent();
+            }
+            long statusMicros = (System.nanoTime() - start) / runs / 1_000;
+            start = System.nanoTime();
+            for (int i = 0; i < runs; i++) {
+                kycRepository.searchAdminPage("pending", LikePatterns.contains("city 4"), FIRST_PAGE).getContent();
+            }
+            long searchMicros = (System.nanoTime() - start) / runs / 1_000;
+            System.out.printf("kyc rows=%,d status page=%d us search page=%d us%n", rows, statusMicros, searchMicros);
+        }
+    }
+
+    /**
+     * Insert users [from, to] with one KYC row each, cycling rejected/pending/approved.
+     */
+    private void seed(int from, int to) {
+        jdbcTemplate.update("INSERT INTO users (user_id, email, password_hash, name, role, kyc_status, status, token_version) "
+                + "SELECT X, 'u' || X || '@kwick.in', 'x', 'User ' || X, 'user', 'pending', 'active', 0 FROM SYSTEM_RANGE(?, ?)", from, to);
+        jdbcTemplate.update("INSERT INTO kyc_verification (user_id, verification_status, city, state, created_at, updated_at) "
+                + "SELECT X, CASEWHEN(MOD(X, 3) = 0, 'pending', CASEWHEN(MOD(X, 3) = 1, 'rejected', 'approved')), "
+                + "'City ' || X, 'State', DATEADD('SECOND', X, TIMESTAMP '2025-01-01 00:00:00'), CURRENT_TIMESTAMP "
+                + "FROM SYSTEM_RANGE(?, ?)", from, to);
+    }
+}
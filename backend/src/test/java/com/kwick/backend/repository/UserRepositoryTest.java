@@ -0,0 +1,130 @@
+package com.kwick.backend.repository;
+
+import com.kwick.backend.dto.AdminUserRow;
+import com.kwick.backend.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void clean() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void tokenVersion_movesOnlyWhenBumped() {
+        User u = user("version@kwick.in", "Version");
+        u = entityManager.persistFlushFind(u);
+        assertEquals(0, u.getTokenVersion());
+
+        // Profile and KYC updates leave issued tokens valid
+        u.setName("Renamed");
+        u.setKycStatus("approved");
+        entityManager.flush();
+        assertEquals(0, userRepository.findTokenVersionById(u.getId()).orElseThrow());
+
+        u.setRole("admin");
+        u.bumpTokenVersion();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, userRepository.findById(u.getId()).orElseThrow().getTokenVersion());
+        assertEquals(1, userRepository.findTokenVersionById(u.getId()).orElseThrow());
+        assertTrue(userRepository.findTokenVersionById(-1L).isEmpty());
+    }
+
+    @Test
+    void seekContaining_walksEveryMatchOnceAcrossPageBoundaries() {
+        List<Long> ids = seed(7);
+        persist(user("other@example.com", "Somebody Else"));
+
+        List<Long> seen = new ArrayList<>();
+        long afterId = 0;
+        List<AdminUserRow> page;
+        do {
+            page = userRepository.seekContaining(LikePatterns.contains("kwick"), afterId, PageRequest.of(0, 3));
+            assertTrue(page.size() <= 3);
+            page.forEach(row -> seen.add(row.getUserId()));
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getUserId();
+            }
+        } while (page.size() == 3);
+
+        assertEquals(ids, seen);
+        assertEquals(7, userRepository.countContaining(LikePatterns.contains("kwick")));
+        // Cursor on the last match: nothing after it
+        assertTrue(userRepository.seekContaining(LikePatterns.contains("kwick"), ids.get(6), PageRequest.of(0, 3)).isEmpty());
+        // No filter walks everyone
+        assertEquals(8, userRepository.seekContaining(null, 0, PageRequest.of(0, 50)).size());
+    }
+
+    @Test
+    void seekByPrefix_matchesOnlyLeadingText() {
+        List<Long> ids = seed(4);
+        persist(user("zed@kwick.in", "Member 99"));
+
+        List<AdminUserRow> first = userRepository.seekByPrefix(LikePatterns.prefix("member"), 0, PageRequest.of(0, 2));
+        assertEquals(List.of(ids.get(0), ids.get(1)), first.stream().map(AdminUserRow::getUserId).toList());
+        List<AdminUserRow> second = userRepository.seekByPrefix(LikePatterns.prefix("member"), ids.get(1), PageRequest.of(0, 2));
+        assertEquals(List.of(ids.get(2), ids.get(3)), second.stream().map(AdminUserRow::getUserId).toList());
+
+        // "kwick" only appears mid-string, so a prefix search finds nothing
+        assertEquals(0, userRepository.countByPrefix(LikePatterns.prefix("kwick")));
+        assertEquals(4, userRepository.countByPrefix(LikePatterns.prefix("member")));
+        assertEquals(1, userRepository.countByPrefix(LikePatterns.prefix("Member 9")));
+    }
+
+    @Test
+    void search_treatsWildcardsLiterallyAndReportsStoredStatus() {
+        seed(3);
+        User odd = user("under_score@kwick.in", "Odd One");
+        odd.setStatus("suspended");
+        persist(odd);
+
+        List<AdminUserRow> rows = userRepository.seekContaining(LikePatterns.contains("_"), 0, PageRequest.of(0, 10));
+        assertEquals(1, rows.size());
+        assertEquals("suspended", rows.get(0).getStatus());
+        assertEquals(1, userRepository.countByPrefix(LikePatterns.prefix("under_")));
+        assertEquals(0, userRepository.countByPrefix(LikePatterns.prefix("under%")));
+    }
+
+    // member-<n>@kwick.in / "member <n>", returned in id order
+    private List<Long> seed(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            ids.add(persist(user("member" + i + "@kwick.in", "member " + i)).getId());
+        }
+        return ids;
+    }
+
+    private User persist(User u) {
+        User saved = entityManager.persist(u);
+        entityManager.flush();
+        return saved;
+    }
+
+    private static User user(String email, String name) {
+        User u = new User();
+        u.setEmail(email);
+        u.setName(name);
+        u.setPasswordHash("x");
+        return u;
+    }
+}
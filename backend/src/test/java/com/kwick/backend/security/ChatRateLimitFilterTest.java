@@ -0,0 +1,120 @@
+package com.kwick.backend.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChatRateLimitFilterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void perIp_allowsBurstThenRefillsAtRate() throws Exception {
+        ChatRateLimitFilter filter = new ChatRateLimitFilter(true, 1, 3, 1_000, 1_000, 100, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, post(filter, "10.0.0.1").getStatus());
+        }
+        MockHttpServletResponse rejected = post(filter, "10.0.0.1");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("Too many chat requests"));
+        assertEquals(200, post(filter, "10.0.0.2").getStatus());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(200, post(filter, "10.0.0.1").getStatus());
+        assertEquals(429, post(filter, "10.0.0.1").getStatus());
+        assertEquals(2L, filter.stats().get("rejectedPerIp"));
+    }
+
+    @Test
+    void global_capsTrafficAcrossAllIps() throws Exception {
+        ChatRateLimitFilter filter = new ChatRateLimitFilter(true, 100, 100, 10, 5, 100, clock::get);
+
+        int ok = 0;
+        for (int i = 0; i < 10; i++) {
+            if (post(filter, "10.0.1." + i).getStatus() == 200) {
+                ok++;
+            }
+        }
+
+        assertEquals(5, ok);
+        assertEquals(5L, filter.stats().get("rejectedGlobal"));
+    }
+
+    @Test
+    void onlyChatPostsAreThrottled() throws Exception {
+        ChatRateLimitFilter filter = new ChatRateLimitFilter(true, 0.001, 1, 0.001, 1, 100, clock::get);
+        assertEquals(200, post(filter, "10.0.0.1").getStatus());
+        assertEquals(429, post(filter, "10.0.0.1").getStatus());
+
+        MockHttpServletRequest health = new MockHttpServletRequest("GET", "/api/chat/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(health, response, new MockFilterChain());
+        assertEquals(200, response.getStatus());
+
+        ChatRateLimitFilter disabled = new ChatRateLimitFilter(false, 0.001, 1, 0.001, 1, 100, clock::get);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, post(disabled, "10.0.0.1").getStatus());
+        }
+    }
+
+    @Test
+    void ipTable_staysBounded() throws Exception {
+        ChatRateLimitFilter filter = new ChatRateLimitFilter(true, 0.001, 5, 1_000_000, 1_000_000, 100, clock::get);
+
+        for (int i = 0; i < 5_000; i++) {
+            post(filter, "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255));
+        }
+
+        assertTrue((int) filter.stats().get("trackedIps") <= 100);
+        assertTrue((long) filter.stats().get("evictions") >= 4_900);
+    }
+
+    @Test
+    void concurrentRequests_neverExceedTheBurst() throws Exception {
+        ChatRateLimitFilter filter = new ChatRateLimitFilter(true, 0.001, 1_000, 0.001, 1_000_000, 100, clock::get);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    int ok = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (post(filter, "10.0.0.1").getStatus() == 200) {
+                            ok++;
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            int ok = 0;
+            for (Future<Integer> result : results) {
+                ok += result.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(1_000, ok);
+            assertEquals(3_000L, filter.stats().get("rejectedPerIp"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static MockHttpServletResponse post(ChatRateLimitFilter filter, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/chat");
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,252 @@
+package com.kwick.backend.security;
+
+import com.kwick.backend.model.User;
+import com.kwick.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JwtAuthenticationFilterTest {
+
+    private static final int REQUESTS = 2_000;
+
+    private UserRepository userRepository;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        jwtUtil = new JwtUtil("test_secret_32_chars_min_length_123456");
+        token = jwtUtil.generateToken("7");
+
+        User u = new User();
+        u.setId(7L);
+        u.setRole("ADMIN");
+        when(userRepository.findById(7L)).thenReturn(Optional.of(u));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cachedFilter_hitsRepositoryOnce() throws Exception {
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil, cache);
+
+        run(filter);
+
+        verify(userRepository, times(1)).findById(7L);
+        assertEquals(REQUESTS - 1L, cache.stats().get("hits"));
+    }
+
+    @Test
+    void uncachedFilter_hitsRepositoryEveryRequest() throws Exception {
+        PrincipalCache cache = new PrincipalCache(userRepository, false, Duration.ofMinutes(1), 100);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil, cache);
+
+        run(filter);
+
+        verify(userRepository, times(REQUESTS)).findById(7L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void invalidate_forcesReload() throws Exception {
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        assertEquals("admin", cache.resolve(7L).role());
+
+        User demoted = new User();
+        demoted.setId(7L);
+        demoted.setRole("user");
+        when(userRepository.findById(7L)).thenReturn(Optional.of(demoted));
+        assertEquals("admin", cache.resolve(7L).role());
+
+        ObjectProvider<PrincipalCache> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(cache);
+        new PrincipalCacheInvalidator(provider).onUserChanged(demoted);
+        assertEquals("user", cache.resolve(7L).role());
+    }
+
+    @Test
+    void invalidationDuringLoad_doesNotCacheTheStaleRow() {
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        User before = new User();
+        before.setId(7L);
+        before.setRole("admin");
+        User after = new User();
+        after.setId(7L);
+        after.setRole("user");
+        // The demotion commits (and invalidates) while the first lookup still holds the old row
+        when(userRepository.findById(7L)).thenAnswer(inv -> {
+            cache.invalidate(7L);
+            return Optional.of(before);
+        }).thenReturn(Optional.of(after));
+
+        assertEquals("admin", cache.resolve(7L).role());
+        assertEquals("user", cache.resolve(7L).role());
+        assertEquals("user", cache.resolve(7L).role());
+        verify(userRepository, times(2)).findById(7L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void invalidation_waitsForCommit() {
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        ObjectProvider<PrincipalCache> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(cache);
+        PrincipalCacheInvalidator invalidator = new PrincipalCacheInvalidator(provider);
+        User demoted = new User();
+        demoted.setId(7L);
+        demoted.setRole("user");
+        assertEquals("admin", cache.resolve(7L).role());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            invalidator.onUserChanged(demoted);
+            // Flushed but not committed: readers still see the committed (admin) row
+            assertEquals("admin", cache.resolve(7L).role());
+            when(userRepository.findById(7L)).thenReturn(Optional.of(demoted));
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals("user", cache.resolve(7L).role());
+    }
+
+    @Test
+    void roleClaimAtCurrentVersion_isTrustedWithoutLoadingTheUser() throws Exception {
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        JwtUtil claims = new JwtUtil("test_secret_32_chars_min_length_123456", true);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(claims, cache);
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(0));
+        token = claims.generateAccessToken("7", "ADMIN", 0);
+
+        run(filter);
+
+        verify(userRepository, times(1)).findTokenVersionById(7L);
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void roleClaimFromOlderVersion_fallsBackToCurrentRow() throws Exception {
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        JwtUtil claims = new JwtUtil("test_secret_32_chars_min_length_123456", true);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(claims, cache);
+        User promoted = new User();
+        promoted.setId(7L);
+        promoted.setRole("admin");
+        promoted.setTokenVersion(1);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(promoted));
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(1));
+        token = claims.generateAccessToken("7", "user", 0);
+
+        // Stale "user" claim is ignored in favour of the current (admin) role
+        run(filter);
+    }
+
+    @Test
+    void demotedUser_losesAdminClaimOnceVersionMoves() throws Exception {
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        JwtUtil claims = new JwtUtil("test_secret_32_chars_min_length_123456", true);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(claims, cache);
+        String adminToken = claims.generateAccessToken("7", "admin", 0);
+        User demoted = new User();
+        demoted.setId(7L);
+        demoted.setRole("user");
+        demoted.setTokenVersion(1);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(demoted));
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(1));
+
+        assertEquals("user", roleFor(filter, adminToken));
+    }
+
+    @Test
+    void roleClaimForDeletedUser_isRejected() throws Exception {
+        when(userRepository.findById(7L)).thenReturn(Optional.empty());
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        JwtUtil claims = new JwtUtil("test_secret_32_chars_min_length_123456", true);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(claims, cache);
+
+        assertNull(roleFor(filter, claims.generateAccessToken("7", "admin", 0)));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void roleClaim_isIgnoredUnlessEnabled() throws Exception {
+        User plain = new User();
+        plain.setId(7L);
+        plain.setRole("user");
+        when(userRepository.findById(7L)).thenReturn(Optional.of(plain));
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil, cache);
+
+        assertEquals("user", roleFor(filter, jwtUtil.generateAccessToken("7", "admin", 0)));
+        verify(userRepository, never()).findTokenVersionById(anyLong());
+    }
+
+    @Test
+    void tokenVersion_isCachedAndInvalidatedWithThePrincipal() {
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+        when(userRepository.findTokenVersionById(7L)).thenReturn(Optional.of(0)).thenReturn(Optional.of(1));
+
+        assertEquals(0, cache.tokenVersion(7L).getAsInt());
+        assertEquals(0, cache.tokenVersion(7L).getAsInt());
+        cache.invalidate(7L);
+        assertEquals(1, cache.tokenVersion(7L).getAsInt());
+        verify(userRepository, times(2)).findTokenVersionById(7L);
+    }
+
+    @Test
+    void missingUser_isCachedAsAbsent() {
+        when(userRepository.findById(8L)).thenReturn(Optional.empty());
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100);
+
+        assertFalse(cache.resolve(8L).exists());
+        assertFalse(cache.resolve(8L).exists());
+        verify(userRepository, times(1)).findById(8L);
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+        PrincipalCache cache = new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 50);
+
+        for (long id = 0; id < 500; id++) {
+            cache.resolve(id);
+        }
+        assertTrue((int) cache.stats().get("size") <= 50);
+    }
+
+    private static Object roleFor(JwtAuthenticationFilter filter, String bearer) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + bearer);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request.getAttribute("userRole");
+    }
+
+    private void run(JwtAuthenticationFilter filter) throws Exception {
+        for (int i = 0; i < REQUESTS; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+            request.addHeader("Authorization", "Bearer " + token);
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            assertEquals("admin", request.getAttribute("userRole"));
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
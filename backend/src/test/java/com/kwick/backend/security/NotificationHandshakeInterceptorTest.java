@@ -0,0 +1,80 @@
+package com.kwick.backend.security;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.kwick.backend.model.User;
+import com.kwick.backend.repository.UserRepository;
+import com.kwick.backend.service.NotificationWebSocketHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class NotificationHandshakeInterceptorTest {
+
+    private JwtUtil jwtUtil;
+    private NotificationHandshakeInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        User u = new User();
+        u.setId(7L);
+        u.setRole("ADMIN");
+        when(userRepository.findById(7L)).thenReturn(Optional.of(u));
+        jwtUtil = new JwtUtil("test_secret_32_chars_min_length_123456");
+        interceptor = new NotificationHandshakeInterceptor(jwtUtil,
+                new PrincipalCache(userRepository, true, Duration.ofMinutes(1), 100));
+    }
+
+    @Test
+    void ticket_identifiesTheUserOnce() {
+        String ticket = jwtUtil.generateSocketTicket("7");
+
+        Map<String, Object> first = handshake("ticket=" + ticket);
+        assertEquals(7L, first.get(NotificationWebSocketHandler.ATTR_USER_ID));
+        assertEquals("admin", first.get(NotificationWebSocketHandler.ATTR_ROLE));
+
+        Map<String, Object> replayed = handshake("ticket=" + ticket);
+        assertFalse(replayed.containsKey(NotificationWebSocketHandler.ATTR_USER_ID));
+    }
+
+    @Test
+    void accessTokenInTheUrl_isIgnored() {
+        String accessToken = jwtUtil.generateAccessToken("7", "admin", 0);
+
+        assertFalse(handshake("ticket=" + accessToken).containsKey(NotificationWebSocketHandler.ATTR_USER_ID));
+        assertFalse(handshake("token=" + accessToken).containsKey(NotificationWebSocketHandler.ATTR_USER_ID));
+    }
+
+    @Test
+    void ticket_isNotAnAccessToken() {
+        String ticket = jwtUtil.generateSocketTicket("7");
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.parseClaims(ticket));
+    }
+
+    @Test
+    void resumePosition_isRecorded() {
+        assertEquals(42L, handshake("since=42").get(NotificationWebSocketHandler.ATTR_RESUME_FROM));
+    }
+
+    private Map<String, Object> handshake(String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/notifications");
+        request.setQueryString(query);
+        Map<String, Object> attributes = new HashMap<>();
+        assertTrue(interceptor.beforeHandshake(new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(new MockHttpServletResponse()), mock(WebSocketHandler.class), attributes));
+        return attributes;
+    }
+}
@@ -0,0 +1,75 @@
+package com.kwick.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedTtlMapTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    // Values are their own deadline
+    private BoundedTtlMap<Integer, Long> map(int maxSize) {
+        return new BoundedTtlMap<>(maxSize, Long::longValue, now::get);
+    }
+
+    @Test
+    void get_ignoresExpiredValues() {
+        BoundedTtlMap<Integer, Long> map = map(10);
+        map.put(1, 1_050L);
+
+        assertEquals(1_050L, map.get(1));
+        now.set(1_050);
+        assertNull(map.get(1));
+        // computeIfAbsent hands back the expired instance instead of replacing it
+        assertEquals(1_050L, map.computeIfAbsent(1, k -> 2_000L));
+    }
+
+    @Test
+    void put_staysBoundedAndKeepsRecentlyReadKeys() {
+        BoundedTtlMap<Integer, Long> map = map(100);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, 5_000L);
+        }
+        for (int i = 100; i < 10_000; i++) {
+            map.get(0);
+            map.put(i, 5_000L);
+            assertTrue(map.size() <= 100);
+        }
+
+        assertEquals(5_000L, map.get(0));
+        assertEquals(9_900L, map.evictions());
+    }
+
+    @Test
+    void put_evictsExpiredEntriesBeforeLiveOnes() {
+        BoundedTtlMap<Integer, Long> map = map(3);
+        map.put(1, 5_000L);
+        map.put(2, 1_100L);
+        map.put(3, 5_000L);
+        map.get(1);
+        now.set(2_000);
+
+        map.put(4, 5_000L);
+
+        assertNull(map.get(2));
+        assertNotNull(map.get(1));
+        assertNotNull(map.get(3));
+        assertNotNull(map.get(4));
+    }
+
+    @Test
+    void removedKeys_doNotPinTheQueue() {
+        BoundedTtlMap<Integer, Long> map = map(10);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, 5_000L);
+            map.remove(i);
+        }
+        map.put(-1, 5_000L);
+
+        assertEquals(1, map.size());
+        assertEquals(0, map.evictions());
+    }
+}
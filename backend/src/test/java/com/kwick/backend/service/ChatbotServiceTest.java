@@ -0,0 +1,204 @@
+package com.kwick.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChatbotServiceTest {
+
+    // The per-intent regexes ChatbotService used before the compiled matcher, in priority order
+    private static final Map<String, String> LEGACY_REGEXES = new LinkedHashMap<>();
+    static {
+        LEGACY_REGEXES.put("greeting", ".*(hello|hi|hey|namaste|namaskar|हैलो|नमस्ते).*");
+        LEGACY_REGEXES.put("help", ".*(help|support|madad|मदद|सहायता).*");
+        LEGACY_REGEXES.put("vehicle", ".*(vehicle|bike|scooter|rent|गाड़ी|वाहन|किराया).*");
+        LEGACY_REGEXES.put("kyc", ".*(kyc|document|verification|दस्तावेज़|सत्यापन).*");
+        LEGACY_REGEXES.put("payment", ".*(payment|price|cost|भुगतान|कीमत|पैसे).*");
+    }
+
+    private static final String[] MESSAGES = {
+            "Hello, I want to rent a scooter for 3 days in Pune",
+            "नमस्ते, मुझे गाड़ी किराया पर चाहिए",
+            "mujhe KYC ke liye kaunse document chahiye?",
+            "What is the PRICE per day?",
+            "मेरा भुगतान अटक गया है, madad karo",
+            "Is there a battery swapping station near Hinjewadi?",
+            "sab theek hai",
+    };
+
+    @TempDir
+    Path tempDir;
+
+    private final ChatbotService service = new ChatbotService(new ClassPathResource("chatbot/catalog.json"));
+
+    @Test
+    void bundledCatalog_matchesTheLegacyRegexesAndPriority() {
+        assertEquals(List.copyOf(LEGACY_REGEXES.keySet()), service.catalog().intentIds());
+        Random random = new Random(7);
+        List<String> corpus = new ArrayList<>(List.of(MESSAGES));
+        for (int i = 0; i < 2_000; i++) {
+            corpus.add(randomMessage(random, 1 + random.nextInt(12)));
+        }
+        for (String message : corpus) {
+            assertEquals(legacyIntents(message), service.detectIntents(message), message);
+        }
+        // The first intent in catalog order picks the reply
+        assertTrue(service.generateReply("hello, what is the price of a scooter?").startsWith("Hello!"));
+        assertTrue(service.generateReply("kyc documents and payment").startsWith("For KYC"));
+        assertTrue(service.generateReply("मेरा भुगतान अटक गया है").startsWith("भुगतान विकल्प"));
+        assertTrue(service.generateReply("sab theek hai").startsWith("I'd love to help!"));
+        assertEquals("hinglish", service.detectLanguage("KYC के लिए"));
+        assertEquals("en", service.detectLanguage("   "));
+    }
+
+    @Test
+    void intents_areFoundAcrossLineBreaks() {
+        // String.matches(".*x.*") never matched a multi-line message, since '.' does not cross '\n'
+        assertEquals(Set.of("kyc", "payment"),
+                service.detectIntents("Two questions:\nhow long does KYC take?\nand the cost?"));
+        assertTrue(service.generateReply("Hi\nthere").startsWith("Hello!"));
+    }
+
+    @Test
+    void matcher_reportsEveryGroupOnceAndNothingForUnknownText() {
+        KeywordMatcher matcher = KeywordMatcher.compile(List.of(List.of("he", "she"), List.of("his", "hers"), List.of("")));
+        assertEquals(0b11, matcher.match("USHERS"));
+        assertEquals(0b01, matcher.match("ushe"));
+        assertEquals(0, matcher.match("h e r s"));
+        assertEquals(0, matcher.match(""));
+    }
+
+    @Test
+    void reload_swapsInAChangedCatalogAndKeepsTheOldOneOnBadInput() throws Exception {
+        Path file = tempDir.resolve("catalog.json");
+        Files.writeString(file, catalog(1, "₹299/day"));
+        ChatbotService live = new ChatbotService(new FileSystemResource(file));
+        ChatbotCatalog first = live.catalog();
+        assertEquals("Rent starts at ₹299/day", live.generateReply("rent a bike"));
+        assertEquals("Ask me about rent", live.generateReply("?"));
+        assertEquals("किराया ₹299/day", live.generateReply("किराया"));
+        // A missing language falls back to English
+        assertEquals("Rent starts at ₹299/day", live.generateReply("bike किराया"));
+
+        assertFalse(live.reload());
+        assertSame(first, live.catalog());
+
+        Files.writeString(file, catalog(2, "₹349/day"));
+        assertTrue(live.reload());
+        assertEquals(2, live.catalog().version());
+        assertEquals("Rent starts at ₹349/day", live.generateReply("rent a bike"));
+
+        Files.writeString(file, "{\"version\": 3, \"intents\": []}");
+        assertFalse(live.reload());
+        Files.writeString(file, "{not json");
+        assertFalse(live.reload());
+        assertEquals(2, live.catalog().version());
+        assertEquals(2L, live.stats().get("reloadFailures"));
+    }
+
+    private static String catalog(int version, String price) {
+        return ("{\"version\": %d, \"intents\": [{\"id\": \"vehicle\", \"keywords\": [\"rent\", \"bike\", \"किराया\"],"
+                + " \"replies\": {\"en\": \"Rent starts at %s\", \"hi\": \"किराया %s\"}}],"
+                + " \"fallback\": {\"en\": \"Ask me about rent\"}}").formatted(version, price, price);
+    }
+
+    /**
+     * Cost per message of the per-intent String.matches calls versus the compiled catalog, on long chat messages.
+     * Run with -Dkwick.bench=true; skipped in the regular build.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "kwick.bench", matches = "true")
+    void intentThroughput() {
+        Random random = new Random(42);
+        String[] messages = new String[256];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = randomMessage(random, 60 + random.nextInt(140));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            legacyLookup(messages[i % messages.length]);
+            service.generateReply(messages[i % messages.length]);
+        }
+
+        int rounds = 100_000;
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        int sink = 0;
+
+        long alloc = mx.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += legacyLookup(messages[i % messages.length]).length();
+        }
+        report("regex", rounds, System.nanoTime() - start, mx.getThreadAllocatedBytes(tid) - alloc);
+
+        alloc = mx.getThreadAllocatedBytes(tid);
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += service.generateReply(messages[i % messages.length]).length();
+        }
+        report("catalog", rounds, System.nanoTime() - start, mx.getThreadAllocatedBytes(tid) - alloc);
+        assertTrue(sink > 0);
+    }
+
+    private static void report(String mode, int messages, long nanos, long allocated) {
+        System.out.printf("ChatbotService %-7s %10.0f msgs/s  %6d ns/msg  %8d bytes allocated/msg%n",
+                mode, messages / (nanos / 1e9), nanos / messages, allocated / messages);
+    }
+
+    // Mostly filler words, with the odd keyword and keyword-like near miss, in all three scripts
+    private String randomMessage(Random random, int words) {
+        String[] filler = {"mujhe", "please", "tell", "the", "for", "kal", "aur", "kitna", "है", "क्या", "मुझे",
+                "station", "battery", "Pune", "office", "bhai", "this", "which", "parent", "costume", "दस्ता", "कीम"};
+        List<String> keywords = new ArrayList<>();
+        for (int i = 0; i < service.catalog().intentIds().size(); i++) {
+            keywords.addAll(service.catalog().keywords(i));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(random.nextInt(10) == 0 ? ", " : " ");
+            }
+            String word = random.nextInt(12) == 0 ? keywords.get(random.nextInt(keywords.size())) : filler[random.nextInt(filler.length)];
+            sb.append(random.nextBoolean() ? word : word.toUpperCase());
+        }
+        return sb.toString();
+    }
+
+    private static Set<String> legacyIntents(String message) {
+        String lower = message.toLowerCase();
+        Set<String> intents = new LinkedHashSet<>();
+        LEGACY_REGEXES.forEach((intent, regex) -> {
+            if (lower.matches(regex)) {
+                intents.add(intent);
+            }
+        });
+        return intents;
+    }
+
+    // What generateReply did before picking the reply text: detect the language, then try each intent in turn
+    private String legacyLookup(String message) {
+        String language = service.detectLanguage(message);
+        String lower = message.toLowerCase();
+        for (String regex : LEGACY_REGEXES.values()) {
+            if (lower.matches(regex)) {
+                return language + regex;
+            }
+        }
+        return language;
+    }
+}
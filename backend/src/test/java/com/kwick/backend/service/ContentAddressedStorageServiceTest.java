@@ -0,0 +1,104 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.KycVerification;
+import com.kwick.backend.repository.KycRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ContentAddressedStorageServiceTest {
+
+    @TempDir
+    Path baseDir;
+
+    private KycRepository kycRepository;
+    private ContentAddressedStorageService storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        kycRepository = mock(KycRepository.class);
+        storage = new ContentAddressedStorageService(baseDir, kycRepository, Duration.ofMinutes(60));
+    }
+
+    @Test
+    void sameContent_isStoredOnce() throws Exception {
+        StoredFile first = storage.ingest(png("front.png", 1), "kyc/5/aadhaar");
+        StoredFile second = storage.ingest(png("IMG_0001.png", 1), "kyc/5/aadhaar");
+        StoredFile other = storage.ingest(png("front.png", 2), "kyc/5/aadhaar");
+
+        assertEquals(first.url(), second.url());
+        assertNotEquals(first.url(), other.url());
+        assertTrue(first.url().endsWith(first.sha256() + ".png"));
+        try (var files = Files.list(baseDir.resolve("kyc/5/aadhaar"))) {
+            assertEquals(2, files.count());
+        }
+        assertEquals(1L, storage.stats().get("deduplicated"));
+    }
+
+    @Test
+    void sweeper_reclaimsOnlyOldUnreferencedBlobs() throws Exception {
+        StoredFile kept = storage.ingest(png("a.png", 1), "kyc/5/aadhaar");
+        StoredFile replaced = storage.ingest(png("b.png", 2), "kyc/5/aadhaar");
+        StoredFile fresh = storage.ingest(png("c.png", 3), "kyc/5/selfie");
+        age(kept, replaced);
+
+        KycVerification kyc = new KycVerification();
+        kyc.setUserId(5L);
+        kyc.setAadhaarFrontUrl(kept.url());
+        when(kycRepository.findByUserId(5L)).thenReturn(Optional.of(kyc));
+
+        storage.sweepOrphans();
+
+        assertTrue(Files.exists(Path.of(kept.url())));
+        assertFalse(Files.exists(Path.of(replaced.url())));
+        assertTrue(Files.exists(Path.of(fresh.url())), "blob inside the grace window must survive");
+        assertEquals(1L, storage.stats().get("sweptBlobs"));
+    }
+
+    @Test
+    void blobSharedByTwoColumns_survivesWhileEitherReferencesIt() throws Exception {
+        StoredFile same = storage.ingest(png("a.png", 1), "kyc/5/aadhaar");
+        age(same);
+
+        KycVerification kyc = new KycVerification();
+        kyc.setUserId(5L);
+        kyc.setAadhaarFrontUrl("C:\\old\\path\\" + Path.of(same.url()).getFileName());
+        when(kycRepository.findByUserId(5L)).thenReturn(Optional.of(kyc));
+
+        storage.sweepOrphans();
+        assertTrue(Files.exists(Path.of(same.url())));
+        assertEquals(2, ContentAddressedStorageService.referenceCounts(withBoth(same.url())).get("aadhaar/" + Path.of(same.url()).getFileName()));
+    }
+
+    private static KycVerification withBoth(String url) {
+        KycVerification kyc = new KycVerification();
+        kyc.setAadhaarFrontUrl(url);
+        kyc.setAadhaarBackUrl(url);
+        return kyc;
+    }
+
+    private static void age(StoredFile... files) throws Exception {
+        for (StoredFile f : files) {
+            Files.setLastModifiedTime(Path.of(f.url()), FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        }
+    }
+
+    private static MockMultipartFile png(String name, int seed) {
+        byte[] data = new byte[64];
+        byte[] header = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        System.arraycopy(header, 0, data, 0, header.length);
+        data[header.length] = (byte) seed;
+        return new MockMultipartFile("file", name, "image/png", data);
+    }
+}
@@ -0,0 +1,81 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.ContactMessage;
+import com.kwick.backend.repository.ContactMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class InboxQueryServiceTest {
+
+    @Autowired
+    private ContactMessageRepository repository;
+
+    private final InboxQueryService inbox = new InboxQueryService();
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void statusFilter_matchesStatusesWrittenInAnyCase() {
+        // As the PUT /{id}/status handlers store them
+        save("Asha", InboxQueryService.normalizeStatus("Handled"), 1);
+        save("Ravi", InboxQueryService.normalizeStatus(" HANDLED "), 2);
+        save("Meena", InboxQueryService.normalizeStatus("new"), 3);
+
+        assertEquals(2L, total(inbox.page(repository, "handled", null, 0, 20, "name")));
+        assertEquals(2L, total(inbox.page(repository, "HANDLED", null, 0, 20, "name")));
+        assertEquals(1L, total(inbox.page(repository, "New", null, 0, 20, "name")));
+        assertEquals(3L, total(inbox.page(repository, "all", null, 0, 20, "name")));
+    }
+
+    @Test
+    void search_isCaseInsensitiveAndTreatsWildcardsLiterally() {
+        save("Asha_K", "new", 1);
+        save("Ravi", "new", 2);
+        save("Meena", "new", 3);
+
+        assertEquals(1L, total(inbox.page(repository, "all", "_", 0, 20, "name", "email")));
+        assertEquals(0L, total(inbox.page(repository, "all", "%", 0, 20, "name", "email")));
+        assertEquals(1L, total(inbox.page(repository, "all", "RAVI", 0, 20, "name", "email")));
+    }
+
+    @Test
+    void page_isNewestFirst() {
+        save("Oldest", "new", 1);
+        save("Middle", "new", 2);
+        save("Newest", "new", 3);
+
+        Map<String, Object> page = inbox.page(repository, "new", null, 0, 2, "name");
+        @SuppressWarnings("unchecked")
+        List<ContactMessage> items = (List<ContactMessage>) page.get("items");
+        assertEquals(List.of("Newest", "Middle"), items.stream().map(ContactMessage::getName).toList());
+        assertEquals(3L, total(page));
+    }
+
+    private void save(String name, String status, int minutes) {
+        ContactMessage m = new ContactMessage();
+        m.setName(name);
+        m.setPhone("9999999999");
+        m.setEmail(name.toLowerCase() + "@example.com");
+        m.setSubject("Rental enquiry");
+        m.setMessage("Hello");
+        m.setStatus(status);
+        m.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(minutes));
+        repository.save(m);
+    }
+
+    private static long total(Map<String, Object> page) {
+        return (Long) page.get("total");
+    }
+}
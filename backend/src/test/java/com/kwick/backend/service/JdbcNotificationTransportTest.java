@@ -0,0 +1,148 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.repository.NotificationLogRepository;
+import com.kwick.backend.service.NotificationEvent.Topic;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class JdbcNotificationTransportTest {
+
+    @Autowired
+    private NotificationLogRepository repository;
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        clock = new MutableClock(Instant.now());
+    }
+
+    @Test
+    void everyReplica_deliversEveryEventOnceInSequenceOrder() {
+        JdbcNotificationTransport replicaA = transport();
+        JdbcNotificationTransport replicaB = transport();
+        List<NotificationEvent> seenByA = new ArrayList<>();
+        List<NotificationEvent> seenByB = new ArrayList<>();
+        replicaA.subscribe(seenByA::add);
+        replicaB.subscribe(seenByB::add);
+
+        replicaA.publish(NotificationEvent.created(Topic.CONTACT, 5));
+        replicaB.publish(NotificationEvent.kycStatus(3, 42, "approved"));
+        replicaA.publish(NotificationEvent.status(Topic.CTA, 7, "resolved"));
+        replicaA.poll();
+        replicaB.poll();
+        replicaB.poll();
+
+        assertEquals(3, seenByA.size());
+        assertEquals(seenByA, seenByB);
+        assertEquals(NotificationEvent.created(Topic.CONTACT, 5), seenByA.get(0).withSeq(0));
+        assertEquals(NotificationEvent.kycStatus(3, 42, "approved"), seenByA.get(1).withSeq(0));
+        assertEquals(seenByA.get(0).seq() + 1, seenByA.get(1).seq());
+        assertEquals(seenByA.get(1).seq() + 1, seenByA.get(2).seq());
+        assertTrue(seenByA.get(2).toJson().endsWith(",\"seq\":" + seenByA.get(2).seq() + "}"));
+    }
+
+    @Test
+    void gap_isHeldBackUntilGapWaitExpires() {
+        JdbcNotificationTransport replica = transport();
+        List<Long> seen = new ArrayList<>();
+        replica.subscribe(event -> seen.add(event.id()));
+
+        replica.publish(NotificationEvent.created(Topic.CALLBACK, 1));
+        replica.publish(NotificationEvent.created(Topic.CALLBACK, 2));
+        replica.publish(NotificationEvent.created(Topic.CALLBACK, 3));
+        // Stand-in for an INSERT that is still uncommitted (or rolled back)
+        repository.findAll().stream().filter(e -> e.getEntityId() == 2).forEach(repository::delete);
+
+        replica.poll();
+        assertEquals(List.of(1L), seen);
+        clock.advance(Duration.ofSeconds(1));
+        replica.poll();
+        assertEquals(List.of(1L), seen);
+
+        clock.advance(Duration.ofSeconds(2));
+        replica.poll();
+        assertEquals(List.of(1L, 3L), seen);
+        assertEquals(1L, replica.stats().get("skippedIds"));
+    }
+
+    @Test
+    void prune_deletesRowsPastRetention() {
+        JdbcNotificationTransport replica = transport();
+        replica.subscribe(event -> { });
+        replica.publish(NotificationEvent.created(Topic.CTA, 1));
+        clock.advance(Duration.ofMinutes(90));
+        replica.publish(NotificationEvent.created(Topic.CTA, 2));
+
+        replica.prune();
+
+        assertEquals(1, repository.count());
+        assertEquals(1L, replica.stats().get("pruned"));
+    }
+
+    @Test
+    void history_servesDeliveredEventsUntilPruned() {
+        JdbcNotificationTransport replica = transport();
+        List<NotificationEvent> seen = new ArrayList<>();
+        replica.subscribe(seen::add);
+        replica.publish(NotificationEvent.created(Topic.CONTACT, 1));
+        replica.publish(NotificationEvent.created(Topic.CONTACT, 2));
+        replica.poll();
+        replica.publish(NotificationEvent.created(Topic.CONTACT, 3));
+        long first = seen.get(0).seq();
+
+        // The third row has not been delivered here yet, so it is not history
+        assertEquals(List.of(seen.get(1)), replica.history(first, 0, 10));
+        assertEquals(List.of(), replica.history(first + 1, 0, 10));
+        assertNull(replica.history(first + 5, 0, 10));
+
+        clock.advance(Duration.ofMinutes(90));
+        replica.prune();
+        assertNull(replica.history(first, 0, 10));
+    }
+
+    private JdbcNotificationTransport transport() {
+        return new JdbcNotificationTransport(repository, 100, Duration.ofSeconds(2), Duration.ofMinutes(60), clock);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
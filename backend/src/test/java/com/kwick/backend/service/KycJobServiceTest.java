@@ -0,0 +1,123 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.KycJob;
+import com.kwick.backend.model.KycVerification;
+import com.kwick.backend.model.User;
+import com.kwick.backend.repository.KycJobRepository;
+import com.kwick.backend.repository.KycRepository;
+import com.kwick.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class KycJobServiceTest {
+
+    private KycJobRepository kycJobRepository;
+    private KycRepository kycRepository;
+    private KycPdfCache kycPdfCache;
+    private EmailService emailService;
+    private KycJobService service;
+    private KycJob job;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        kycJobRepository = mock(KycJobRepository.class);
+        kycRepository = mock(KycRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        kycPdfCache = mock(KycPdfCache.class);
+        emailService = mock(EmailService.class);
+        service = new KycJobService(kycJobRepository, kycRepository, userRepository, kycPdfCache, emailService,
+                mock(ThreadPoolTaskExecutor.class));
+
+        job = new KycJob();
+        job.setId(11L);
+        job.setKycId(21L);
+        job.setUserId(31L);
+        job.setStatus(KycJob.STATUS_RUNNING);
+        job.setAttempts(1);
+        KycVerification kyc = new KycVerification();
+        kyc.setId(21L);
+        User user = new User();
+        user.setId(31L);
+        user.setName("Asha");
+        user.setEmail("asha@example.com");
+        when(kycJobRepository.findById(11L)).thenReturn(Optional.of(job));
+        when(kycJobRepository.save(any(KycJob.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(kycRepository.findById(21L)).thenReturn(Optional.of(kyc));
+        when(userRepository.findById(31L)).thenReturn(Optional.of(user));
+        when(kycPdfCache.resolve(any(), any())).thenReturn(new KycPdfCache.PdfArtifact(Path.of("kyc.pdf"), "h", 1));
+    }
+
+    @Test
+    void run_marksEachStepAndFinishes() throws Exception {
+        service.run(11L);
+
+        assertEquals(KycJob.STATUS_DONE, job.getStatus());
+        assertNotNull(job.getPdfRenderedAt());
+        assertNotNull(job.getEmailSentAt());
+        verify(emailService, times(1)).sendKycSubmissionNotification("Asha", "asha@example.com", 31L);
+    }
+
+    @Test
+    void retryAfterEmailWasSent_doesNotSendItAgain() throws Exception {
+        // First attempt sent the email, then failed before the row was marked done
+        when(kycJobRepository.save(any(KycJob.class))).thenAnswer(inv -> {
+            KycJob saved = inv.getArgument(0);
+            if (KycJob.STATUS_DONE.equals(saved.getStatus()) && saved.getAttempts() == 1) {
+                throw new IllegalStateException("connection reset");
+            }
+            return saved;
+        });
+        service.run(11L);
+        assertEquals(KycJob.STATUS_PENDING, job.getStatus());
+        assertNotNull(job.getEmailSentAt());
+
+        job.setStatus(KycJob.STATUS_RUNNING);
+        job.setAttempts(2);
+        service.run(11L);
+
+        assertEquals(KycJob.STATUS_DONE, job.getStatus());
+        verify(emailService, times(1)).sendKycSubmissionNotification(any(), any(), any());
+        verify(kycPdfCache, times(1)).resolve(any(), any());
+    }
+
+    @Test
+    void failure_backsOffExponentiallyThenGivesUp() throws Exception {
+        when(kycPdfCache.resolve(any(), any())).thenThrow(new java.io.IOException("disk full"));
+        ArgumentCaptor<KycJob> saved = ArgumentCaptor.forClass(KycJob.class);
+
+        for (int attempt = 1; attempt <= 4; attempt++) {
+            job.setStatus(KycJob.STATUS_RUNNING);
+            job.setAttempts(attempt);
+            LocalDateTime before = LocalDateTime.now();
+            service.run(11L);
+
+            assertEquals(KycJob.STATUS_PENDING, job.getStatus());
+            assertEquals("disk full", job.getLastError());
+            // 10s, 20s, 40s, 80s
+            long expected = 10L << (attempt - 1);
+            long delay = Duration.between(before, job.getNextAttemptAt()).toSeconds();
+            assertTrue(delay >= expected - 1 && delay <= expected, "attempt " + attempt + " delay " + delay);
+        }
+
+        job.setStatus(KycJob.STATUS_RUNNING);
+        job.setAttempts(5);
+        service.run(11L);
+        assertEquals(KycJob.STATUS_FAILED, job.getStatus());
+
+        verify(kycJobRepository, times(5)).save(saved.capture());
+        List<KycJob> rows = saved.getAllValues();
+        assertEquals(KycJob.STATUS_FAILED, rows.get(rows.size() - 1).getStatus());
+        verify(emailService, never()).sendKycSubmissionNotification(any(), any(), any());
+    }
+}
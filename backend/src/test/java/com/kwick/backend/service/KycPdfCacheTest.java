@@ -0,0 +1,101 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.KycVerification;
+import com.kwick.backend.model.User;
+import com.kwick.backend.repository.KycRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class KycPdfCacheTest {
+
+    private static final long GRACE = 60_000;
+
+    @TempDir
+    Path root;
+
+    private PdfGenerationService pdfs;
+    private KycRepository kycRepository;
+    private KycVerification kyc;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pdfs = mock(PdfGenerationService.class);
+        kycRepository = mock(KycRepository.class);
+        doAnswer(inv -> {
+            inv.getArgument(2, OutputStream.class).write("%PDF".getBytes());
+            return null;
+        }).when(pdfs).writeKycPdf(any(), any(), any());
+        kyc = new KycVerification();
+        kyc.setId(3L);
+        kyc.setUserId(7L);
+        user = new User();
+        user.setId(7L);
+    }
+
+    @Test
+    void sweep_removesOnlyStaleFilesThatAreNotCurrent() throws Exception {
+        Path dir = Files.createDirectories(root.resolve("backend-uploads/kyc/7"));
+        Path old = pdf(dir, "kyc_old.pdf", 2 * GRACE);
+        Path current = pdf(dir, "kyc_current.pdf", 2 * GRACE);
+        Path recent = pdf(dir, "kyc_recent.pdf", GRACE / 2);
+        Path other = pdf(dir, "selfie.pdf", 2 * GRACE);
+        when(kycRepository.findKycPdfUrlByUserId(7L)).thenReturn(Optional.of("backend-uploads/kyc/7/kyc_current.pdf"));
+
+        // Nothing held in memory: a fresh instance (after a restart, or another replica) finds the leftovers
+        new KycPdfCache(pdfs, kycRepository, GRACE, root).sweepSuperseded();
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(current));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(other));
+    }
+
+    @Test
+    void resolve_keepsAVersionThatBecomesCurrentAgain() throws Exception {
+        KycPdfCache cache = new KycPdfCache(pdfs, kycRepository, GRACE, root);
+        Path dir = Files.createDirectories(root.resolve("backend-uploads/kyc/7"));
+        // Rendered long ago, superseded, then the status flipped back; the caller's entity is stale
+        Path flippedBack = pdf(dir, "kyc_h1.pdf", 2 * GRACE);
+        kyc.setKycPdfUrl("backend-uploads/kyc/7/kyc_h2.pdf");
+        when(kycRepository.findKycPdfUrlByUserId(7L)).thenReturn(Optional.of("backend-uploads/kyc/7/kyc_h2.pdf"));
+
+        KycPdfCache.PdfArtifact artifact = cache.resolve(kyc, user, "h1");
+        cache.sweepSuperseded();
+
+        assertEquals(flippedBack, artifact.path());
+        assertTrue(Files.exists(flippedBack));
+        verify(kycRepository).updateKycPdfUrl(3L, "backend-uploads/kyc/7/kyc_h1.pdf");
+        verify(pdfs, never()).writeKycPdf(any(), any(), any());
+    }
+
+    @Test
+    void resolve_rendersOnceAndRepointsTheRow() throws Exception {
+        KycPdfCache cache = new KycPdfCache(pdfs, kycRepository, GRACE, root);
+
+        KycPdfCache.PdfArtifact first = cache.resolve(kyc, user, "h1");
+        kyc.setKycPdfUrl("backend-uploads/kyc/7/kyc_h1.pdf");
+        KycPdfCache.PdfArtifact second = cache.resolve(kyc, user, "h1");
+
+        assertEquals(first.path(), second.path());
+        assertEquals(4, second.size());
+        verify(pdfs, times(1)).writeKycPdf(any(), any(), any());
+        verify(kycRepository, times(1)).updateKycPdfUrl(3L, "backend-uploads/kyc/7/kyc_h1.pdf");
+    }
+
+    private static Path pdf(Path dir, String name, long ageMillis) throws Exception {
+        Path file = Files.write(dir.resolve(name), "%PDF".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - ageMillis));
+        return file;
+    }
+}
@@ -0,0 +1,173 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.MailDeadLetter;
+import com.kwick.backend.repository.MailDeadLetterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MailDispatcherTest {
+
+    private FakeSmtpServer smtp;
+    private MailDeadLetterRepository deadLetterRepository;
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new FakeSmtpServer();
+        deadLetterRepository = mock(MailDeadLetterRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        smtp.close();
+    }
+
+    @Test
+    void queuedMessages_areSentInOneSmtpSession() throws Exception {
+        dispatcher = new MailDispatcher(sender(smtp.getPort()), deadLetterRepository, 100, 1, 50, 3, 10, 0);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(dispatcher.dispatch(message("msg-" + i)));
+        }
+
+        dispatcher.start();
+        awaitStat("sent", 20L);
+
+        assertEquals(20, smtp.getSubjects().size());
+        assertEquals(1, smtp.getConnections());
+        assertEquals(1L, dispatcher.stats().get("batches"));
+        verifyNoInteractions(deadLetterRepository);
+    }
+
+    @Test
+    void unreachableServer_retriesThenDeadLetters() throws Exception {
+        int closedPort;
+        try (ServerSocket s = new ServerSocket(0)) {
+            closedPort = s.getLocalPort();
+        }
+        dispatcher = new MailDispatcher(sender(closedPort), deadLetterRepository, 100, 1, 10, 3, 10, 0);
+        dispatcher.start();
+
+        assertTrue(dispatcher.dispatch(message("lost")));
+        awaitStat("deadLettered", 1L);
+
+        assertEquals(3L, dispatcher.stats().get("failures"));
+        assertEquals(2L, dispatcher.stats().get("retries"));
+        verify(deadLetterRepository).save(argThat((MailDeadLetter dl) -> "lost".equals(dl.getSubject()) && dl.getAttempts() == 3));
+    }
+
+    @Test
+    void fullQueue_rejectsWithoutBlocking() throws Exception {
+        // Workers not started, so nothing drains the queue
+        dispatcher = new MailDispatcher(sender(smtp.getPort()), deadLetterRepository, 2, 1, 10, 3, 10, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> savedOn = new AtomicReference<>();
+        when(deadLetterRepository.save(any())).thenAnswer(inv -> {
+            savedOn.set(Thread.currentThread().getName());
+            release.await(5, TimeUnit.SECONDS);
+            return inv.getArgument(0);
+        });
+
+        assertTrue(dispatcher.dispatch(message("a")));
+        assertTrue(dispatcher.dispatch(message("b")));
+        long start = System.nanoTime();
+        assertFalse(dispatcher.dispatch(message("c")));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+
+        assertEquals(1L, dispatcher.stats().get("rejected"));
+        verify(deadLetterRepository, timeout(5000)).save(argThat((MailDeadLetter dl) -> "c".equals(dl.getSubject())));
+        assertEquals("mail-retry", savedOn.get());
+        release.countDown();
+        awaitStat("deadLettered", 1L);
+    }
+
+    @Test
+    void deadLetterBacklog_dropsOnceItExceedsCapacity() throws Exception {
+        dispatcher = new MailDispatcher(sender(smtp.getPort()), deadLetterRepository, 1, 1, 10, 3, 10, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        when(deadLetterRepository.save(any())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return inv.getArgument(0);
+        });
+
+        assertTrue(dispatcher.dispatch(message("queued")));
+        assertFalse(dispatcher.dispatch(message("stored")));
+        assertFalse(dispatcher.dispatch(message("dropped")));
+
+        assertEquals(2L, dispatcher.stats().get("rejected"));
+        assertEquals(1L, dispatcher.stats().get("dropped"));
+        release.countDown();
+        awaitStat("deadLettered", 1L);
+        verify(deadLetterRepository, never()).save(argThat((MailDeadLetter dl) -> "dropped".equals(dl.getSubject())));
+    }
+
+    @Test
+    void stop_storesDeadLettersStillWaitingForTheRetryThread() throws Exception {
+        dispatcher = new MailDispatcher(sender(smtp.getPort()), deadLetterRepository, 3, 1, 10, 3, 10, 0);
+        CountDownLatch busy = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        when(deadLetterRepository.save(any())).thenAnswer(inv -> {
+            if (first.getAndSet(false)) {
+                // Holds the mail-retry thread until stop() interrupts it
+                busy.countDown();
+                new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+            }
+            return inv.getArgument(0);
+        });
+        for (int i = 0; i < 3; i++) {
+            assertTrue(dispatcher.dispatch(message("queued" + i)));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertFalse(dispatcher.dispatch(message("rejected" + i)));
+        }
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+        dispatcher.stop();
+
+        verify(deadLetterRepository).save(argThat((MailDeadLetter dl) -> "rejected1".equals(dl.getSubject())));
+        verify(deadLetterRepository).save(argThat((MailDeadLetter dl) -> "rejected2".equals(dl.getSubject())));
+        assertEquals(0L, dispatcher.stats().get("dropped"));
+        // The interrupted first write finishes on the retry thread
+        awaitStat("deadLettered", 3L);
+    }
+
+    private void awaitStat(String key, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Long.valueOf(expected).equals(dispatcher.stats().get(key)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, dispatcher.stats().get(key));
+    }
+
+    private static JavaMailSenderImpl sender(int port) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(port);
+        sender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        sender.getJavaMailProperties().put("mail.smtp.timeout", "2000");
+        return sender;
+    }
+
+    private static SimpleMailMessage message(String subject) {
+        SimpleMailMessage m = new SimpleMailMessage();
+        m.setFrom("noreply@kwick.com");
+        m.setTo("user@example.com");
+        m.setSubject(subject);
+        m.setText("body");
+        return m;
+    }
+}
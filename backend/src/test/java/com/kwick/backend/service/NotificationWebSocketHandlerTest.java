@@ -0,0 +1,335 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.config.AsyncConfig;
+import com.kwick.backend.service.NotificationWebSocketHandler.OverflowPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class NotificationWebSocketHandlerTest {
+
+    private static final int SESSIONS = 400;
+    // More wedged browsers than the default four send workers
+    private static final int STALLED = 6;
+    private static final int FRAMES = 100;
+
+    private ThreadPoolTaskExecutor sendPool;
+    private CountDownLatch unstall;
+
+    @BeforeEach
+    void setUp() {
+        // Same pool as production: notifications.ws.send-workers / send-queue-capacity defaults
+        sendPool = new AsyncConfig().notificationSendExecutor(4, 1000);
+        unstall = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        unstall.countDown();
+        sendPool.shutdown();
+    }
+
+    @Test
+    void stalledSessions_areEvictedWithoutDelayingTheRest() throws Exception {
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(sendPool, 256, 200, OverflowPolicy.TERMINATE);
+        List<List<String>> received = new ArrayList<>();
+        List<WebSocketSession> stalled = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            List<String> frames = new CopyOnWriteArrayList<>();
+            received.add(frames);
+            WebSocketSession session = session("s" + i, frames, i < STALLED);
+            if (i < STALLED) {
+                stalled.add(session);
+            }
+            handler.afterConnectionEstablished(session);
+        }
+
+        long start = System.nanoTime();
+        for (int f = 0; f < FRAMES; f++) {
+            handler.broadcast(new TextMessage("{\"seq\":" + f + "}"));
+        }
+        long broadcastMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Past the 200ms send limit the next broadcast evicts the wedged sockets it sees; the stall check
+        // catches the ones that only reach a worker after that
+        Thread.sleep(300);
+        handler.broadcast(new TextMessage("{\"seq\":" + FRAMES + "}"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((long) handler.stats().get("evictions") < STALLED && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            handler.evictStalled();
+        }
+
+        for (WebSocketSession s : stalled) {
+            verify(s, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+        awaitDelivered(received.subList(STALLED, SESSIONS), FRAMES + 1);
+        for (List<String> frames : received.subList(STALLED, SESSIONS)) {
+            for (int f = 0; f <= FRAMES; f++) {
+                assertEquals("{\"seq\":" + f + "}", frames.get(f));
+            }
+        }
+        assertEquals((long) STALLED, handler.stats().get("evictions"));
+        assertEquals(SESSIONS - STALLED, handler.sessionCount());
+        assertTrue(broadcastMillis < 2000, "broadcast took " + broadcastMillis + "ms");
+    }
+
+    @Test
+    void overflow_terminatePolicy_closesSession() throws Exception {
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(sendPool, 5, 60_000, OverflowPolicy.TERMINATE);
+        WebSocketSession slow = session("slow", new CopyOnWriteArrayList<>(), true);
+        handler.afterConnectionEstablished(slow);
+
+        for (int f = 0; f < 20; f++) {
+            handler.broadcast(new TextMessage("{\"seq\":" + f + "}"));
+        }
+
+        verify(slow, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(0, handler.sessionCount());
+        assertEquals(0, handler.stats().get("queued"));
+    }
+
+    @Test
+    void overflow_dropOldestPolicy_keepsSessionAndNewestFrames() throws Exception {
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(sendPool, 5, 60_000, OverflowPolicy.DROP_OLDEST);
+        List<String> frames = new CopyOnWriteArrayList<>();
+        WebSocketSession slow = session("slow", frames, true);
+        handler.afterConnectionEstablished(slow);
+
+        handler.broadcast(new TextMessage("{\"seq\":0}"));
+        // Let the drain pick up frame 0 and wedge on it before the outbox overflows
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((int) handler.stats().get("queued") > 0) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        for (int f = 1; f < 20; f++) {
+            handler.broadcast(new TextMessage("{\"seq\":" + f + "}"));
+        }
+        assertEquals(1, handler.sessionCount());
+        assertEquals(5, handler.stats().get("queued"));
+
+        unstall.countDown();
+        awaitDelivered(List.of(frames), 6);
+        // The frame already being written, then the five newest
+        assertEquals(List.of("{\"seq\":0}", "{\"seq\":15}", "{\"seq\":16}", "{\"seq\":17}", "{\"seq\":18}", "{\"seq\":19}"), frames);
+        verify(slow, never()).close(any());
+    }
+
+    @Test
+    void events_reachOnlyTopicSubscribers() throws Exception {
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(Runnable::run, 256, 5000, OverflowPolicy.TERMINATE);
+        List<String> admin = new CopyOnWriteArrayList<>();
+        List<String> user42 = new CopyOnWriteArrayList<>();
+        List<String> user7 = new CopyOnWriteArrayList<>();
+        handler.afterConnectionEstablished(session("admin", admin, false, 1L, "admin"));
+        WebSocketSession user42Session = session("u42", user42, false, 42L, "user");
+        handler.afterConnectionEstablished(user42Session);
+        handler.afterConnectionEstablished(session("u7", user7, false, 7L, "user"));
+        for (int i = 0; i < 300; i++) {
+            handler.afterConnectionEstablished(session("anon" + i, new CopyOnWriteArrayList<>(), false));
+        }
+
+        deliver(handler, NotificationEvent.kycStatus(3, 42, "approved"));
+        deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CONTACT, 9));
+
+        String kyc = NotificationEvent.kycStatus(3, 42, "approved").toJson();
+        assertEquals(List.of(kyc, NotificationEvent.created(NotificationEvent.Topic.CONTACT, 9).toJson()), admin);
+        assertEquals(List.of(kyc), user42);
+        assertTrue(user7.isEmpty());
+        // Fan-out touched three outboxes, not 303
+        assertEquals(3L, handler.stats().get("deliveries"));
+    }
+
+    @Test
+    void subscriptions_areAuthorizedPerTopic() throws Exception {
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(Runnable::run, 256, 5000, OverflowPolicy.TERMINATE);
+        List<String> user = new CopyOnWriteArrayList<>();
+        List<String> admin = new CopyOnWriteArrayList<>();
+        WebSocketSession userSession = session("u42", user, false, 42L, "user");
+        WebSocketSession adminSession = session("admin", admin, false, 1L, "admin");
+        handler.afterConnectionEstablished(userSession);
+        handler.afterConnectionEstablished(adminSession);
+
+        handler.handleTextMessage(userSession, new TextMessage("{\"action\":\"subscribe\",\"topics\":[\"kyc\",\"user:7\"]}"));
+        assertEquals("{\"type\":\"subscriptions\",\"topics\":[\"user:42\"],\"denied\":[\"kyc\",\"user:7\"]}", user.get(0));
+
+        handler.handleTextMessage(adminSession, new TextMessage("{\"action\":\"unsubscribe\",\"topics\":[\"contact\",\"cta\",\"callback\"]}"));
+        handler.handleTextMessage(adminSession, new TextMessage("{\"action\":\"subscribe\",\"topic\":\"user:7\"}"));
+        assertEquals("{\"type\":\"subscriptions\",\"topics\":[\"kyc\",\"user:1\",\"user:7\"]}", admin.get(1));
+
+        admin.clear();
+        deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CONTACT, 9));
+        deliver(handler, NotificationEvent.kycStatus(5, 7, "rejected"));
+        // On both "kyc" and "user:7", yet delivered once
+        assertEquals(List.of(NotificationEvent.kycStatus(5, 7, "rejected").toJson()), admin);
+
+        handler.handleTextMessage(userSession, new TextMessage("not json"));
+        assertTrue(user.get(1).contains("\"type\":\"error\""));
+    }
+
+    @Test
+    void resume_replaysOnlyWhatTheSessionMissedOnItsTopics() throws Exception {
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(Runnable::run, 256, 5000, OverflowPolicy.TERMINATE, null, 10);
+        deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CONTACT, 1).withSeq(1));
+        deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CTA, 2).withSeq(2));
+        deliver(handler, NotificationEvent.kycStatus(3, 42, "approved").withSeq(3));
+        deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CONTACT, 4).withSeq(4));
+
+        List<String> admin = new CopyOnWriteArrayList<>();
+        List<String> user = new CopyOnWriteArrayList<>();
+        handler.afterConnectionEstablished(session("admin", admin, false, Map.of(
+                NotificationWebSocketHandler.ATTR_USER_ID, 1L, NotificationWebSocketHandler.ATTR_ROLE, "admin",
+                NotificationWebSocketHandler.ATTR_RESUME_FROM, 2L)));
+        handler.afterConnectionEstablished(session("u42", user, false, Map.of(
+                NotificationWebSocketHandler.ATTR_USER_ID, 42L, NotificationWebSocketHandler.ATTR_ROLE, "user",
+                NotificationWebSocketHandler.ATTR_RESUME_FROM, 0L)));
+        NotificationEvent live = NotificationEvent.status(NotificationEvent.Topic.CTA, 2, "resolved").withSeq(5);
+        deliver(handler, live);
+
+        assertEquals(List.of("{\"type\":\"replay\",\"since\":2,\"count\":2}",
+                NotificationEvent.kycStatus(3, 42, "approved").withSeq(3).toJson(),
+                NotificationEvent.created(NotificationEvent.Topic.CONTACT, 4).withSeq(4).toJson(),
+                live.toJson()), admin);
+        assertEquals(List.of("{\"type\":\"replay\",\"since\":0,\"count\":1}",
+                NotificationEvent.kycStatus(3, 42, "approved").withSeq(3).toJson()), user);
+        assertEquals(3L, handler.stats().get("replayedFrames"));
+    }
+
+    @Test
+    void resume_beyondTheBuffer_asksForResync() throws Exception {
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(Runnable::run, 256, 5000, OverflowPolicy.TERMINATE, null, 3);
+        for (int seq = 1; seq <= 6; seq++) {
+            deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CONTACT, seq).withSeq(seq));
+        }
+
+        assertEquals("{\"type\":\"resync\",\"since\":2}", resumeFrom(handler, "a", 2L).get(0));
+        assertEquals(List.of("{\"type\":\"replay\",\"since\":3,\"count\":3}",
+                NotificationEvent.created(NotificationEvent.Topic.CONTACT, 4).withSeq(4).toJson(),
+                NotificationEvent.created(NotificationEvent.Topic.CONTACT, 5).withSeq(5).toJson(),
+                NotificationEvent.created(NotificationEvent.Topic.CONTACT, 6).withSeq(6).toJson()), resumeFrom(handler, "b", 3L));
+        assertEquals(List.of("{\"type\":\"replay\",\"since\":6,\"count\":0}"), resumeFrom(handler, "c", 6L));
+        // A position from another run's numbering
+        assertEquals("{\"type\":\"resync\",\"since\":99}", resumeFrom(handler, "d", 99L).get(0));
+        assertEquals(2L, handler.stats().get("resyncs"));
+    }
+
+    @Test
+    void resume_fallsBackToTheTransportHistory() throws Exception {
+        NotificationTransport transport = mock(NotificationTransport.class);
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(Runnable::run, 256, 5000, OverflowPolicy.TERMINATE, transport, 2);
+        for (int seq = 11; seq <= 13; seq++) {
+            deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CALLBACK, seq).withSeq(seq));
+        }
+        when(transport.history(10, 13, 256)).thenReturn(List.of(
+                NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 11).withSeq(11),
+                NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 12).withSeq(12),
+                NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 13).withSeq(13)));
+
+        List<String> frames = resumeFrom(handler, "a", 10L);
+
+        assertEquals(4, frames.size());
+        assertEquals("{\"type\":\"replay\",\"since\":10,\"count\":3}", frames.get(0));
+        assertEquals(NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 11).withSeq(11).toJson(), frames.get(1));
+    }
+
+    @Test
+    void resume_readsHistoryWithoutBlockingDeliveries() throws Exception {
+        NotificationTransport transport = mock(NotificationTransport.class);
+        NotificationWebSocketHandler handler = new NotificationWebSocketHandler(Runnable::run, 256, 5000, OverflowPolicy.TERMINATE, transport, 2);
+        for (int seq = 11; seq <= 13; seq++) {
+            deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CALLBACK, seq).withSeq(seq));
+        }
+        CountDownLatch inHistory = new CountDownLatch(1);
+        when(transport.history(10, 13, 256)).thenAnswer(inv -> {
+            inHistory.countDown();
+            unstall.await(5, TimeUnit.SECONDS);
+            return List.of(
+                    NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 11).withSeq(11),
+                    NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 12).withSeq(12),
+                    NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 13).withSeq(13));
+        });
+
+        CompletableFuture<List<String>> resumed = CompletableFuture.supplyAsync(() -> {
+            try {
+                return resumeFrom(handler, "a", 10L);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        assertTrue(inHistory.await(5, TimeUnit.SECONDS));
+        // Published while the history query is running: must neither wait for it nor be lost
+        CompletableFuture.runAsync(() -> deliver(handler, NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 14).withSeq(14)))
+                .get(2, TimeUnit.SECONDS);
+        unstall.countDown();
+
+        List<String> frames = resumed.get(5, TimeUnit.SECONDS);
+        assertEquals("{\"type\":\"replay\",\"since\":10,\"count\":4}", frames.get(0));
+        assertEquals(NotificationEvent.created(NotificationEvent.Topic.CALLBACK, 14).withSeq(14).toJson(), frames.get(4));
+        assertEquals(5, frames.size());
+    }
+
+    private List<String> resumeFrom(NotificationWebSocketHandler handler, String id, long since) throws Exception {
+        List<String> frames = new CopyOnWriteArrayList<>();
+        handler.afterConnectionEstablished(session(id, frames, false, Map.of(
+                NotificationWebSocketHandler.ATTR_USER_ID, 1L, NotificationWebSocketHandler.ATTR_ROLE, "admin",
+                NotificationWebSocketHandler.ATTR_RESUME_FROM, since)));
+        return frames;
+    }
+
+    private static void deliver(NotificationWebSocketHandler handler, NotificationEvent event) {
+        handler.deliver(event, new TextMessage(event.toJson()));
+    }
+
+    private WebSocketSession session(String id, List<String> frames, boolean stall, Long userId, String role) throws Exception {
+        return session(id, frames, stall, Map.of(
+                NotificationWebSocketHandler.ATTR_USER_ID, userId, NotificationWebSocketHandler.ATTR_ROLE, role));
+    }
+
+    private WebSocketSession session(String id, List<String> frames, boolean stall, Map<String, Object> attributes) throws Exception {
+        WebSocketSession session = session(id, frames, stall);
+        when(session.getAttributes()).thenReturn(attributes);
+        return session;
+    }
+
+    private WebSocketSession session(String id, List<String> frames, boolean stall) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            if (stall) {
+                unstall.await();
+            }
+            frames.add(((TextMessage) inv.getArgument(0)).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private static void awaitDelivered(List<List<String>> sessions, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (List<String> frames : sessions) {
+            while (frames.size() < count) {
+                assertTrue(System.nanoTime() < deadline, "only " + frames.size() + " of " + count + " frames delivered");
+                Thread.sleep(5);
+            }
+        }
+    }
+}
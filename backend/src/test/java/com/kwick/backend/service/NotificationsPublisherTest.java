@@ -0,0 +1,118 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.service.NotificationEvent.Topic;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class NotificationsPublisherTest {
+
+    private NotificationsPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.stop();
+        }
+    }
+
+    @Test
+    void wireFormat_matchesLegacyStrings() {
+        assertEquals("{\"type\":\"contact\",\"event\":\"created\",\"id\":5}",
+                NotificationEvent.created(Topic.CONTACT, 5).toJson());
+        assertEquals("{\"type\":\"cta\",\"event\":\"status\",\"id\":7,\"status\":\"resolved\"}",
+                NotificationEvent.status(Topic.CTA, 7, "resolved").toJson());
+        assertEquals("{\"type\":\"kyc\",\"event\":\"status\",\"kycId\":3,\"userId\":9,\"status\":\"approved\"}",
+                NotificationEvent.kycStatus(3, 9, "approved").toJson());
+        // Concatenation used to emit broken JSON for this
+        assertEquals("{\"type\":\"callback\",\"event\":\"status\",\"id\":1,\"status\":\"say \\\"hi\\\"\"}",
+                NotificationEvent.status(Topic.CALLBACK, 1, "say \"hi\"").toJson());
+        // The transport's sequence number goes last so the legacy prefix is untouched
+        assertEquals("{\"type\":\"contact\",\"event\":\"created\",\"id\":5,\"seq\":12}",
+                NotificationEvent.created(Topic.CONTACT, 5).withSeq(12).toJson());
+    }
+
+    @Test
+    void event_isSerializedOnceAndSharedAcrossSessions() throws Exception {
+        NotificationWebSocketHandler handler = directHandler();
+        CountDownLatch delivered = new CountDownLatch(3);
+        WebSocketSession[] sessions = new WebSocketSession[3];
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = mock(WebSocketSession.class);
+            when(sessions[i].getId()).thenReturn("admin-" + i);
+            when(sessions[i].getAttributes()).thenReturn(Map.of(
+                    NotificationWebSocketHandler.ATTR_USER_ID, (long) i, NotificationWebSocketHandler.ATTR_ROLE, "admin"));
+            when(sessions[i].isOpen()).thenReturn(true);
+            doAnswer(inv -> {
+                delivered.countDown();
+                return null;
+            }).when(sessions[i]).sendMessage(any());
+            handler.afterConnectionEstablished(sessions[i]);
+        }
+        publisher = new NotificationsPublisher(handler, new LocalNotificationTransport(0), 10);
+        publisher.start();
+
+        publisher.contactStatus(5, "resolved");
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        TextMessage first = null;
+        for (WebSocketSession s : sessions) {
+            ArgumentCaptor<TextMessage> sent = ArgumentCaptor.forClass(TextMessage.class);
+            verify(s).sendMessage(sent.capture());
+            if (first == null) {
+                first = sent.getValue();
+                assertEquals("{\"type\":\"contact\",\"event\":\"status\",\"id\":5,\"status\":\"resolved\",\"seq\":1}",
+                        first.getPayload());
+            }
+            assertSame(first, sent.getValue());
+        }
+    }
+
+    @Test
+    void publish_neverBlocksOnSlowSockets() throws Exception {
+        NotificationWebSocketHandler handler = directHandler();
+        CountDownLatch release = new CountDownLatch(1);
+        WebSocketSession slow = mock(WebSocketSession.class);
+        when(slow.getId()).thenReturn("slow");
+        when(slow.getAttributes()).thenReturn(Map.of(
+                NotificationWebSocketHandler.ATTR_USER_ID, 1L, NotificationWebSocketHandler.ATTR_ROLE, "admin"));
+        when(slow.isOpen()).thenReturn(true);
+        doAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(slow).sendMessage(any());
+        handler.afterConnectionEstablished(slow);
+        publisher = new NotificationsPublisher(handler, new LocalNotificationTransport(0), 4);
+        publisher.start();
+
+        long start = System.nanoTime();
+        int accepted = 0;
+        for (int i = 0; i < 50; i++) {
+            if (publisher.publish(NotificationEvent.created(Topic.CTA, i))) {
+                accepted++;
+            }
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        // One event may already be on the dispatcher thread; the rest of the overflow is dropped
+        assertTrue(elapsedMillis < 1000, "publish blocked for " + elapsedMillis + "ms");
+        assertTrue(accepted <= 5);
+        assertEquals(50L - accepted, publisher.stats().get("dropped"));
+    }
+
+    // Sends run on the dispatcher thread itself, so the publisher's own queue is what's under test
+    private static NotificationWebSocketHandler directHandler() {
+        return new NotificationWebSocketHandler(Runnable::run, 256, 5000, NotificationWebSocketHandler.OverflowPolicy.TERMINATE);
+    }
+}
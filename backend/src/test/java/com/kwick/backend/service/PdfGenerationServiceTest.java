@@ -0,0 +1,144 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.model.KycVerification;
+import com.kwick.backend.model.User;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdfGenerationServiceTest {
+
+    private final PdfGenerationService service = new PdfGenerationService();
+
+    @Test
+    void generatedPdf_containsLayoutAndValues() throws Exception {
+        KycVerification kyc = kyc();
+        kyc.setVerificationStatus("rejected");
+        kyc.setRejectionReason("Blurry selfie");
+
+        String text;
+        try (PDDocument doc = PDDocument.load(service.generateKycPdf(kyc, user()))) {
+            assertEquals(1, doc.getNumberOfPages());
+            text = new PDFTextStripper().getText(doc);
+        }
+
+        assertTrue(text.contains("KYC Verification Document"));
+        assertTrue(text.contains("Name: Asha Rao"));
+        assertTrue(text.contains("City, State, Pincode: Pune, MH 411001"));
+        assertTrue(text.contains("Aadhaar Number: ****9012"));
+        assertTrue(text.contains("Rejection Reason: Blurry selfie"));
+        assertFalse(text.contains("Verified On:"));
+        assertFalse(text.contains("123456789012"));
+    }
+
+    @Test
+    void writeKycPdf_streamsSameDocumentAndLeavesStreamOpen() throws Exception {
+        ClosingTracker out = new ClosingTracker();
+        service.writeKycPdf(kyc(), user(), out);
+
+        assertFalse(out.closed);
+        assertTrue(out.toString(StandardCharsets.ISO_8859_1).startsWith("%PDF"));
+        // The trailer /ID is time-based, so compare what is rendered rather than the raw bytes
+        assertEquals(text(service.generateKycPdf(kyc(), user())), text(out.toByteArray()));
+    }
+
+    @Test
+    void contentHash_changesOnlyWithRenderedFields() {
+        KycVerification kyc = kyc();
+        String pending = service.contentHash(kyc, user());
+
+        assertEquals(pending, service.contentHash(kyc(), user()));
+        kyc.setAadhaarNumber("999999999012"); // same last four digits, same page
+        assertEquals(pending, service.contentHash(kyc, user()));
+
+        kyc.setVerificationStatus("approved");
+        assertNotEquals(pending, service.contentHash(kyc, user()));
+    }
+
+    /**
+     * Throughput and allocation per document for the byte[] and streaming paths.
+     * Run with -Dkwick.bench=true; skipped in the regular build.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "kwick.bench", matches = "true")
+    void renderThroughput() throws Exception {
+        KycVerification kyc = kyc();
+        User user = user();
+        OutputStream sink = OutputStream.nullOutputStream();
+        for (int i = 0; i < 500; i++) {
+            service.generateKycPdf(kyc, user);
+            service.writeKycPdf(kyc, user, sink);
+        }
+
+        int docs = 5_000;
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+
+        long alloc = mx.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        for (int i = 0; i < docs; i++) {
+            service.generateKycPdf(kyc, user);
+        }
+        report("byte[]", docs, System.nanoTime() - start, mx.getThreadAllocatedBytes(tid) - alloc);
+
+        alloc = mx.getThreadAllocatedBytes(tid);
+        start = System.nanoTime();
+        for (int i = 0; i < docs; i++) {
+            service.writeKycPdf(kyc, user, sink);
+        }
+        report("stream", docs, System.nanoTime() - start, mx.getThreadAllocatedBytes(tid) - alloc);
+    }
+
+    private static void report(String mode, int docs, long nanos, long allocated) {
+        System.out.printf("PdfGenerationService %-6s %8.0f docs/s  %8d bytes allocated/doc%n",
+                mode, docs / (nanos / 1e9), allocated / docs);
+    }
+
+    private static String text(byte[] pdf) throws Exception {
+        try (PDDocument doc = PDDocument.load(pdf)) {
+            assertEquals(1, doc.getNumberOfPages());
+            return new PDFTextStripper().getText(doc);
+        }
+    }
+
+    private static KycVerification kyc() {
+        KycVerification kyc = new KycVerification();
+        kyc.setUserId(1L);
+        kyc.setAadhaarNumber("123456789012");
+        kyc.setDrivingLicenseNumber("MH12 20200012345");
+        kyc.setStreetAddress("12 MG Road");
+        kyc.setCity("Pune");
+        kyc.setState("MH");
+        kyc.setPincode("411001");
+        kyc.setVerificationStatus("pending");
+        kyc.setCreatedAt(LocalDateTime.of(2025, 1, 2, 10, 30));
+        return kyc;
+    }
+
+    private static User user() {
+        User u = new User();
+        u.setId(1L);
+        u.setName("Asha Rao");
+        u.setEmail("asha@example.com");
+        u.setPhone("9876543210");
+        return u;
+    }
+
+    private static final class ClosingTracker extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.kwick.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresignedUrlCacheTest {
+
+    private S3Presigner presigner;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() {
+        // Signing is purely local, so a real presigner with dummy credentials needs no S3
+        presigner = S3Presigner.builder()
+                .region(Region.AP_SOUTH_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+        clock = new MutableClock(Instant.now());
+    }
+
+    @AfterEach
+    void tearDown() {
+        presigner.close();
+    }
+
+    @Test
+    void presign_reusesUrlWhileMostOfItsLifetimeRemains() {
+        PresignedUrlCache cache = new PresignedUrlCache(presigner, Duration.ofMinutes(10), 100, clock);
+
+        String first = cache.presign("s3://kyc-docs/kyc/5/aadhaar/1700000000000-front.png");
+        assertTrue(first.startsWith("https://"));
+        assertTrue(first.contains("kyc/5/aadhaar/1700000000000-front.png"));
+        assertTrue(first.contains("X-Amz-Signature="));
+
+        clock.advance(Duration.ofMinutes(4));
+        assertEquals(first, cache.presign("s3://kyc-docs/kyc/5/aadhaar/1700000000000-front.png"));
+        assertEquals(1L, cache.stats().get("signed"));
+        assertEquals(1L, cache.stats().get("hits"));
+
+        // Less than half the TTL left: hand out a fresh URL rather than one about to expire
+        clock.advance(Duration.ofMinutes(2));
+        cache.presign("s3://kyc-docs/kyc/5/aadhaar/1700000000000-front.png");
+        assertEquals(2L, cache.stats().get("signed"));
+    }
+
+    @Test
+    void presign_ignoresNonS3Paths() {
+        PresignedUrlCache cache = new PresignedUrlCache(presigner, Duration.ofMinutes(10), 100, clock);
+
+        assertNull(cache.presign("/srv/backend-uploads/kyc/5/aadhaar/abc.png"));
+        assertNull(cache.presign("s3://bucket-only"));
+        assertNull(cache.presign(null));
+        assertEquals(0L, cache.stats().get("signed"));
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        PresignedUrlCache cache = new PresignedUrlCache(presigner, Duration.ofMinutes(10), 20, clock);
+
+        for (int i = 0; i < 200; i++) {
+            cache.presign("s3://kyc-docs/kyc/" + i + "/selfie/doc.jpg");
+        }
+        assertTrue((int) cache.stats().get("size") <= 20);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
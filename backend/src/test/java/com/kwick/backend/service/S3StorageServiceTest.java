@@ -0,0 +1,175 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.exception.InvalidUploadException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class S3StorageServiceTest {
+
+    private S3AsyncClient s3;
+    private List<CompletableFuture<PutObjectResponse>> pending;
+    private List<PutObjectRequest> requests;
+
+    @BeforeEach
+    void setUp() {
+        s3 = mock(S3AsyncClient.class);
+        pending = new CopyOnWriteArrayList<>();
+        requests = new CopyOnWriteArrayList<>();
+        // Each put stays in flight until the test completes it, like a slow S3
+        when(s3.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenAnswer(inv -> {
+            requests.add(inv.getArgument(0));
+            CompletableFuture<PutObjectResponse> f = new CompletableFuture<>();
+            pending.add(f);
+            return f;
+        });
+    }
+
+    @Test
+    void ingestAsync_returnsBeforeS3Answers() throws Exception {
+        S3StorageService storage = new S3StorageService(s3, "kyc-docs", 4, 1000);
+
+        CompletableFuture<StoredFile> future = storage.ingestAsync(png("front.png", 1), "kyc/5/aadhaar", Runnable::run);
+
+        assertFalse(future.isDone());
+        assertEquals(1, storage.getInFlightUploads());
+        PutObjectRequest req = requests.get(0);
+        assertEquals("kyc-docs", req.bucket());
+        assertTrue(req.key().startsWith("kyc/5/aadhaar/"));
+        assertEquals(64L, req.contentLength());
+
+        pending.get(0).complete(PutObjectResponse.builder().build());
+        StoredFile stored = future.get(1, TimeUnit.SECONDS);
+        assertEquals("s3://kyc-docs/" + req.key(), stored.url());
+        assertEquals("image/png", stored.contentType());
+        assertEquals(req.checksumSHA256(), Base64.getEncoder().encodeToString(HexFormat.of().parseHex(stored.sha256())));
+        assertEquals(0, storage.getInFlightUploads());
+    }
+
+    @Test
+    void concurrentUploads_areBoundedByPermits() throws Exception {
+        S3StorageService storage = new S3StorageService(s3, "kyc-docs", 2, 200);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<StoredFile>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(storage.ingestAsync(png("doc" + i + ".png", i), "kyc/5/license", pool));
+            }
+
+            // Two puts hold both permits; the third gives up after the permit timeout
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> CompletableFuture.anyOf(futures.toArray(new CompletableFuture<?>[0])).join());
+            assertTrue(e.getCause().getMessage().contains("concurrent"));
+            assertEquals(2, requests.size());
+            assertEquals(2, storage.getInFlightUploads());
+
+            pending.forEach(f -> f.complete(PutObjectResponse.builder().build()));
+            assertEquals(0, storage.getInFlightUploads());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void discard_deletesTheObjectWithoutWaiting() {
+        CompletableFuture<DeleteObjectResponse> delete = new CompletableFuture<>();
+        when(s3.deleteObject(any(DeleteObjectRequest.class))).thenReturn(delete);
+        S3StorageService storage = new S3StorageService(s3, "kyc-docs", 4, 1000);
+
+        storage.discard("s3://kyc-docs/kyc/5/aadhaar/1-front.png");
+
+        verify(s3).deleteObject(argThat((DeleteObjectRequest r) -> "kyc-docs".equals(r.bucket())
+                && "kyc/5/aadhaar/1-front.png".equals(r.key())));
+        delete.completeExceptionally(new IllegalStateException("gone"));
+    }
+
+    @Test
+    void exists_isFalseOnlyFor404() {
+        S3StorageService storage = new S3StorageService(s3, "kyc-docs", 4, 1000);
+        when(s3.headObject(any(HeadObjectRequest.class))).thenAnswer(inv -> switch (inv.<HeadObjectRequest>getArgument(0).key()) {
+            case "kyc/5/aadhaar/a.thumb.jpg" -> CompletableFuture.completedFuture(HeadObjectResponse.builder().build());
+            case "kyc/5/aadhaar/b.thumb.jpg" -> CompletableFuture.failedFuture(NoSuchKeyException.builder().statusCode(404).build());
+            default -> CompletableFuture.failedFuture(new IllegalStateException("timeout"));
+        });
+
+        assertDoesNotThrow(() -> assertTrue(storage.exists("s3://kyc-docs/kyc/5/aadhaar/a.thumb.jpg")));
+        assertDoesNotThrow(() -> assertFalse(storage.exists("s3://kyc-docs/kyc/5/aadhaar/b.thumb.jpg")));
+        assertThrows(java.io.IOException.class, () -> storage.exists("s3://kyc-docs/kyc/5/aadhaar/c.thumb.jpg"));
+
+        // Answers are remembered; errors are not
+        assertDoesNotThrow(() -> assertTrue(storage.exists("s3://kyc-docs/kyc/5/aadhaar/a.thumb.jpg")));
+        assertDoesNotThrow(() -> assertFalse(storage.exists("s3://kyc-docs/kyc/5/aadhaar/b.thumb.jpg")));
+        assertThrows(java.io.IOException.class, () -> storage.exists("s3://kyc-docs/kyc/5/aadhaar/c.thumb.jpg"));
+        verify(s3, times(4)).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void exists_neitherWaitsOnASlowHeadNorAsksForWhatItStored() throws Exception {
+        S3StorageService storage = new S3StorageService(s3, "kyc-docs", 4, 1000, 50);
+        CompletableFuture<HeadObjectResponse> slow = new CompletableFuture<>();
+        when(s3.headObject(any(HeadObjectRequest.class))).thenReturn(slow);
+
+        long start = System.nanoTime();
+        assertFalse(storage.exists("s3://kyc-docs/kyc/5/selfie/a.thumb.jpg"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        slow.complete(HeadObjectResponse.builder().build());
+        assertTrue(storage.exists("s3://kyc-docs/kyc/5/selfie/a.thumb.jpg"));
+
+        CompletableFuture<String> stored = CompletableFuture.supplyAsync(() -> {
+            try {
+                return storage.storeDerived("s3://kyc-docs/kyc/5/selfie/b.jpg", "b.thumb.jpg", new byte[] {1}, "image/jpeg");
+            } catch (java.io.IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+        while (pending.isEmpty()) {
+            Thread.sleep(5);
+        }
+        pending.get(0).complete(PutObjectResponse.builder().build());
+        assertEquals("s3://kyc-docs/kyc/5/selfie/b.thumb.jpg", stored.get(5, TimeUnit.SECONDS));
+        assertTrue(storage.exists("s3://kyc-docs/kyc/5/selfie/b.thumb.jpg"));
+        verify(s3, times(1)).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void badSignature_failsWithoutCallingS3() {
+        S3StorageService storage = new S3StorageService(s3, "kyc-docs", 2, 200);
+        MockMultipartFile text = new MockMultipartFile("file", "notes.png", "image/png", "hello".getBytes());
+
+        assertThrows(InvalidUploadException.class, () -> storage.ingest(text, "kyc/5/selfie"));
+        verifyNoInteractions(s3);
+        assertEquals(0, storage.getInFlightUploads());
+    }
+
+    private static MockMultipartFile png(String name, int seed) {
+        byte[] data = new byte[64];
+        byte[] header = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        System.arraycopy(header, 0, data, 0, header.length);
+        data[header.length] = (byte) seed;
+        return new MockMultipartFile("file", name, "image/png", data);
+    }
+}
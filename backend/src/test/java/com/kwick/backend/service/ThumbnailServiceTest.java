@@ -0,0 +1,112 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.repository.KycRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ThumbnailServiceTest {
+
+    @TempDir
+    Path baseDir;
+
+    private ContentAddressedStorageService storage;
+    private ThumbnailService thumbnails;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new ContentAddressedStorageService(baseDir, mock(KycRepository.class), Duration.ofMinutes(60));
+        thumbnails = new ThumbnailService(storage, Runnable::run, 320, 0.75f);
+    }
+
+    @Test
+    void largeScan_isStoredAsSmallJpegBesideOriginal() throws Exception {
+        StoredFile original = storage.ingest(image("front.png", 2400, 1600), "kyc/5/aadhaar");
+
+        thumbnails.schedule(original);
+
+        Path thumb = Path.of(ThumbnailService.thumbnailUrl(original.url()));
+        assertEquals(Path.of(original.url()).getParent(), thumb.getParent());
+        assertEquals(original.sha256() + ThumbnailService.SUFFIX, thumb.getFileName().toString());
+        BufferedImage decoded = ImageIO.read(thumb.toFile());
+        assertEquals(320, decoded.getWidth());
+        assertEquals(213, decoded.getHeight());
+        // The point of the exercise: previews are an order of magnitude lighter than the scan
+        assertTrue(Files.size(thumb) * 10 < original.size(),
+                "thumb " + Files.size(thumb) + " vs original " + original.size());
+        assertEquals(1L, thumbnails.stats().get("generated"));
+    }
+
+    @Test
+    void smallImage_isNotUpscaled() throws Exception {
+        StoredFile original = storage.ingest(image("selfie.png", 200, 100), "kyc/5/selfie");
+
+        thumbnails.schedule(original);
+
+        BufferedImage decoded = ImageIO.read(Path.of(ThumbnailService.thumbnailUrl(original.url())).toFile());
+        assertEquals(200, decoded.getWidth());
+        assertEquals(100, decoded.getHeight());
+    }
+
+    @Test
+    void pdf_getsNoThumbnail() throws Exception {
+        byte[] pdf = "%PDF-1.4\n%EOF\n".getBytes();
+        StoredFile original = storage.ingest(new MockMultipartFile("file", "license.pdf", "application/pdf", pdf), "kyc/5/license");
+
+        thumbnails.schedule(original);
+
+        assertFalse(Files.exists(Path.of(ThumbnailService.thumbnailUrl(original.url()))));
+        assertEquals(0L, thumbnails.stats().get("generated"));
+    }
+
+    @Test
+    void corruptImage_isCountedNotThrown() throws Exception {
+        byte[] data = new byte[256];
+        byte[] header = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        System.arraycopy(header, 0, data, 0, header.length);
+        StoredFile original = storage.ingest(new MockMultipartFile("file", "broken.png", "image/png", data), "kyc/5/selfie");
+
+        thumbnails.schedule(original);
+
+        assertEquals(1L, thumbnails.stats().get("failed"));
+    }
+
+    @Test
+    void thumbnailNames() {
+        assertEquals("abc.thumb.jpg", ThumbnailService.thumbnailName("/srv/uploads/kyc/5/aadhaar/abc.png"));
+        assertEquals("s3://docs/kyc/5/selfie/1700-me.thumb.jpg", ThumbnailService.thumbnailUrl("s3://docs/kyc/5/selfie/1700-me.jpeg"));
+        assertEquals("C:\\up\\kyc\\5\\license\\scan.thumb.jpg", ThumbnailService.thumbnailUrl("C:\\up\\kyc\\5\\license\\scan.png"));
+    }
+
+    // Grey noise so the PNG doesn't compress to nothing (like a real scan) yet stays under 5MB
+    private static MockMultipartFile image(String name, int width, int height) throws Exception {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                img.setRGB(x, y, random.nextInt(16) * 0x111111);
+            }
+        }
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(width / 4, height / 4, width / 2, height / 2);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", out);
+        return new MockMultipartFile("file", name, "image/png", out.toByteArray());
+    }
+}
@@ -0,0 +1,97 @@
+package com.kwick.backend.service;
+
+import com.kwick.backend.exception.InvalidUploadException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadIngestStreamTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @Test
+    void detectsTypeFromSignature() throws Exception {
+        assertEquals("image/png", open(withHeader(PNG_HEADER, 100)).contentType());
+        assertEquals("image/jpeg", open(withHeader(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}, 100)).contentType());
+        assertEquals("application/pdf", open("%PDF-1.7\n...".getBytes()).contentType());
+    }
+
+    @Test
+    void rejectsUnknownSignature_evenWithImageExtension() {
+        byte[] gif = "GIF89a....".getBytes();
+        assertThrows(InvalidUploadException.class, () -> open(gif));
+        assertThrows(InvalidUploadException.class, () -> open(new byte[2]));
+    }
+
+    @Test
+    void detect_readsOnlyTheHeader() throws Exception {
+        ByteArrayInputStream in = new ByteArrayInputStream(withHeader(PNG_HEADER, 100));
+        assertEquals("image/png", UploadIngestStream.detect(in));
+        assertEquals(100 - PNG_HEADER.length, in.available());
+        assertThrows(InvalidUploadException.class, () -> UploadIngestStream.detect(new ByteArrayInputStream("GIF89a..".getBytes())));
+    }
+
+    @Test
+    void hashesAndCountsEveryByte() throws Exception {
+        byte[] data = withHeader(PNG_HEADER, 200_000);
+        Arrays.fill(data, PNG_HEADER.length, data.length, (byte) 7);
+
+        UploadIngestStream in = open(data);
+        in.transferTo(OutputStream.nullOutputStream());
+
+        assertEquals(data.length, in.size());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data)), in.sha256());
+    }
+
+    @Test
+    void stopsReadingOnceLimitIsExceeded() throws Exception {
+        byte[] data = withHeader(PNG_HEADER, 2048);
+        CountingInput source = new CountingInput(data);
+        UploadIngestStream in = UploadIngestStream.open(source, 1024);
+
+        assertThrows(InvalidUploadException.class, () -> in.transferTo(OutputStream.nullOutputStream()));
+        assertTrue(source.read < data.length);
+    }
+
+    private static UploadIngestStream open(byte[] data) throws Exception {
+        return UploadIngestStream.open(new ByteArrayInputStream(data), UploadIngestStream.MAX_KYC_BYTES);
+    }
+
+    private static byte[] withHeader(byte[] header, int length) {
+        byte[] data = new byte[length];
+        System.arraycopy(header, 0, data, 0, header.length);
+        return data;
+    }
+
+    private static final class CountingInput extends InputStream {
+        private final byte[] data;
+        int read;
+
+        CountingInput(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return read < data.length ? data[read++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (read >= data.length) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, 256), data.length - read);
+            System.arraycopy(data, read, b, off, n);
+            read += n;
+            return n;
+        }
+    }
+}
@@ -3,6 +3,7 @@ import jsPDF from 'jspdf';
 import html2canvas from 'html2canvas';
 import { useAuth } from '../contexts/AuthContext';
 import apiClient from '../utils/apiClient';
+import { openNotificationSocket } from '../utils/notifications';
 import '../styles/admin-kyc-dashboard.css';
 
 // Helper function to build proper image URLs
@@ -76,19 +77,11 @@ const AdminKycDashboard = () => {
     }, [statusFilter, currentPage, searchQuery]);
 
     // Auto-refresh on KYC WebSocket events
-    useEffect(() => {
-        const wsUrl = 'ws://localhost:5000/ws/notifications';
-        const ws = new WebSocket(wsUrl);
-        ws.onmessage = (evt) => {
-            try {
-                const msg = JSON.parse(evt.data);
-                if (msg.type === 'kyc') {
-                    fetchKycSubmissions();
-                }
-            } catch {}
-        };
-        return () => { try { ws.close(); } catch {} };
-    }, [statusFilter]);
+    useEffect(() => openNotificationSocket(['kyc'], (msg) => {
+        if (msg.type === 'kyc') {
+            fetchKycSubmissions();
+        }
+    }), [statusFilter]);
 
 
     const fetchKycSubmissions = async () => {
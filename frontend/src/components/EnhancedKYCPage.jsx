@@ -8,6 +8,7 @@ import { Upload, FileText, CheckCircle, XCircle, Clock, Download, ArrowLeft, Cam
 import { toast } from "sonner";
 import { useAuth } from "../contexts/AuthContext";
 import * as kycApi from "../utils/kyc";
+import { openNotificationSocket } from "../utils/notifications";
 
 export function EnhancedKYCPage({ onNavigate }) {
     const { user, updateUser } = useAuth();
@@ -157,17 +158,12 @@ export function EnhancedKYCPage({ onNavigate }) {
 
     // Live sync: listen for KYC status changes and update local user context
     React.useEffect(() => {
-        const origin = window.location.origin.replace(/^http/, 'ws');
-        const ws = new WebSocket(`${origin}/ws/notifications`);
-        ws.onmessage = (evt) => {
-            try {
-                const msg = JSON.parse(evt.data);
-                if (msg.type === 'kyc' && msg.userId && user && msg.userId === user.userId) {
-                    updateUser({ kycStatus: msg.status });
-                }
-            } catch {}
-        };
-        return () => { try { ws.close(); } catch {} };
+        if (!user?.userId) return undefined;
+        return openNotificationSocket([`user:${user.userId}`], (msg) => {
+            if (msg.type === 'kyc' && msg.userId === user.userId) {
+                updateUser({ kycStatus: msg.status });
+            }
+        });
     }, [user]);
 
     const downloadKYCForm = () => {
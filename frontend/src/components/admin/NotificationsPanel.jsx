@@ -1,4 +1,4 @@
-import React, { useState, useEffect, useRef } from 'react';
+import React, { useState, useEffect } from 'react';
 import { Bell, AlertCircle, DollarSign, FileText, CheckCircle } from 'lucide-react';
 import { Card, CardContent } from '../ui/card';
 import { Badge } from '../ui/badge';
@@ -6,6 +6,7 @@ import { Button } from '../ui/button';
 import { Tabs, TabsContent, TabsList, TabsTrigger } from '../ui/tabs';
 import { AdminSidebar } from './AdminSidebar';
 import { motion } from 'motion/react';
+import { openNotificationSocket } from '../../utils/notifications';
 
 // Notifications will be fetched from API - no mock data
 const mockNotifications = [];
@@ -29,7 +30,6 @@ export const NotificationsPanel = ({ onNavigate }) => {
     const [callbackQuery, setCallbackQuery] = useState('');
     const [callbackPage, setCallbackPage] = useState(0);
     const callbackSize = 12;
-    const wsRef = useRef(null);
 
     const loadCallbacks = () => {
       setLoadingCallback(true);
@@ -52,19 +52,11 @@ export const NotificationsPanel = ({ onNavigate }) => {
     useEffect(() => { if (filter === 'callback') loadCallbacks(); }, [filter, callbackStatus, callbackQuery, callbackPage]);
     useEffect(() => { if (filter === 'contact') loadContacts(); }, [filter, contactStatus, contactQuery, contactPage]);
 
-    useEffect(() => {
-      const origin = window.location.origin.replace(/^http/, 'ws');
-      wsRef.current = new WebSocket('ws://localhost:5000/ws/notifications');
-      wsRef.current.onmessage = (evt) => {
-        try {
-          const msg = JSON.parse(evt.data);
-          if (msg.type === 'contact' && filter === 'contact') loadContacts();
-          if (msg.type === 'callback' && filter === 'callback') loadCallbacks();
-          if (msg.type === 'cta' && filter === 'callback') loadCallbacks();
-        } catch {}
-      };
-      return () => { try { wsRef.current && wsRef.current.close(); } catch {} };
-    }, [filter]);
+    useEffect(() => openNotificationSocket(['contact', 'callback', 'cta'], (msg) => {
+      if (msg.type === 'contact' && filter === 'contact') loadContacts();
+      if (msg.type === 'callback' && filter === 'callback') loadCallbacks();
+      if (msg.type === 'cta' && filter === 'callback') loadCallbacks();
+    }), [filter]);
 
     const markAsRead = (id) => {
         setNotifications(notifications.map(n => n.id === id ? { ...n, read: true } : n));
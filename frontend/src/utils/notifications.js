@@ -0,0 +1,33 @@
+import api from './apiClient';
+
+const baseURL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:5000/api';
+const wsOrigin = baseURL.replace(/\/api\/?$/, '').replace(/^http/, 'ws');
+
+// Open /ws/notifications as the signed-in user and subscribe to `topics`.
+// The socket is authenticated with a one-time ticket, never the access token itself, which would end up in
+// proxy and access logs. `onEvent` gets every parsed frame. Returns a function that closes the socket.
+export function openNotificationSocket(topics, onEvent) {
+  let ws = null;
+  let closed = false;
+
+  api.post('/notifications/ticket')
+    .then((res) => {
+      const ticket = res.data?.body?.ticket;
+      if (closed || !ticket) return;
+      ws = new WebSocket(`${wsOrigin}/ws/notifications?ticket=${encodeURIComponent(ticket)}`);
+      ws.onopen = () => {
+        ws.send(JSON.stringify({ action: 'subscribe', topics }));
+      };
+      ws.onmessage = (evt) => {
+        try {
+          onEvent(JSON.parse(evt.data));
+        } catch { }
+      };
+    })
+    .catch(() => { });
+
+  return () => {
+    closed = true;
+    try { ws && ws.close(); } catch { }
+  };
+}